@@ -0,0 +1,214 @@
+package com.lodborg.intervaltree;
+
+import java.util.*;
+
+/**
+ * An immutable Augmented Interval List (AIList), a read-optimized alternative to the
+ * {@link IntervalTree} for sets with many overlapping and nested intervals, for example
+ * genomic annotations. See Feng, Ratan and Sheffield: "Augmented Interval List: a novel data
+ * structure for efficient genomic interval search", Bioinformatics 2019.
+ *
+ * <p>
+ * A list of intervals sorted by their start points can be searched by finding the last interval,
+ * that starts before the end of the query, and scanning backwards from it. To know when to stop
+ * the scan, every position of the list is augmented with the greatest end point among the
+ * intervals up to this position. Once this running maximum is to the left of the query, none of
+ * the remaining intervals can intersect the query. This works well for intervals of similar
+ * length, but a single very long interval extends the running maximum for all intervals following
+ * it and forces the scan to visit many intervals that don't intersect the query.
+ * </p>
+ * <p>
+ * The AIList avoids this by decomposing the intervals into several components. An interval, which
+ * covers the majority of the intervals directly following it, is moved out of the list into the
+ * next component. The decomposition is repeated on the extracted intervals, until the remaining
+ * components are small or a maximal amount of components is reached. Each component is a sorted
+ * list with its own running maximum, and the queries search every component separately.
+ * </p>
+ * <p>
+ * The list answers the same queries as the {@link IntervalTree} with identical results. Just like
+ * the {@link StaticIntervalTree}, it is created once via {@link #build(Collection)}, discards
+ * {@code null}, empty and duplicate intervals, and throws an {@link UnsupportedOperationException}
+ * on any attempt to modify it.
+ * </p>
+ *
+ * @param <T> The type for the start and end point of the interval
+ */
+public class AugmentedIntervalList<T extends Comparable<? super T>> extends ImmutableIntervalSet<T> {
+	/**
+	 * The amount of intervals following an interval, which are checked to determine if the
+	 * interval needs to be moved to the next component.
+	 */
+	static final int COVERAGE_LENGTH = 20;
+
+	/**
+	 * The minimal amount of covered intervals among the {@link #COVERAGE_LENGTH} intervals
+	 * following an interval, so that the interval is moved to the next component.
+	 */
+	static final int MIN_COVERAGE = COVERAGE_LENGTH / 2;
+
+	/**
+	 * Components smaller than this size are not decomposed any further.
+	 */
+	static final int MIN_COMPONENT_SIZE = 64;
+
+	/**
+	 * The maximal amount of components. The last component keeps all remaining intervals.
+	 */
+	static final int MAX_COMPONENTS = 10;
+
+	/**
+	 * The component {@code i} consists of the intervals from {@code offsets[i]} to
+	 * {@code offsets[i+1] - 1} in the {@link #intervals} array. The intervals of every
+	 * component are ordered by their start points.
+	 */
+	private final int[] offsets;
+
+	/**
+	 * For every position in the {@link #intervals} array, the interval with the greatest end
+	 * point among the intervals from the start of the component up to this position.
+	 */
+	private final Interval<T>[] maxEnds;
+
+	private AugmentedIntervalList(Interval<T>[] intervals, int[] offsets){
+		super(intervals);
+		this.offsets = offsets;
+		maxEnds = Arrays.copyOf(intervals, intervals.length);
+		for (int c = 0; c + 1 < offsets.length; c++){
+			for (int i = offsets[c] + 1; i < offsets[c + 1]; i++){
+				if (maxEnds[i - 1].compareEnds(maxEnds[i]) > 0)
+					maxEnds[i] = maxEnds[i - 1];
+			}
+		}
+	}
+
+	/**
+	 * Builds a new augmented interval list containing all intervals from a collection. This
+	 * operation runs in {@code O(nlogn)} time, where {@code n} is the size of the collection.
+	 *
+	 * @param intervals The intervals to be stored in the list. {@code null} and empty intervals, as
+	 *                  well as duplicates, are discarded.
+	 * @param <T> The type for the start and end point of the intervals.
+	 * @return A new list containing the intervals.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T extends Comparable<? super T>> AugmentedIntervalList<T> build(Collection<? extends Interval<T>> intervals){
+		Interval<T>[] current = sortedDistinct(intervals);
+		Interval<T>[] result = (Interval<T>[]) new Interval<?>[current.length];
+		int[] offsets = new int[MAX_COMPONENTS + 1];
+		int components = 0, position = 0;
+
+		while (current.length > 0){
+			int n = current.length;
+			Interval<T>[] extracted = (Interval<T>[]) new Interval<?>[n];
+			int count = 0;
+			offsets[components++] = position;
+			if (n < MIN_COMPONENT_SIZE || components == MAX_COMPONENTS){
+				System.arraycopy(current, 0, result, position, n);
+				position += n;
+			} else {
+				for (int i = 0; i < n; i++){
+					int covered = 0;
+					for (int j = i + 1; j < n && j <= i + COVERAGE_LENGTH && covered < MIN_COVERAGE; j++){
+						if (current[j].compareEnds(current[i]) <= 0)
+							covered++;
+					}
+					if (covered >= MIN_COVERAGE)
+						extracted[count++] = current[i];
+					else
+						result[position++] = current[i];
+				}
+			}
+			current = Arrays.copyOf(extracted, count);
+		}
+		offsets[components] = position;
+		return new AugmentedIntervalList<>(result, Arrays.copyOf(offsets, components + 1));
+	}
+
+	/**
+	 * Searches for and returns all intervals stored in the list, that contain a given
+	 * query point. This operation runs in {@code O(clogn + k)} time for most inputs, where
+	 * {@code c} is the amount of components, {@code n} is the size of the list and
+	 * {@code k} is the size of the returned set.
+	 *
+	 * @param point The query point.
+	 * @return A set containing all intervals from the list, intersecting the query point.
+	 * @see IntervalTree#query(Comparable)
+	 */
+	@Override
+	public Set<Interval<T>> query(T point){
+		Set<Interval<T>> result = new HashSet<>();
+		for (int c = 0; c + 1 < offsets.length; c++){
+			int from = offsets[c], to = offsets[c + 1];
+			while (from < to){
+				int mid = (from + to) >>> 1;
+				if (intervals[mid].isRightOf(point))
+					to = mid;
+				else
+					from = mid + 1;
+			}
+			for (int i = from - 1; i >= offsets[c] && !maxEnds[i].isLeftOf(point); i--){
+				if (intervals[i].contains(point))
+					result.add(intervals[i]);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Searches for and returns all intervals stored in the list, that intersect a given
+	 * query interval. This operation runs in {@code O(clogn + k)} time for most inputs, where
+	 * {@code c} is the amount of components, {@code n} is the size of the list and
+	 * {@code k} is the size of the returned set.
+	 *
+	 * @param interval The query interval.
+	 * @return A set containing all intervals from the list, intersecting the query interval.
+	 * @see IntervalTree#query(Interval)
+	 */
+	@Override
+	public Set<Interval<T>> query(Interval<T> interval){
+		Set<Interval<T>> result = new HashSet<>();
+		if (interval.isEmpty())
+			return result;
+		for (int c = 0; c + 1 < offsets.length; c++){
+			int from = offsets[c], to = offsets[c + 1];
+			while (from < to){
+				int mid = (from + to) >>> 1;
+				if (intervals[mid].isRightOf(interval))
+					to = mid;
+				else
+					from = mid + 1;
+			}
+			for (int i = from - 1; i >= offsets[c] && !maxEnds[i].isLeftOf(interval); i--){
+				if (interval.intersects(intervals[i]))
+					result.add(intervals[i]);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Checks if a given object is stored in the list. This method uses binary search in
+	 * each component instead of iteration over all intervals.
+	 *
+	 * @param o The query object.
+	 * @return {@code true}, if the object is stored in the list, or {@code false}
+	 *         otherwise.
+	 */
+	@Override
+	public boolean contains(Object o) {
+		if (!(o instanceof Interval))
+			return false;
+		for (int c = 0; c + 1 < offsets.length; c++){
+			if (Arrays.binarySearch(intervals, offsets[c], offsets[c + 1], (Interval) o, Interval.sweepLeftToRight) >= 0)
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the amount of components, into which the intervals have been decomposed.
+	 */
+	int components(){
+		return offsets.length - 1;
+	}
+}
@@ -0,0 +1,356 @@
+package com.lodborg.intervaltree;
+
+import java.util.*;
+
+/**
+ * A mutable interval tree, which stores every interval in a node of its own. It is an alternative
+ * to the {@link IntervalTree} for write-heavy workloads.
+ *
+ * <p>
+ * The tree is a balanced (AVL) binary search tree on the intervals, ordered by
+ * {@link Interval#sweepLeftToRight}. Every node is augmented with the interval having the greatest
+ * end point in the subtree rooted at the node. A query visits a subtree only if this end point
+ * isn't to the left of the query, and stops descending to the right once it reaches an interval
+ * starting to the right of the query.
+ * </p>
+ * <p>
+ * Unlike the {@link IntervalTree}, where the intervals are grouped in nodes by the midpoints they
+ * contain and a rotation may have to move intervals from one node to another, a rotation in this
+ * tree only recomputes the augmentation of the two rotated nodes. Insertions and removals therefore
+ * run in {@code O(logn)} worst-case time. The price is a slower lookup - a query runs in
+ * {@code O(min(n, (k+1)logn))} time, where {@code k} is the amount of returned intervals, and
+ * every interval costs a separate node object.
+ * </p>
+ * <p>
+ * Just like the {@link IntervalTree}, the tree functions as a set and doesn't accept {@code null}
+ * or empty intervals. Its {@link #iterator()} returns the intervals in the order defined by
+ * {@link Interval#sweepLeftToRight} and is fail-fast.
+ * </p>
+ *
+ * @param <T> The type for the start and end point of the interval
+ */
+public class AugmentedIntervalTree<T extends Comparable<? super T>> extends AbstractSet<Interval<T>> implements IntervalIndex<T> {
+
+	/**
+	 * The root of the tree, or {@code null}, if the tree is empty.
+	 */
+	Node<T> root;
+
+	/**
+	 * The amount of intervals stored in the tree.
+	 */
+	private int size;
+
+	/**
+	 * The amount of structural modifications of the tree. Used by the iterators to detect
+	 * concurrent modifications.
+	 */
+	private int modCount;
+
+	/**
+	 * Adds an interval to the tree. If the interval is empty or already stored in the tree,
+	 * it is rejected. This operation runs in {@code O(logn)} worst-case time.
+	 *
+	 * @param interval The interval to be added to the tree.
+	 * @return {@code true}, if the tree has been modified as a result of the operation,
+	 *         or {@code false} otherwise.
+	 */
+	@Override
+	public boolean add(Interval<T> interval){
+		if (interval.isEmpty())
+			return false;
+		int sizeBeforeOperation = size;
+		root = add(root, interval);
+		return size != sizeBeforeOperation;
+	}
+
+	private Node<T> add(Node<T> node, Interval<T> interval){
+		if (node == null){
+			size++;
+			modCount++;
+			return new Node<>(interval);
+		}
+		int compare = Interval.sweepLeftToRight.compare(interval, node.interval);
+		if (compare == 0)
+			return node;
+		if (compare < 0)
+			node.left = add(node.left, interval);
+		else
+			node.right = add(node.right, interval);
+		return node.balanceOut();
+	}
+
+	/**
+	 * Removes an interval from the tree, if it was stored in it. This operation runs in
+	 * {@code O(logn)} worst-case time.
+	 *
+	 * @param o The interval to be removed.
+	 * @return {@code true}, if the tree has been modified as a result of the operation,
+	 *         or {@code false} otherwise.
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public boolean remove(Object o){
+		if (!(o instanceof Interval) || root == null)
+			return false;
+		int sizeBeforeOperation = size;
+		root = remove(root, (Interval<T>) o);
+		return size != sizeBeforeOperation;
+	}
+
+	private Node<T> remove(Node<T> node, Interval<T> interval){
+		if (node == null)
+			return null;
+		int compare = Interval.sweepLeftToRight.compare(interval, node.interval);
+		if (compare < 0){
+			node.left = remove(node.left, interval);
+		} else if (compare > 0){
+			node.right = remove(node.right, interval);
+		} else {
+			size--;
+			modCount++;
+			if (node.left == null)
+				return node.right;
+			if (node.right == null)
+				return node.left;
+			Node<T> successor = node.right;
+			while (successor.left != null)
+				successor = successor.left;
+			node.interval = successor.interval;
+			node.right = removeFirst(node.right);
+		}
+		return node.balanceOut();
+	}
+
+	private Node<T> removeFirst(Node<T> node){
+		if (node.left == null)
+			return node.right;
+		node.left = removeFirst(node.left);
+		return node.balanceOut();
+	}
+
+	/**
+	 * Searches for and returns all intervals stored in the tree, that contain a given
+	 * query point.
+	 *
+	 * @param point The query point.
+	 * @return A set containing all intervals from the tree, intersecting the query point.
+	 * @see IntervalTree#query(Comparable)
+	 */
+	@Override
+	public Set<Interval<T>> query(T point){
+		Set<Interval<T>> result = new HashSet<>();
+		query(root, OverlapQuery.of(point), result);
+		return result;
+	}
+
+	/**
+	 * Searches for and returns all intervals stored in the tree, that intersect a given
+	 * query interval.
+	 *
+	 * @param interval The query interval.
+	 * @return A set containing all intervals from the tree, intersecting the query interval.
+	 * @see IntervalTree#query(Interval)
+	 */
+	@Override
+	public Set<Interval<T>> query(Interval<T> interval){
+		Set<Interval<T>> result = new HashSet<>();
+		if (!interval.isEmpty())
+			query(root, OverlapQuery.of(interval), result);
+		return result;
+	}
+
+	private static <T extends Comparable<? super T>> void query(Node<T> node, OverlapQuery<T> query, Set<Interval<T>> result){
+		while (node != null && !query.isLeftOf(node.maxEnd)){
+			query(node.left, query, result);
+			if (query.isRightOf(node.interval))
+				return;
+			if (query.intersects(node.interval))
+				result.add(node.interval);
+			node = node.right;
+		}
+	}
+
+	/**
+	 * Returns the size of the tree.
+	 *
+	 * @return The amount of intervals, stored in the tree.
+	 */
+	@Override
+	public int size(){
+		return size;
+	}
+
+	/**
+	 * Removes all intervals from the tree. This is an {@code O(1)} worst-case
+	 * time operation.
+	 */
+	@Override
+	public void clear(){
+		root = null;
+		size = 0;
+		modCount++;
+	}
+
+	/**
+	 * Checks if a given object is stored in the tree. This method uses binary
+	 * search instead of iteration over all intervals, which is why it runs in
+	 * guaranteed {@code O(logn)} worst-case time.
+	 * @param o The query object.
+	 * @return {@code true}, if the object is stored in the tree, or {@code false}
+	 *         otherwise.
+	 */
+	@Override
+	public boolean contains(Object o){
+		if (!(o instanceof Interval))
+			return false;
+		Node<T> node = root;
+		while (node != null){
+			int compare = Interval.sweepLeftToRight.compare((Interval) o, node.interval);
+			if (compare == 0)
+				return true;
+			node = compare < 0 ? node.left : node.right;
+		}
+		return false;
+	}
+
+	/**
+	 * Returns an iterator over the intervals in the tree, in the order defined by
+	 * {@link Interval#sweepLeftToRight}. The iterator supports the {@code remove} operation.
+	 */
+	@Override
+	public Iterator<Interval<T>> iterator(){
+		return new Iterator<Interval<T>>() {
+			private final Deque<Node<T>> stack = new ArrayDeque<>();
+			private Interval<T> last;
+			private int expectedModCount = modCount;
+
+			{
+				pushLeft(root);
+			}
+
+			private void pushLeft(Node<T> node){
+				while (node != null){
+					stack.push(node);
+					node = node.left;
+				}
+			}
+
+			@Override
+			public boolean hasNext() {
+				return !stack.isEmpty();
+			}
+
+			@Override
+			public Interval<T> next() {
+				if (expectedModCount != modCount)
+					throw new ConcurrentModificationException();
+				if (stack.isEmpty())
+					throw new NoSuchElementException();
+				Node<T> node = stack.pop();
+				pushLeft(node.right);
+				last = node.interval;
+				return last;
+			}
+
+			@Override
+			public void remove() {
+				if (last == null)
+					throw new IllegalStateException();
+				if (expectedModCount != modCount)
+					throw new ConcurrentModificationException();
+				AugmentedIntervalTree.this.remove(last);
+				expectedModCount = modCount;
+
+				// The removal may have rotated the tree, so the stack is rebuilt. It has to contain
+				// all nodes on the path to the successor of the removed interval, to which the
+				// successor belongs to the left subtree or is the node itself.
+				stack.clear();
+				Node<T> node = root;
+				while (node != null){
+					if (Interval.sweepLeftToRight.compare(last, node.interval) < 0){
+						stack.push(node);
+						node = node.left;
+					} else {
+						node = node.right;
+					}
+				}
+				last = null;
+			}
+		};
+	}
+
+	/**
+	 * A node of the {@link AugmentedIntervalTree}, storing a single interval.
+	 */
+	static class Node<T extends Comparable<? super T>> {
+		Interval<T> interval;
+		Node<T> left, right;
+		int height;
+
+		/**
+		 * The interval with the greatest end point in the subtree rooted at this node.
+		 */
+		Interval<T> maxEnd;
+
+		Node(Interval<T> interval){
+			this.interval = interval;
+			maxEnd = interval;
+			height = 1;
+		}
+
+		private static int height(Node<?> node){
+			return node == null ? 0 : node.height;
+		}
+
+		/**
+		 * Recomputes the height and the augmentation of the node from its children.
+		 */
+		private void update(){
+			height = Math.max(height(left), height(right)) + 1;
+			maxEnd = interval;
+			if (left != null && left.maxEnd.compareEnds(maxEnd) > 0)
+				maxEnd = left.maxEnd;
+			if (right != null && right.maxEnd.compareEnds(maxEnd) > 0)
+				maxEnd = right.maxEnd;
+		}
+
+		/**
+		 * Updates the node and rebalances the subtree rooted at it, if necessary.
+		 *
+		 * @return The new root of the subtree.
+		 */
+		Node<T> balanceOut(){
+			update();
+			int balance = height(left) - height(right);
+			if (balance < -1){
+				if (height(right.left) > height(right.right))
+					right = right.rightRotate();
+				return leftRotate();
+			} else if (balance > 1){
+				if (height(left.right) > height(left.left))
+					left = left.leftRotate();
+				return rightRotate();
+			}
+			return this;
+		}
+
+		private Node<T> leftRotate(){
+			Node<T> head = right;
+			right = head.left;
+			head.left = this;
+			update();
+			head.update();
+			return head;
+		}
+
+		private Node<T> rightRotate(){
+			Node<T> head = left;
+			left = head.right;
+			head.right = this;
+			update();
+			head.update();
+			return head;
+		}
+	}
+}
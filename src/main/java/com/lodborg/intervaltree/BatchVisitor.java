@@ -0,0 +1,28 @@
+package com.lodborg.intervaltree;
+
+/**
+ * A callback, which receives the results of a batch of point queries one at a time, while the
+ * tree is being traversed. See {@link IntervalTree#queryAll(java.util.List, BatchVisitor)}.
+ *
+ * <p>
+ * Every result is reported together with the index of the query point in the batch, so the
+ * visitor can assign it to the right query. The results of a single point are not necessarily
+ * reported consecutively, and the order of the results is not specified. The visitor may stop
+ * the whole batch at any time by returning {@code false}. The tree must not be modified while
+ * it is being traversed.
+ * </p>
+ *
+ * @param <T> The type for the start and end point of the interval
+ */
+public interface BatchVisitor<T extends Comparable<? super T>> {
+
+	/**
+	 * Called for every interval containing one of the query points.
+	 *
+	 * @param index The index of the query point in the batch.
+	 * @param interval The interval containing the query point.
+	 * @return {@code true}, if the batch should continue, or {@code false}, if it should
+	 *         stop without visiting any further intervals.
+	 */
+	boolean visit(int index, Interval<T> interval);
+}
@@ -0,0 +1,280 @@
+package com.lodborg.intervaltree;
+
+import java.util.Arrays;
+import com.lodborg.intervaltree.Interval.Bounded;
+
+/**
+ * A centered interval tree specialized for intervals with {@code double} start and end points.
+ * It is an alternative to an {@link IntervalTree IntervalTree&lt;Double&gt;} filled with
+ * {@link DoubleInterval}s, which neither boxes the start and end points, nor allocates any
+ * objects per stored interval.
+ * <p>
+ * The intervals are stored in primitive arrays and identified by {@code int} handles. The
+ * {@code add} method returns the handle of the newly added interval and the queries return
+ * arrays of handles. The start and end points of an interval can be retrieved via its handle
+ * with the methods {@link #getStart(int)}, {@link #getEnd(int)}, {@link #isStartInclusive(int)}
+ * and {@link #isEndInclusive(int)}. See {@link PrimitiveIntervalTree} for more information on
+ * the handles.
+ * </p>
+ * <p>
+ * The tree follows the same semantics as the {@link DoubleInterval} class:
+ * </p>
+ * <ul>
+ *     <li>-0.0 and 0.0 are treated as the same value. The tree stores and returns 0.0 in both
+ *     cases.</li>
+ *     <li>Intervals with a {@link Double#NaN} as a start or an end point are empty and rejected
+ *     by the tree. Querying for {@link Double#NaN} returns no intervals.</li>
+ *     <li>The intervals [+inf, +inf] and [-inf, -inf] are empty.</li>
+ *     <li>Intervals extending to positive or negative infinity are represented by
+ *     {@link Double#POSITIVE_INFINITY} and {@link Double#NEGATIVE_INFINITY}. The
+ *     {@link #add(DoubleInterval)} method converts unbounded {@code DoubleInterval}s accordingly.</li>
+ * </ul>
+ * <p>
+ * The only difference to the {@code DoubleInterval} is that an open interval between two adjacent
+ * doubles, for example ({@code x}, {@code Math.nextUp(x)}), is considered empty by the tree, since
+ * there is no double value within it.
+ * </p>
+ */
+public class DoubleIntervalTree extends PrimitiveIntervalTree {
+
+	/**
+	 * The same offset from a bounded end point, that {@link DoubleInterval#getMidpoint()} uses
+	 * for intervals extending to infinity.
+	 */
+	private static final int OFFSET = 1_000;
+
+	/**
+	 * Adds an interval to the tree. If the interval is empty or an equal interval is already
+	 * stored in the tree, the interval is rejected.
+	 *
+	 * @param start The start point of the interval.
+	 * @param end The end point of the interval.
+	 * @param type Description of whether the interval is open/closed at one or both
+	 *             of its ends. See {@link Bounded the documentation of the Bounded enum}
+	 *             for more information on the different possibilities.
+	 * @return The handle of the added interval, or -1 if the tree hasn't been modified.
+	 */
+	public int add(double start, double end, Bounded type){
+		if (isEmpty(start, end))
+			return -1;
+		byte flag = flags(type);
+		return insert(low(key(start), flag), high(key(end), flag), flag);
+	}
+
+	/**
+	 * Adds a {@link DoubleInterval} to the tree.
+	 *
+	 * @param interval The interval to be added.
+	 * @return The handle of the added interval, or -1 if the tree hasn't been modified.
+	 */
+	public int add(DoubleInterval interval){
+		return add(startOf(interval), endOf(interval), typeOf(interval));
+	}
+
+	/**
+	 * Removes an interval from the tree, if it was stored in it.
+	 *
+	 * @param start The start point of the interval.
+	 * @param end The end point of the interval.
+	 * @param type The type of the interval.
+	 * @return {@code true}, if the tree has been modified as a result of the operation.
+	 */
+	public boolean remove(double start, double end, Bounded type){
+		int id = find(start, end, type);
+		if (id < 0)
+			return false;
+		delete(id);
+		return true;
+	}
+
+	/**
+	 * Removes a {@link DoubleInterval} from the tree, if it was stored in it.
+	 *
+	 * @param interval The interval to be removed.
+	 * @return {@code true}, if the tree has been modified as a result of the operation.
+	 */
+	public boolean remove(DoubleInterval interval){
+		return remove(startOf(interval), endOf(interval), typeOf(interval));
+	}
+
+	/**
+	 * Checks if an interval is stored in the tree. This method uses binary search instead of
+	 * iteration over all intervals, which is why it runs in {@code O(logn)} worst-case time.
+	 *
+	 * @param start The start point of the interval.
+	 * @param end The end point of the interval.
+	 * @param type The type of the interval.
+	 * @return {@code true}, if the interval is stored in the tree.
+	 */
+	public boolean contains(double start, double end, Bounded type){
+		return find(start, end, type) >= 0;
+	}
+
+	/**
+	 * Searches for the handle of a stored interval.
+	 *
+	 * @param start The start point of the interval.
+	 * @param end The end point of the interval.
+	 * @param type The type of the interval.
+	 * @return The handle of the interval, or -1 if the interval is not stored in the tree.
+	 */
+	public int find(double start, double end, Bounded type){
+		if (isEmpty(start, end))
+			return -1;
+		byte flag = flags(type);
+		return lookup(low(key(start), flag), high(key(end), flag), flag);
+	}
+
+	/**
+	 * Searches for and returns all intervals stored in the tree, that contain a given
+	 * query point. This operation runs in {@code O(logn + k)}, where {@code n} is the
+	 * size of the tree and {@code k} is the amount of returned intervals.
+	 *
+	 * @param point The query point.
+	 * @return The handles of all intervals from the tree, containing the query point.
+	 */
+	public int[] query(double point){
+		if (Double.isNaN(point))
+			return new int[0];
+		return queryPoint(key(point));
+	}
+
+	/**
+	 * Searches for and returns all intervals stored in the tree, that intersect the closed
+	 * query interval [from, to].
+	 *
+	 * @param from The start point of the query interval.
+	 * @param to The end point of the query interval.
+	 * @return The handles of all intervals from the tree, intersecting the query interval.
+	 * @see #query(double, double, Bounded)
+	 */
+	public int[] query(double from, double to){
+		return query(from, to, Bounded.CLOSED);
+	}
+
+	/**
+	 * Searches for and returns all intervals stored in the tree, that intersect a given
+	 * query interval. This operation runs in {@code O(logn + k)}, where {@code n} is the
+	 * size of the tree and {@code k} is the amount of returned intervals.
+	 *
+	 * @param start The start point of the query interval.
+	 * @param end The end point of the query interval.
+	 * @param type The type of the query interval.
+	 * @return The handles of all intervals from the tree, intersecting the query interval.
+	 */
+	public int[] query(double start, double end, Bounded type){
+		if (isEmpty(start, end))
+			return new int[0];
+		byte flag = flags(type);
+		long startKey = key(start), endKey = key(end);
+		if (low(startKey, flag) > high(endKey, flag))
+			return new int[0];
+		if (flag == (START_INCLUSIVE | END_INCLUSIVE))
+			return queryRange(startKey, endKey);
+
+		// Like DoubleInterval#intersects, the query compares the end points as real numbers. An
+		// interval starting right before an open query end, for example (x, y] and [z, Math.nextUp(x)),
+		// intersects the query, even though they share no double. Therefore the open query ends
+		// are included in the search and only the intervals touching them with an inclusive end
+		// point are dropped.
+		int[] ids = queryRange(startKey, endKey);
+		int kept = 0;
+		for (int id: ids){
+			if ((flag & START_INCLUSIVE) == 0 && highs[id] == startKey && isEndInclusive(id))
+				continue;
+			if ((flag & END_INCLUSIVE) == 0 && lows[id] == endKey && isStartInclusive(id))
+				continue;
+			ids[kept++] = id;
+		}
+		return kept == ids.length ? ids : Arrays.copyOf(ids, kept);
+	}
+
+	/**
+	 * Searches for and returns all intervals stored in the tree, that intersect a given
+	 * {@link DoubleInterval}.
+	 *
+	 * @param interval The query interval.
+	 * @return The handles of all intervals from the tree, intersecting the query interval.
+	 */
+	public int[] query(DoubleInterval interval){
+		return query(startOf(interval), endOf(interval), typeOf(interval));
+	}
+
+	/** Returns the start point of the interval with the given handle. */
+	public double getStart(int id){
+		return value(startKey(id));
+	}
+
+	/** Returns the end point of the interval with the given handle. */
+	public double getEnd(int id){
+		return value(endKey(id));
+	}
+
+	/**
+	 * Creates a new {@link DoubleInterval} equal to the interval with the given handle.
+	 *
+	 * @param id The handle of a stored interval.
+	 * @return A new interval object.
+	 */
+	public DoubleInterval toInterval(int id){
+		return (DoubleInterval) new DoubleInterval().create(getStart(id), isStartInclusive(id), getEnd(id), isEndInclusive(id));
+	}
+
+	private static double startOf(DoubleInterval interval){
+		return interval.getStart() == null ? Double.NEGATIVE_INFINITY : interval.getStart();
+	}
+
+	private static double endOf(DoubleInterval interval){
+		return interval.getEnd() == null ? Double.POSITIVE_INFINITY : interval.getEnd();
+	}
+
+	/**
+	 * Checks for the intervals, which are empty according to the rules of
+	 * {@link DoubleInterval#isEmpty()}, but would contain a key. Intervals between adjacent
+	 * doubles need no special handling, since their smallest key is larger than their
+	 * largest one.
+	 */
+	private static boolean isEmpty(double start, double end){
+		if (Double.isNaN(start) || Double.isNaN(end))
+			return true;
+		return start == end && Double.isInfinite(start);
+	}
+
+	/**
+	 * Maps a double to a key, such that the order of the keys is the numerical order of the
+	 * doubles and adjacent doubles have adjacent keys. -0.0 and 0.0 are mapped to the same key.
+	 * The method must not be called with {@link Double#NaN}.
+	 */
+	static long key(double value){
+		long bits = Double.doubleToRawLongBits(value);
+		return bits >= 0 ? bits : (bits ^ Long.MAX_VALUE) + 1;
+	}
+
+	/**
+	 * The inverse of {@link #key(double)}. Returns 0.0 for the key of -0.0.
+	 */
+	static double value(long key){
+		return Double.longBitsToDouble(key >= 0 ? key : (key - 1) ^ Long.MAX_VALUE);
+	}
+
+	/**
+	 * Determines a point inside an interval in the same fashion as {@link DoubleInterval#getMidpoint()}.
+	 * If the computed center is not inside the interval, for example due to rounding, the smallest
+	 * double within the interval is used instead.
+	 */
+	@Override
+	void assignMidpoint(int node, int id){
+		double start = value(lows[id]), end = value(highs[id]);
+		double midpoint;
+		if (start == Double.NEGATIVE_INFINITY && end == Double.POSITIVE_INFINITY)
+			midpoint = 0.0;
+		else if (start == Double.NEGATIVE_INFINITY)
+			midpoint = end - OFFSET;
+		else if (end == Double.POSITIVE_INFINITY)
+			midpoint = start + OFFSET;
+		else
+			midpoint = start / 2 + end / 2;
+		long key = key(midpoint);
+		midpoints[node] = lows[id] <= key && key <= highs[id] ? key : lows[id];
+	}
+}
@@ -0,0 +1,115 @@
+package com.lodborg.intervaltree;
+
+import java.util.*;
+
+/**
+ * A common base for the read-only interval indexes, which are built once from a collection of
+ * intervals and can only be queried afterwards, such as the {@link StaticIntervalTree}.
+ * <p>
+ * The set keeps all of its intervals in a single array, in the order in which they are returned
+ * by the iterator. The subclasses decide on this order and on any additional structures needed
+ * for the queries. All operations that modify the set throw an {@link UnsupportedOperationException}.
+ * </p>
+ *
+ * @param <T> The type for the start and end point of the interval
+ */
+abstract class ImmutableIntervalSet<T extends Comparable<? super T>> extends AbstractSet<Interval<T>> implements IntervalIndex<T> {
+
+	/**
+	 * All intervals stored in the set, in iteration order.
+	 */
+	final Interval<T>[] intervals;
+
+	ImmutableIntervalSet(Interval<T>[] intervals){
+		this.intervals = intervals;
+	}
+
+	/**
+	 * Collects the intervals in a collection, which would be accepted by an {@link IntervalTree},
+	 * sorted in the order defined by {@link Interval#sweepLeftToRight}. {@code null} and empty
+	 * intervals are discarded, as well as all intervals considered equal to a preceding interval
+	 * by the comparator.
+	 *
+	 * @param collection The source collection of intervals.
+	 * @param <T> The type for the start and end point of the intervals.
+	 * @return A new array containing the sorted distinct intervals.
+	 */
+	@SuppressWarnings("unchecked")
+	static <T extends Comparable<? super T>> Interval<T>[] sortedDistinct(Collection<? extends Interval<T>> collection){
+		List<Interval<T>> list = new ArrayList<>(collection.size());
+		for (Interval<T> next: collection){
+			if (next != null && !next.isEmpty())
+				list.add(next);
+		}
+		Interval<T>[] sorted = list.toArray((Interval<T>[]) new Interval<?>[list.size()]);
+		Arrays.sort(sorted, Interval.sweepLeftToRight);
+		int n = 0;
+		for (int i = 0; i < sorted.length; i++){
+			if (n == 0 || Interval.sweepLeftToRight.compare(sorted[n - 1], sorted[i]) != 0)
+				sorted[n++] = sorted[i];
+		}
+		return n == sorted.length ? sorted : Arrays.copyOf(sorted, n);
+	}
+
+	/**
+	 * Returns an iterator over all intervals in the set. The iterator doesn't support
+	 * the {@code remove} operation.
+	 */
+	@Override
+	public Iterator<Interval<T>> iterator() {
+		return new Iterator<Interval<T>>() {
+			private int index;
+
+			@Override
+			public boolean hasNext() {
+				return index < intervals.length;
+			}
+
+			@Override
+			public Interval<T> next() {
+				if (!hasNext())
+					throw new NoSuchElementException();
+				return intervals[index++];
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	/**
+	 * Returns the size of the set.
+	 *
+	 * @return The amount of intervals, stored in the set.
+	 */
+	@Override
+	public int size() {
+		return intervals.length;
+	}
+
+	/**
+	 * Always throws an {@link UnsupportedOperationException}, since the set is immutable.
+	 */
+	@Override
+	public boolean add(Interval<T> interval) {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * Always throws an {@link UnsupportedOperationException}, since the set is immutable.
+	 */
+	@Override
+	public boolean remove(Object o) {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * Always throws an {@link UnsupportedOperationException}, since the set is immutable.
+	 */
+	@Override
+	public void clear() {
+		throw new UnsupportedOperationException();
+	}
+}
@@ -0,0 +1,190 @@
+package com.lodborg.intervaltree;
+
+import java.util.*;
+
+/**
+ * An immutable interval index, consisting of a single array of intervals sorted by their start
+ * points, on top of which an implicit binary search tree is laid out. The design follows the
+ * cgranges library by Heng Li.
+ *
+ * <p>
+ * The index doesn't allocate any node objects. The position of an interval in the sorted array
+ * determines its position in the tree - the leaves are at the even positions, the nodes on the
+ * first level above the leaves are at the positions {@code 1, 5, 9, ...}, the nodes on the second
+ * level at {@code 3, 11, 19, ...} and so on. In general, the node at position {@code i} on level
+ * {@code k} has its children at the positions {@code i - 2^(k-1)} and {@code i + 2^(k-1)}.
+ * Since the array is sorted, this is a binary search tree on the start points. Every node is
+ * augmented with the interval having the greatest end point within its subtree, which allows the
+ * queries to skip subtrees whose intervals all end before the query.
+ * </p>
+ * <p>
+ * Apart from the interval objects, the index needs two references per interval - one in the sorted
+ * array and one for the augmentation - and no further objects. Lookups traverse two flat arrays,
+ * which makes them cache-friendly, and the sorted array alone is enough to rebuild the index.
+ * </p>
+ * <p>
+ * The index answers the same queries as the {@link IntervalTree} with identical results. Just like
+ * the {@link StaticIntervalTree}, it is created once via {@link #build(Collection)}, discards
+ * {@code null}, empty and duplicate intervals, and throws an {@link UnsupportedOperationException}
+ * on any attempt to modify it.
+ * </p>
+ *
+ * @param <T> The type for the start and end point of the interval
+ */
+public class ImplicitIntervalIndex<T extends Comparable<? super T>> extends ImmutableIntervalSet<T> {
+	/**
+	 * Subtrees on this level or below are scanned linearly instead of being traversed.
+	 */
+	private static final int SCAN_LEVEL = 3;
+
+	/**
+	 * For every node, the interval with the greatest end point in the subtree rooted at the node.
+	 */
+	private final Interval<T>[] maxEnds;
+
+	/**
+	 * The level of the root node. The root is at the position {@code 2^rootLevel - 1}.
+	 */
+	private final int rootLevel;
+
+	private ImplicitIntervalIndex(Interval<T>[] intervals){
+		super(intervals);
+		int n = intervals.length;
+		maxEnds = Arrays.copyOf(intervals, n);
+
+		int level = 0;
+		while (1L << (level + 1) <= n)
+			level++;
+		rootLevel = level;
+		if (n == 0)
+			return;
+
+		// The last existing node on the right border of the tree on the current level, and the
+		// greatest end point in its subtree. Nodes on the right border may have a right child
+		// beyond the end of the array, whose existing descendants are represented by this node.
+		int last = (n - 1) & ~1;
+		Interval<T> lastMax = intervals[last];
+		for (int k = 1; 1 << k <= n; k++){
+			int offset = 1 << (k - 1);
+			for (int i = (1 << k) - 1; i < n; i += 1 << (k + 1)){
+				Interval<T> max = maxOf(intervals[i], maxEnds[i - offset]);
+				maxEnds[i] = maxOf(max, i + offset < n ? maxEnds[i + offset] : lastMax);
+			}
+			last = ((last >> k) & 1) != 0 ? last - offset : last + offset;
+			if (last < n)
+				lastMax = maxOf(lastMax, maxEnds[last]);
+		}
+	}
+
+	/**
+	 * Builds a new implicit interval index containing all intervals from a collection. This
+	 * operation runs in {@code O(nlogn)} time, where {@code n} is the size of the collection.
+	 *
+	 * @param intervals The intervals to be stored in the index. {@code null} and empty intervals, as
+	 *                  well as duplicates, are discarded.
+	 * @param <T> The type for the start and end point of the intervals.
+	 * @return A new index containing the intervals.
+	 */
+	public static <T extends Comparable<? super T>> ImplicitIntervalIndex<T> build(Collection<? extends Interval<T>> intervals){
+		return new ImplicitIntervalIndex<>(sortedDistinct(intervals));
+	}
+
+	private static <T extends Comparable<? super T>> Interval<T> maxOf(Interval<T> a, Interval<T> b){
+		return a.compareEnds(b) >= 0 ? a : b;
+	}
+
+	/**
+	 * Searches for and returns all intervals stored in the index, that contain a given
+	 * query point. This operation runs in {@code O(logn + k)} time for most inputs, where
+	 * {@code n} is the size of the index and {@code k} is the size of the returned set.
+	 *
+	 * @param point The query point.
+	 * @return A set containing all intervals from the index, intersecting the query point.
+	 * @see IntervalTree#query(Comparable)
+	 */
+	@Override
+	public Set<Interval<T>> query(T point){
+		return query(OverlapQuery.of(point));
+	}
+
+	/**
+	 * Searches for and returns all intervals stored in the index, that intersect a given
+	 * query interval. This operation runs in {@code O(logn + k)} time for most inputs, where
+	 * {@code n} is the size of the index and {@code k} is the size of the returned set.
+	 *
+	 * @param interval The query interval.
+	 * @return A set containing all intervals from the index, intersecting the query interval.
+	 * @see IntervalTree#query(Interval)
+	 */
+	@Override
+	public Set<Interval<T>> query(Interval<T> interval){
+		if (interval.isEmpty())
+			return new HashSet<>();
+		return query(OverlapQuery.of(interval));
+	}
+
+	/**
+	 * Traverses the implicit tree with an explicit stack. Each stack entry is a node, its level
+	 * and a flag, whether the left subtree of the node has already been pushed.
+	 */
+	private Set<Interval<T>> query(OverlapQuery<T> query){
+		Set<Interval<T>> result = new HashSet<>();
+		int n = intervals.length;
+		if (n == 0)
+			return result;
+		int[] nodes = new int[64], levels = new int[64];
+		boolean[] visited = new boolean[64];
+		int top = 0;
+		nodes[0] = (1 << rootLevel) - 1;
+		levels[0] = rootLevel;
+		top++;
+
+		while (top > 0){
+			top--;
+			int node = nodes[top], level = levels[top];
+			if (level <= SCAN_LEVEL){
+				// Scan the small subtree linearly.
+				int from = node >> level << level;
+				int to = Math.min(from + (1 << (level + 1)) - 1, n);
+				for (int i = from; i < to && !query.isRightOf(intervals[i]); i++){
+					if (query.intersects(intervals[i]))
+						result.add(intervals[i]);
+				}
+			} else if (!visited[top]){
+				visited[top] = true;
+				top++;
+				int child = node - (1 << (level - 1));
+				if (child >= n || !query.isLeftOf(maxEnds[child])){
+					nodes[top] = child;
+					levels[top] = level - 1;
+					visited[top] = false;
+					top++;
+				}
+			} else if (node < n && !query.isRightOf(intervals[node])){
+				if (query.intersects(intervals[node]))
+					result.add(intervals[node]);
+				nodes[top] = node + (1 << (level - 1));
+				levels[top] = level - 1;
+				visited[top] = false;
+				top++;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Checks if a given object is stored in the index. This method uses binary
+	 * search instead of iteration over all intervals, which is why it runs in
+	 * guaranteed {@code O(logn)} worst-case time.
+	 *
+	 * @param o The query object.
+	 * @return {@code true}, if the object is stored in the index, or {@code false}
+	 *         otherwise.
+	 */
+	@Override
+	public boolean contains(Object o) {
+		if (!(o instanceof Interval))
+			return false;
+		return Arrays.binarySearch(intervals, (Interval) o, Interval.sweepLeftToRight) >= 0;
+	}
+}
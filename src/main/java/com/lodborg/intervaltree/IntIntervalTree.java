@@ -0,0 +1,152 @@
+package com.lodborg.intervaltree;
+
+import com.lodborg.intervaltree.Interval.Bounded;
+
+/**
+ * A centered interval tree specialized for intervals with {@code int} start and end points.
+ * It is an alternative to an {@link IntervalTree IntervalTree&lt;Integer&gt;} filled with
+ * {@link IntegerInterval}s, which neither boxes the start and end points, nor allocates
+ * any objects per stored interval.
+ * <p>
+ * The intervals are stored in primitive arrays and identified by {@code int} handles. The
+ * {@code add} method returns the handle of the newly added interval and the queries return
+ * arrays of handles. The start and end points of an interval can be retrieved via its handle
+ * with the methods {@link #getStart(int)}, {@link #getEnd(int)}, {@link #isStartInclusive(int)}
+ * and {@link #isEndInclusive(int)}. See {@link PrimitiveIntervalTree} for more information on
+ * the handles.
+ * </p>
+ * <p>
+ * The tree follows the same semantics as the {@link IntegerInterval} class. In particular, an
+ * open interval, whose start and end points differ by one, for example the interval (4, 5), is
+ * considered to be empty and will be rejected by the tree. Only bounded intervals are supported.
+ * Intervals extending to positive or negative infinity can be represented by using
+ * {@link Integer#MAX_VALUE} and {@link Integer#MIN_VALUE} as inclusive end points, since they
+ * contain exactly the same integers.
+ * </p>
+ * <p>
+ * Since every integer interval with an open end point contains the same integers as a closed
+ * interval, the tree internally works with the closed version of each interval and keeps the
+ * information about the inclusiveness of the original end points only to be able to tell apart
+ * distinct intervals, such as [4, 6) and [4, 5].
+ * </p>
+ */
+public class IntIntervalTree extends PrimitiveIntervalTree {
+
+	/**
+	 * Adds an interval to the tree. If the interval is empty or an equal interval is already
+	 * stored in the tree, the interval is rejected.
+	 *
+	 * @param start The start point of the interval.
+	 * @param end The end point of the interval.
+	 * @param type Description of whether the interval is open/closed at one or both
+	 *             of its ends. See {@link Bounded the documentation of the Bounded enum}
+	 *             for more information on the different possibilities.
+	 * @return The handle of the added interval, or -1 if the tree hasn't been modified.
+	 */
+	public int add(int start, int end, Bounded type){
+		byte flag = flags(type);
+		return insert(low(start, flag), high(end, flag), flag);
+	}
+
+	/**
+	 * Removes an interval from the tree, if it was stored in it.
+	 *
+	 * @param start The start point of the interval.
+	 * @param end The end point of the interval.
+	 * @param type The type of the interval.
+	 * @return {@code true}, if the tree has been modified as a result of the operation.
+	 */
+	public boolean remove(int start, int end, Bounded type){
+		int id = find(start, end, type);
+		if (id < 0)
+			return false;
+		delete(id);
+		return true;
+	}
+
+	/**
+	 * Checks if an interval is stored in the tree. This method uses binary search instead of
+	 * iteration over all intervals, which is why it runs in {@code O(logn)} worst-case time.
+	 *
+	 * @param start The start point of the interval.
+	 * @param end The end point of the interval.
+	 * @param type The type of the interval.
+	 * @return {@code true}, if the interval is stored in the tree.
+	 */
+	public boolean contains(int start, int end, Bounded type){
+		return find(start, end, type) >= 0;
+	}
+
+	/**
+	 * Searches for the handle of a stored interval.
+	 *
+	 * @param start The start point of the interval.
+	 * @param end The end point of the interval.
+	 * @param type The type of the interval.
+	 * @return The handle of the interval, or -1 if the interval is not stored in the tree.
+	 */
+	public int find(int start, int end, Bounded type){
+		byte flag = flags(type);
+		return lookup(low(start, flag), high(end, flag), flag);
+	}
+
+	/**
+	 * Searches for and returns all intervals stored in the tree, that contain a given
+	 * query point. This operation runs in {@code O(logn + k)}, where {@code n} is the
+	 * size of the tree and {@code k} is the amount of returned intervals.
+	 *
+	 * @param point The query point.
+	 * @return The handles of all intervals from the tree, containing the query point.
+	 */
+	public int[] query(int point){
+		return queryPoint(point);
+	}
+
+	/**
+	 * Searches for and returns all intervals stored in the tree, that intersect the closed
+	 * query interval [from, to].
+	 *
+	 * @param from The start point of the query interval.
+	 * @param to The end point of the query interval.
+	 * @return The handles of all intervals from the tree, intersecting the query interval.
+	 * @see #query(int, int, Bounded)
+	 */
+	public int[] query(int from, int to){
+		return query(from, to, Bounded.CLOSED);
+	}
+
+	/**
+	 * Searches for and returns all intervals stored in the tree, that intersect a given
+	 * query interval. This operation runs in {@code O(logn + k)}, where {@code n} is the
+	 * size of the tree and {@code k} is the amount of returned intervals.
+	 *
+	 * @param start The start point of the query interval.
+	 * @param end The end point of the query interval.
+	 * @param type The type of the query interval.
+	 * @return The handles of all intervals from the tree, intersecting the query interval.
+	 */
+	public int[] query(int start, int end, Bounded type){
+		byte flag = flags(type);
+		return queryRange(low(start, flag), high(end, flag));
+	}
+
+	/** Returns the start point of the interval with the given handle. */
+	public int getStart(int id){
+		return (int) startKey(id);
+	}
+
+	/** Returns the end point of the interval with the given handle. */
+	public int getEnd(int id){
+		return (int) endKey(id);
+	}
+
+	/**
+	 * Creates a new {@link IntegerInterval} equal to the interval with the given handle.
+	 *
+	 * @param id The handle of a stored interval.
+	 * @return A new interval object.
+	 */
+	public IntegerInterval toInterval(int id){
+		return (IntegerInterval) new IntegerInterval().create(getStart(id), isStartInclusive(id), getEnd(id), isEndInclusive(id));
+	}
+}
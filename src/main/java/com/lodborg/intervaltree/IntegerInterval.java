@@ -58,6 +58,12 @@ public class IntegerInterval extends Interval<Integer> {
 			return null;
 		long from = getStart() == null ? Integer.MIN_VALUE : getStart();
 		long to = getEnd() ==  null ? Integer.MAX_VALUE : getEnd();
+		// Exclusive end points are not a part of the interval, so the midpoint
+		// must be computed from the smallest and largest Integers within it.
+		if (getStart() != null && !isStartInclusive())
+			from++;
+		if (getEnd() != null && !isEndInclusive())
+			to--;
 		return (int)((from + to)/2);
 	}
 
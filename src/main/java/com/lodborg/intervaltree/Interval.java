@@ -478,7 +478,7 @@ public abstract class Interval<T extends Comparable<? super T>> {
 	 * not be used as a standalone {@link Comparator}. It only serves to create a more readable and
 	 * modular code.
 	 */
-	private int compareStarts(Interval<T> other){
+	int compareStarts(Interval<T> other){
 		if (start == null && other.start == null)
 			return 0;
 		if (start == null)
@@ -498,7 +498,7 @@ public abstract class Interval<T extends Comparable<? super T>> {
 	 * not be used as a standalone {@link Comparator}. It only serves to create a more readable and
 	 * modular code.
 	 */
-	private int compareEnds(Interval<T> other){
+	int compareEnds(Interval<T> other){
 		if (end == null && other.end == null)
 			return 0;
 		if (end == null)
@@ -0,0 +1,39 @@
+package com.lodborg.intervaltree;
+
+import java.util.*;
+
+/**
+ * A set of intervals, which can be searched for all intervals containing a point or intersecting
+ * another interval. This is the common interface of all interval engines in the library, such as
+ * the {@link IntervalTree}, the {@link AugmentedIntervalTree} and the read-only indexes like the
+ * {@link StaticIntervalTree}.
+ *
+ * <p>
+ * All implementations function as a set and do <strong>not</strong> store {@code null} or empty
+ * intervals. The read-only implementations throw an {@link UnsupportedOperationException} on any
+ * attempt to modify them. Use {@link IntervalIndexes} to pick an implementation based on the
+ * expected workload.
+ * </p>
+ *
+ * @param <T> The type for the start and end point of the interval
+ */
+public interface IntervalIndex<T extends Comparable<? super T>> extends Set<Interval<T>> {
+
+	/**
+	 * Searches for and returns all intervals stored in the index, that contain a given
+	 * query point.
+	 *
+	 * @param point The query point.
+	 * @return A set containing all intervals from the index, intersecting the query point.
+	 */
+	Set<Interval<T>> query(T point);
+
+	/**
+	 * Searches for and returns all intervals stored in the index, that intersect a given
+	 * query interval.
+	 *
+	 * @param interval The query interval.
+	 * @return A set containing all intervals from the index, intersecting the query interval.
+	 */
+	Set<Interval<T>> query(Interval<T> interval);
+}
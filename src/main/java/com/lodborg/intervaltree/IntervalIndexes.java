@@ -0,0 +1,125 @@
+package com.lodborg.intervaltree;
+
+import java.util.*;
+
+/**
+ * Creates {@link IntervalIndex} instances, choosing the implementation based on hints about
+ * the expected workload. This way the engine can be changed in a single place, without
+ * touching the code using the index.
+ *
+ * <p>
+ * The {@link Workload} hint decides whether the index is mutable. A {@link Workload#READ_ONLY read-only}
+ * index is one of the immutable indexes, built once from a collection, and the {@link Overlap} hint
+ * selects the one best suited for the shape of the data. A mutable index is either an
+ * {@link IntervalTree}, which is faster to query, or an {@link AugmentedIntervalTree}, which is
+ * faster to modify.
+ * </p>
+ * <p>
+ * The primitive trees, like the {@link IntIntervalTree}, identify their intervals by handles
+ * instead of {@link Interval} objects, so they don't implement {@link IntervalIndex} and can't
+ * be created here.
+ * </p>
+ */
+public final class IntervalIndexes {
+
+	/**
+	 * The expected ratio of modifications to queries.
+	 */
+	public enum Workload {
+		/**
+		 * The intervals are known in advance and never change after the index is built.
+		 */
+		READ_ONLY,
+
+		/**
+		 * The index is modified, but much less often than it is queried.
+		 */
+		READ_MOSTLY,
+
+		/**
+		 * The index is modified about as often as it is queried, or more often.
+		 */
+		WRITE_HEAVY
+	}
+
+	/**
+	 * The expected amount of overlap between the stored intervals. Only used for
+	 * {@link Workload#READ_ONLY read-only} indexes.
+	 */
+	public enum Overlap {
+		/**
+		 * Nothing is known about the overlap of the intervals.
+		 */
+		UNKNOWN,
+
+		/**
+		 * Every point is covered by a few intervals at most, and there are few long intervals.
+		 */
+		LOW,
+
+		/**
+		 * Many points are covered by a lot of intervals, for example because some long intervals
+		 * span a large number of shorter ones.
+		 */
+		HIGH,
+
+		/**
+		 * Most intervals are nested inside other intervals, forming deep containment chains.
+		 */
+		NESTED
+	}
+
+	private IntervalIndexes(){}
+
+	/**
+	 * Creates a new empty mutable index for the given workload.
+	 *
+	 * @param workload The expected workload. Must not be {@link Workload#READ_ONLY}.
+	 * @param <T> The type for the start and end point of the intervals.
+	 * @return A new empty index.
+	 * @throws IllegalArgumentException If the workload is {@link Workload#READ_ONLY}, since a
+	 *         read-only index has to be {@link #build(Collection, Workload, Overlap) built}
+	 *         from its intervals.
+	 */
+	public static <T extends Comparable<? super T>> IntervalIndex<T> create(Workload workload){
+		switch (workload){
+			case READ_MOSTLY:
+				return new IntervalTree<>();
+			case WRITE_HEAVY:
+				return new AugmentedIntervalTree<>();
+			default:
+				throw new IllegalArgumentException("A read-only index can't be created empty");
+		}
+	}
+
+	/**
+	 * Creates a new index for the given workload, containing all intervals from a collection.
+	 * {@code null} and empty intervals, as well as duplicates, are discarded.
+	 *
+	 * @param intervals The intervals to be stored in the index.
+	 * @param workload The expected workload.
+	 * @param overlap The expected overlap of the intervals. Ignored for mutable indexes.
+	 * @param <T> The type for the start and end point of the intervals.
+	 * @return A new index containing the intervals.
+	 */
+	public static <T extends Comparable<? super T>> IntervalIndex<T> build(Collection<? extends Interval<T>> intervals, Workload workload, Overlap overlap){
+		if (workload != Workload.READ_ONLY){
+			IntervalIndex<T> index = create(workload);
+			for (Interval<T> next: intervals){
+				if (next != null)
+					index.add(next);
+			}
+			return index;
+		}
+		switch (overlap){
+			case LOW:
+				return ImplicitIntervalIndex.build(intervals);
+			case HIGH:
+				return AugmentedIntervalList.build(intervals);
+			case NESTED:
+				return NestedContainmentList.build(intervals);
+			default:
+				return StaticIntervalTree.build(intervals);
+		}
+	}
+}
@@ -0,0 +1,23 @@
+package com.lodborg.intervaltree;
+
+/**
+ * A condition on intervals, used to select the intervals, which are removed from a tree by
+ * {@link IntervalTree#removeMatching(IntervalPredicate)}.
+ *
+ * <p>
+ * The predicate is evaluated exactly once for every interval in the tree, in no particular order.
+ * It must not modify the tree.
+ * </p>
+ *
+ * @param <T> The type for the start and end point of the interval
+ */
+public interface IntervalPredicate<T extends Comparable<? super T>> {
+
+	/**
+	 * Evaluates the condition on an interval.
+	 *
+	 * @param interval The interval stored in the tree.
+	 * @return {@code true}, if the interval matches the condition, or {@code false} otherwise.
+	 */
+	boolean test(Interval<T> interval);
+}
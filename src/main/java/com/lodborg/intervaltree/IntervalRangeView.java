@@ -0,0 +1,104 @@
+package com.lodborg.intervaltree;
+
+import java.util.*;
+
+/**
+ * A read-only view of the intervals in an {@link IntervalTree}, whose start points lie in a given
+ * range. See {@link IntervalTree#subSet(Comparable, boolean, Comparable, boolean)}.
+ *
+ * <p>
+ * The view is backed by the tree, so changes in the tree are reflected in the view. Its iterators
+ * return the intervals ordered by {@link Interval#sweepLeftToRight} or in the reverse order. They
+ * are lazy, so a scan over the first few intervals of the range costs {@code O(logn)} time for
+ * finding the beginning of the range, regardless of the size of the tree. Any attempt to modify
+ * the view throws an {@link UnsupportedOperationException}.
+ * </p>
+ * <p>
+ * An interval belongs to the range, if the value of its start point lies between the bounds,
+ * regardless of whether the start point itself is inclusive or not. A {@code null} bound means that
+ * the range is unbounded on this side. Intervals starting at negative infinity are only contained
+ * in ranges without a lower bound.
+ * </p>
+ *
+ * @param <T> The type for the start and end point of the interval
+ */
+public final class IntervalRangeView<T extends Comparable<? super T>> extends AbstractSet<Interval<T>> {
+	private final IntervalTree<T> tree;
+	private final T from, to;
+	private final boolean fromInclusive, toInclusive;
+
+	IntervalRangeView(IntervalTree<T> tree, T from, boolean fromInclusive, T to, boolean toInclusive){
+		this.tree = tree;
+		this.from = from;
+		this.fromInclusive = fromInclusive;
+		this.to = to;
+		this.toInclusive = toInclusive;
+	}
+
+	/**
+	 * Returns an iterator over the intervals in the range, ordered by {@link Interval#sweepLeftToRight}.
+	 * The iterator doesn't support the {@code remove} operation.
+	 */
+	@Override
+	public Iterator<Interval<T>> iterator(){
+		return new OrderedIterator<>(tree, false, from, fromInclusive, to, toInclusive);
+	}
+
+	/**
+	 * Returns an iterator over the intervals in the range, in the reverse order of {@link #iterator()}.
+	 * The iterator doesn't support the {@code remove} operation.
+	 */
+	public Iterator<Interval<T>> descendingIterator(){
+		return new OrderedIterator<>(tree, true, from, fromInclusive, to, toInclusive);
+	}
+
+	/**
+	 * Returns the first interval in the range.
+	 *
+	 * @return The interval with the smallest start point in the range.
+	 * @throws NoSuchElementException If the range is empty.
+	 */
+	public Interval<T> first(){
+		return iterator().next();
+	}
+
+	/**
+	 * Returns the last interval in the range.
+	 *
+	 * @return The interval with the greatest start point in the range.
+	 * @throws NoSuchElementException If the range is empty.
+	 */
+	public Interval<T> last(){
+		return descendingIterator().next();
+	}
+
+	@Override
+	public boolean isEmpty(){
+		return !iterator().hasNext();
+	}
+
+	/**
+	 * Returns the amount of intervals in the range. The intervals are counted by iterating
+	 * over the range, so this operation runs in linear time.
+	 */
+	@Override
+	public int size(){
+		int size = 0;
+		for (Iterator<Interval<T>> it = iterator(); it.hasNext(); it.next())
+			size++;
+		return size;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public boolean contains(Object o){
+		if (!(o instanceof Interval))
+			return false;
+		Interval<T> interval = (Interval<T>) o;
+		if (from != null && SortedIntervalSet.startsBefore(interval, from, fromInclusive))
+			return false;
+		if (to != null && SortedIntervalSet.startsAfter(interval, to, toInclusive))
+			return false;
+		return tree.contains(interval);
+	}
+}
@@ -1,6 +1,7 @@
 package com.lodborg.intervaltree;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 import com.lodborg.intervaltree.TreeNode.*;
 
 /**
@@ -36,7 +37,7 @@ import com.lodborg.intervaltree.TreeNode.*;
  *
  * @param <T> The type for the start and end point of the interval
  */
-public class IntervalTree<T extends Comparable<? super T>> extends AbstractSet<Interval<T>> {
+public class IntervalTree<T extends Comparable<? super T>> extends AbstractSet<Interval<T>> implements IntervalIndex<T> {
 
 	/**
 	 * The root of the current interval tree. It is {@code null} initially, when the tree is
@@ -49,6 +50,17 @@ public class IntervalTree<T extends Comparable<? super T>> extends AbstractSet<I
 	 */
 	int size;
 
+	/**
+	 * The amount of modifications of the tree. Used to detect stale {@link QueryPage.Cursor}s.
+	 */
+	int modCount;
+
+	/**
+	 * A collection is added to the tree in bulk by {@link #addAll(Collection)}, unless the tree
+	 * is more than this many times larger than the collection.
+	 */
+	private static final int BULK_RATIO = 4;
+
 	/**
 	 * Adds an interval to the tree. If the interval is empty, it is rejected and not
 	 * stored in the tree. This operation may cause a rebalancing of the tree, which
@@ -66,7 +78,53 @@ public class IntervalTree<T extends Comparable<? super T>> extends AbstractSet<I
 			return false;
 		int sizeBeforeOperation = size;
 		root = TreeNode.addInterval(this, root, interval);
-		return size == sizeBeforeOperation;
+		if (size == sizeBeforeOperation)
+			return false;
+		modCount++;
+		return true;
+	}
+
+	/**
+	 * Adds all intervals from a collection to the tree. If the collection is small compared to
+	 * the tree, the intervals are added one by one. Otherwise, all intervals in the tree and in the
+	 * collection are sorted together and the whole tree is {@link TreeNode#build(List) rebuilt}
+	 * in a single pass, without any rotations or assimilations. This is why loading a large
+	 * amount of intervals at once takes {@code O(nlogn)} worst-case time, where {@code n} is the
+	 * size of the tree after the operation.
+	 *
+	 * @param c The intervals to be added. Empty intervals are rejected.
+	 * @return {@code true}, if the tree has been modified as a result of the operation,
+	 *         or {@code false} otherwise.
+	 */
+	@Override
+	public boolean addAll(Collection<? extends Interval<T>> c){
+		if (c.isEmpty())
+			return false;
+		if (c.size() < size / BULK_RATIO)
+			return super.addAll(c);
+		List<Interval<T>> all = new ArrayList<>(size + c.size());
+		for (Interval<T> next: this)
+			all.add(next);
+		for (Interval<T> next: c){
+			if (!next.isEmpty())
+				all.add(next);
+		}
+		Comparator<? super Interval<T>> byEnd = Collections.reverseOrder(Interval.sweepRightToLeft);
+		Collections.sort(all, byEnd);
+
+		// Remove the duplicates, which are now next to each other
+		int count = 0;
+		for (Interval<T> next: all){
+			if (count == 0 || byEnd.compare(all.get(count - 1), next) != 0)
+				all.set(count++, next);
+		}
+		if (count == size)
+			return false;
+		all = all.subList(0, count);
+		root = TreeNode.build(all);
+		size = count;
+		modCount++;
+		return true;
 	}
 
 	/**
@@ -75,13 +133,49 @@ public class IntervalTree<T extends Comparable<? super T>> extends AbstractSet<I
 	 * {@code n} is the size of the tree and {@code k} is the size of the returned set,
 	 * provided that the time complexity of iterating over the intervals stored in each
 	 * visited node is amortized {@code O(1)}. This assumption is met for the current
-	 * implementation of {@link TreeNode}, where {@link TreeSet}s are used.
+	 * implementation of {@link TreeNode}, where {@link SortedIntervalSet}s are used.
 	 *
 	 * @param point The query point.
 	 * @return A set containing all intervals from the tree, intersecting the query point.
 	 */
+	@Override
 	public Set<Interval<T>> query(T point){
-		return TreeNode.query(root, point, new HashSet<Interval<T>>());
+		Set<Interval<T>> result = new HashSet<>();
+		query(point, addTo(result));
+		return result;
+	}
+
+	/**
+	 * Searches for all intervals stored in the tree, that contain a given query point, and
+	 * appends them to a collection supplied by the caller. Since every interval is stored in
+	 * a single node of the tree, it is visited only once, and the collection doesn't need to
+	 * filter duplicates. This allows reusing a plain {@link ArrayList} as a buffer for many
+	 * queries, which avoids allocating and hashing a new set for every query.
+	 *
+	 * @param point The query point.
+	 * @param result The collection, to which the intervals intersecting the query point are added.
+	 *               Its previous content is retained.
+	 * @param <C> The type of the collection.
+	 * @return The {@code result} collection.
+	 */
+	public <C extends Collection<? super Interval<T>>> C query(T point, C result){
+		query(point, addTo(result));
+		return result;
+	}
+
+	/**
+	 * Searches for all intervals stored in the tree, that contain a given query point, and
+	 * passes them to a visitor as the tree is traversed, without collecting them in a set.
+	 * The query stops as soon as the visitor returns {@code false}. This operation runs in
+	 * {@code O(logn + k)} time, where {@code k} is the amount of visited intervals.
+	 *
+	 * @param point The query point.
+	 * @param visitor The visitor receiving the intervals, intersecting the query point.
+	 * @return {@code true}, if all matching intervals have been visited, or {@code false},
+	 *         if the visitor has stopped the query.
+	 */
+	public boolean query(T point, IntervalVisitor<T> visitor){
+		return TreeNode.query(root, point, visitor);
 	}
 
 	/**
@@ -90,42 +184,452 @@ public class IntervalTree<T extends Comparable<? super T>> extends AbstractSet<I
 	 * {@code n} is the size of the tree and {@code k} is the size of the returned set,
 	 * provided that the time complexity of iterating over the intervals stored in each
 	 * visited node is amortized {@code O(1)}. This assumption is met for the current
-	 * implementation of {@link TreeNode}, where {@link TreeSet}s are used.
+	 * implementation of {@link TreeNode}, where {@link SortedIntervalSet}s are used.
 	 *
 	 * @param interval The query interval.
 	 * @return A set containing all intervals from the tree, intersecting the query interval.
 	 */
+	@Override
 	public Set<Interval<T>> query(Interval<T> interval){
 		Set<Interval<T>> result = new HashSet<>();
+		query(interval, addTo(result));
+		return result;
+	}
+
+	/**
+	 * Searches for all intervals stored in the tree, that intersect a given query interval, and
+	 * appends them to a collection supplied by the caller. See {@link #query(Comparable, Collection)}
+	 * for details.
+	 *
+	 * @param interval The query interval.
+	 * @param result The collection, to which the intervals intersecting the query interval are
+	 *               added. Its previous content is retained.
+	 * @param <C> The type of the collection.
+	 * @return The {@code result} collection.
+	 */
+	public <C extends Collection<? super Interval<T>>> C query(Interval<T> interval, C result){
+		query(interval, addTo(result));
+		return result;
+	}
 
+	/**
+	 * Searches for all intervals stored in the tree, that intersect a given query interval, and
+	 * passes them to a visitor as the tree is traversed, without collecting them in a set.
+	 * The query stops as soon as the visitor returns {@code false}. This operation runs in
+	 * {@code O(logn + k)} time, where {@code k} is the amount of visited intervals.
+	 *
+	 * @param interval The query interval.
+	 * @param visitor The visitor receiving the intervals, intersecting the query interval.
+	 * @return {@code true}, if all matching intervals have been visited, or {@code false},
+	 *         if the visitor has stopped the query.
+	 */
+	public boolean query(Interval<T> interval, IntervalVisitor<T> visitor){
 		if (root == null || interval.isEmpty())
-			return result;
+			return true;
 		TreeNode<T> node = root;
 		while (node != null){
 			if (interval.contains(node.midpoint)){
-				result.addAll(node.increasing);
-				TreeNode.rangeQueryLeft(node.left, interval, result);
-				TreeNode.rangeQueryRight(node.right, interval, result);
-				break;
+				return TreeNode.visitNode(node, visitor)
+						&& TreeNode.rangeQueryLeft(node.left, interval, visitor)
+						&& TreeNode.rangeQueryRight(node.right, interval, visitor);
 			}
 			if (interval.isLeftOf(node.midpoint)) {
-				for (Interval<T> next: node.increasing){
-					if (!interval.intersects(next))
-						break;
-					result.add(next);
-				}
+				if (!node.increasing.visitPrefix(interval.getEnd(), interval.isEndInclusive(), interval, visitor))
+					return false;
 				node = node.left;
 			}
 			else {
-				for (Interval<T> next: node.decreasing){
-					if (!interval.intersects(next))
-						break;
-					result.add(next);
+				if (!node.decreasing.visitPrefix(interval.getStart(), interval.isStartInclusive(), interval, visitor))
+					return false;
+				node = node.right;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Searches for all intervals stored in the tree, that contain any of a batch of query points,
+	 * and passes them to a visitor together with the index of the point they contain. An interval
+	 * containing several points is reported once for each of them.
+	 * <p>
+	 * Instead of starting a separate search from the root for every point, the points are sorted
+	 * once and swept through the tree together. Neighbouring points share the visits of the nodes
+	 * on their common search path, and in every node, the ordered sets are scanned once for all
+	 * points on one side of the midpoint. For a batch of {@code m} points, this operation runs in
+	 * {@code O(m*logm + m*logn + k)} time, where {@code k} is the amount of reported results, but
+	 * with much less overhead per point than {@code m} calls of {@link #query(Comparable, IntervalVisitor)}.
+	 * </p>
+	 *
+	 * @param points The query points. The list is not modified.
+	 * @param visitor The visitor receiving the index of a point and an interval containing it.
+	 * @return {@code true}, if all matching intervals have been visited, or {@code false},
+	 *         if the visitor has stopped the query.
+	 */
+	public boolean queryAll(List<T> points, BatchVisitor<T> visitor){
+		List<T> list = points instanceof RandomAccess ? points : new ArrayList<>(points);
+		return TreeNode.queryAll(root, list, sortedOrder(list), 0, list.size(), visitor);
+	}
+
+	/**
+	 * Searches for all intervals stored in the tree, that contain any of a batch of query points,
+	 * using the threads of a {@link ForkJoinPool}. The batch is sorted and split adaptively between
+	 * the threads, which sweep their parts of the batch through the tree just like
+	 * {@link #queryAll(List, BatchVisitor)}. Every thread writes the results of its queries into
+	 * separate slots of a preallocated list, so there is no contention between the threads and
+	 * the throughput grows with the amount of threads in the pool. The tree must not be modified,
+	 * while the batch is running.
+	 *
+	 * @param points The query points.
+	 * @param pool The pool executing the queries.
+	 * @return A list containing a set of all intervals containing the point at the same index
+	 *         in the batch.
+	 */
+	@SuppressWarnings("unchecked")
+	public List<Set<Interval<T>>> queryAll(T[] points, ForkJoinPool pool){
+		List<T> list = Arrays.asList(points);
+		Set<Interval<T>>[] results = (Set<Interval<T>>[]) new Set<?>[points.length];
+		pool.invoke(new ParallelQuery<>(this, list, sortedOrder(list), null, results, 0, points.length));
+		return Arrays.asList(results);
+	}
+
+	/**
+	 * Searches for all intervals stored in the tree, that intersect any of a batch of query
+	 * intervals, using the threads of a {@link ForkJoinPool}. See {@link #queryAll(Comparable[], ForkJoinPool)}.
+	 *
+	 * @param intervals The query intervals.
+	 * @param pool The pool executing the queries.
+	 * @return A list containing a set of all intervals intersecting the query interval at the
+	 *         same index in the batch.
+	 */
+	@SuppressWarnings("unchecked")
+	public List<Set<Interval<T>>> queryAll(Interval<T>[] intervals, ForkJoinPool pool){
+		Set<Interval<T>>[] results = (Set<Interval<T>>[]) new Set<?>[intervals.length];
+		pool.invoke(new ParallelQuery<>(this, null, null, intervals, results, 0, intervals.length));
+		return Arrays.asList(results);
+	}
+
+	/**
+	 * Returns the indexes of a list of points, sorted by their points.
+	 */
+	private int[] sortedOrder(final List<T> list){
+		Integer[] sorted = new Integer[list.size()];
+		boolean isSorted = true;
+		for (int i = 0; i < sorted.length; i++){
+			sorted[i] = i;
+			if (i > 0 && list.get(i - 1).compareTo(list.get(i)) > 0)
+				isSorted = false;
+		}
+		if (!isSorted){
+			Arrays.sort(sorted, new Comparator<Integer>() {
+				@Override
+				public int compare(Integer a, Integer b) {
+					return list.get(a).compareTo(list.get(b));
 				}
+			});
+		}
+		int[] order = new int[sorted.length];
+		for (int i = 0; i < order.length; i++)
+			order[i] = sorted[i];
+		return order;
+	}
+
+	/**
+	 * Searches for all intervals stored in the tree, that intersect a given query interval, and
+	 * returns them ordered by {@link Interval#sweepLeftToRight}, i.e. by their start points. The
+	 * intervals in every node are already stored ordered by their start points, so instead of
+	 * sorting the result, the ordered runs of the visited nodes are merged as the tree is traversed.
+	 * This operation runs in {@code O(logn + k*logr)} time, where {@code k} is the amount of
+	 * returned intervals and {@code r} is the amount of visited nodes, plus the time for sorting
+	 * the intersecting intervals of the nodes on the search path left of the query.
+	 *
+	 * @param interval The query interval.
+	 * @return A list of all intervals from the tree, intersecting the query interval, ordered by
+	 *         their start points.
+	 */
+	public List<Interval<T>> queryOrderedByStart(Interval<T> interval){
+		if (interval.isEmpty())
+			return new ArrayList<>();
+		return new OrderedQuery<>(interval, false).run(root);
+	}
+
+	/**
+	 * Searches for all intervals stored in the tree, that intersect a given query interval, and
+	 * returns them ordered by their end points, in the reverse order of {@link Interval#sweepRightToLeft}.
+	 * This is the mirror image of {@link #queryOrderedByStart(Interval)}, which merges the runs
+	 * of the visited nodes ordered by the end points of their intervals.
+	 *
+	 * @param interval The query interval.
+	 * @return A list of all intervals from the tree, intersecting the query interval, ordered by
+	 *         their end points.
+	 */
+	public List<Interval<T>> queryOrderedByEnd(Interval<T> interval){
+		if (interval.isEmpty())
+			return new ArrayList<>();
+		return new OrderedQuery<>(interval, true).run(root);
+	}
+
+	/**
+	 * Searches for and returns all intervals stored in the tree, that contain a given query
+	 * interval entirely. Only the nodes on the search path of the query can store such intervals,
+	 * and in each of them the candidates form a prefix of one of the ordered sets of the node.
+	 * This is why this operation runs in {@code O(logn + k)} time for most inputs, where {@code k}
+	 * is the size of the returned set, instead of the amount of intervals intersecting the query.
+	 *
+	 * @param interval The query interval.
+	 * @return A set containing all intervals from the tree, containing the query interval.
+	 * @see Interval#contains(Interval)
+	 */
+	public Set<Interval<T>> queryContaining(Interval<T> interval){
+		Set<Interval<T>> result = new HashSet<>();
+		if (interval.isEmpty())
+			return result;
+		return TreeNode.queryContaining(root, interval, result);
+	}
+
+	/**
+	 * Searches for and returns all intervals stored in the tree, that are entirely contained in
+	 * a given query interval. Nodes whose midpoints lie outside of the query are skipped, together
+	 * with all of their intervals, and subtrees lying entirely within the query are added without
+	 * any checks. This is why this operation runs in {@code O(logn + k)} time for most inputs, where
+	 * {@code k} is the size of the returned set.
+	 *
+	 * @param interval The query interval.
+	 * @return A set containing all intervals from the tree, contained in the query interval.
+	 * @see Interval#contains(Interval)
+	 */
+	public Set<Interval<T>> queryContainedIn(Interval<T> interval){
+		Set<Interval<T>> result = new HashSet<>();
+		if (interval.isEmpty())
+			return result;
+		return TreeNode.queryContainedIn(root, interval, result);
+	}
+
+	/**
+	 * Returns a lazy iterator over all intervals stored in the tree, that contain a given
+	 * query point. Unlike {@link #query(Comparable)}, the intervals are not collected up front.
+	 * The tree is traversed step by step as the iterator advances, so the first interval is
+	 * returned after {@code O(logn)} time and the iterator needs {@code O(logn)} memory,
+	 * regardless of the amount of results.
+	 * <p>
+	 * The iterator doesn't support the {@code remove} operation and the tree must not be
+	 * modified while it is in use. On Java 8 or later, the iterator can be turned into a
+	 * stream with {@code Spliterators.spliteratorUnknownSize(iterator, Spliterator.DISTINCT | Spliterator.NONNULL)}.
+	 * </p>
+	 *
+	 * @param point The query point.
+	 * @return An iterator over the intervals from the tree, intersecting the query point.
+	 */
+	public Iterator<Interval<T>> queryIterator(T point){
+		return new QueryIterator<>(root, OverlapQuery.of(point));
+	}
+
+	/**
+	 * Returns a lazy iterator over all intervals stored in the tree, that intersect a given
+	 * query interval. See {@link #queryIterator(Comparable)} for details.
+	 *
+	 * @param interval The query interval.
+	 * @return An iterator over the intervals from the tree, intersecting the query interval.
+	 */
+	public Iterator<Interval<T>> queryIterator(Interval<T> interval){
+		if (interval.isEmpty())
+			return Collections.emptyIterator();
+		return new QueryIterator<>(root, OverlapQuery.of(interval));
+	}
+
+	/**
+	 * Returns the first page of the intervals stored in the tree, that intersect a given query
+	 * interval. The tree is traversed just like by {@link #queryIterator(Interval)}, and the traversal
+	 * is suspended after {@code limit} intervals. The returned {@link QueryPage} contains a cursor,
+	 * which continues the traversal for the next page via {@link #query(QueryPage.Cursor, int)}.
+	 * The first page takes {@code O(logn + limit)} time, and every further page {@code O(limit)}
+	 * amortized time.
+	 *
+	 * @param interval The query interval.
+	 * @param limit The maximal amount of intervals on the page. Must be positive.
+	 * @return The first page of the intervals from the tree, intersecting the query interval.
+	 * @throws IllegalArgumentException If the limit is not positive.
+	 */
+	public QueryPage<T> query(Interval<T> interval, int limit){
+		if (limit <= 0)
+			throw new IllegalArgumentException("The limit must be positive");
+		QueryIterator<T> iterator = new QueryIterator<>(interval.isEmpty() ? null : root, OverlapQuery.of(interval));
+		return nextPage(iterator, limit);
+	}
+
+	/**
+	 * Returns the next page of a limited query. See {@link #query(Interval, int)}.
+	 *
+	 * @param cursor The cursor of the previous page, returned by {@link QueryPage#getCursor()}.
+	 * @param limit The maximal amount of intervals on the page. Must be positive.
+	 * @return The next page of the intervals from the tree, intersecting the query interval.
+	 * @throws IllegalArgumentException If the limit is not positive or the cursor belongs to
+	 *         another tree.
+	 * @throws IllegalStateException If the cursor has already been used.
+	 * @throws ConcurrentModificationException If the tree has been modified since the cursor was
+	 *         created.
+	 */
+	public QueryPage<T> query(QueryPage.Cursor<T> cursor, int limit){
+		if (limit <= 0)
+			throw new IllegalArgumentException("The limit must be positive");
+		if (cursor.tree != this)
+			throw new IllegalArgumentException("The cursor belongs to another tree");
+		if (cursor.used)
+			throw new IllegalStateException("The cursor has already been used");
+		if (cursor.expectedModCount != modCount)
+			throw new ConcurrentModificationException();
+		cursor.used = true;
+		return nextPage(cursor.iterator, limit);
+	}
+
+	private QueryPage<T> nextPage(QueryIterator<T> iterator, int limit){
+		List<Interval<T>> intervals = new ArrayList<>(Math.min(limit, 16));
+		while (intervals.size() < limit && iterator.hasNext())
+			intervals.add(iterator.next());
+		QueryPage.Cursor<T> cursor = iterator.hasNext() ? new QueryPage.Cursor<>(this, iterator, modCount) : null;
+		return new QueryPage<>(intervals, cursor);
+	}
+
+	/**
+	 * Checks if any interval stored in the tree intersects a given query interval. See
+	 * {@link #firstOverlap(Interval)} for details. This operation runs in {@code O(logn)}
+	 * worst-case time.
+	 *
+	 * @param interval The query interval.
+	 * @return {@code true}, if at least one interval in the tree intersects the query,
+	 *         or {@code false} otherwise.
+	 */
+	public boolean anyOverlap(Interval<T> interval){
+		return firstOverlap(interval) != null;
+	}
+
+	/**
+	 * Returns the first interval found in the tree, that intersects a given query interval.
+	 * The search stops at the first node, whose midpoint is contained in the query, since
+	 * every interval stored in this node intersects the query. In the nodes before it, the
+	 * intervals intersecting the query form a prefix of one of the two ordered sets, so it
+	 * suffices to check the first interval of the set. This is why this operation runs in
+	 * {@code O(logn)} worst-case time, regardless of the amount of intersecting intervals.
+	 *
+	 * @param interval The query interval.
+	 * @return An interval from the tree, intersecting the query, or {@code null}, if there is
+	 *         no such interval. It is not necessarily the one with the smallest start point.
+	 */
+	public Interval<T> firstOverlap(Interval<T> interval){
+		if (interval.isEmpty())
+			return null;
+		TreeNode<T> node = root;
+		while (node != null){
+			if (interval.contains(node.midpoint))
+				return node.increasing.first();
+			Interval<T> first;
+			if (interval.isLeftOf(node.midpoint)){
+				first = node.increasing.first();
+				node = node.left;
+			} else {
+				first = node.decreasing.first();
 				node = node.right;
 			}
+			if (interval.intersects(first))
+				return first;
 		}
-		return result;
+		return null;
+	}
+
+	/**
+	 * Returns the interval stored in the tree, that comes right after a given point. This is the
+	 * interval with the smallest start point among all intervals lying entirely right of the point.
+	 * Ties are broken by the end point, just like in {@link Interval#sweepLeftToRight}. The search
+	 * follows a single path from the root to a leaf, so it runs in {@code O(logn)} time, as long as
+	 * the visited nodes store at most {@link SortedIntervalSet#MAX_ARRAY_SIZE} intervals each.
+	 *
+	 * @param point The query point.
+	 * @return The next interval after the point, or {@code null}, if there is no interval in the
+	 *         tree entirely right of the point.
+	 */
+	public Interval<T> nextAfter(T point){
+		return TreeNode.nextAfter(root, point);
+	}
+
+	/**
+	 * Returns the interval stored in the tree, that comes right before a given point. This is the
+	 * interval with the greatest end point among all intervals lying entirely left of the point.
+	 * Ties are broken by the start point, just like in {@link Interval#sweepRightToLeft}. See
+	 * {@link #nextAfter(Comparable)} for the running time.
+	 *
+	 * @param point The query point.
+	 * @return The previous interval before the point, or {@code null}, if there is no interval in
+	 *         the tree entirely left of the point.
+	 */
+	public Interval<T> previousBefore(T point){
+		return TreeNode.previousBefore(root, point);
+	}
+
+	/**
+	 * Returns the {@code k} intervals stored in the tree, that are nearest to a given point. The
+	 * distance of an interval containing the point is zero. Otherwise, it is the distance between
+	 * the point and the closer end point of the interval, as measured by the given {@link Metric}.
+	 * <p>
+	 * The tree is searched best-first, by the distance of the nodes and subtrees from the point.
+	 * The intervals of a node are visited in the order of their distance, by following one of the
+	 * two ordered sets, so only the subtrees closer than the {@code k}-th nearest interval are
+	 * ever visited. For intervals spread evenly around the point, this takes about
+	 * {@code O(logn + k*logk)} time.
+	 * </p>
+	 *
+	 * @param point The query point.
+	 * @param k The maximal amount of intervals to be returned.
+	 * @param metric The distance function between two points.
+	 * @return A list of at most {@code k} intervals, ordered by their distance to the point. The
+	 *         order of intervals with equal distance is unspecified.
+	 * @throws IllegalArgumentException If {@code k} is negative.
+	 */
+	public List<Interval<T>> nearest(T point, int k, Metric<? super T> metric){
+		if (k < 0)
+			throw new IllegalArgumentException("The amount of intervals must not be negative");
+		return new NearestSearch<>(point, metric).search(root, k);
+	}
+
+	/**
+	 * Returns the amount of intervals stored in the tree, that contain a given query point,
+	 * without collecting them. The intervals are counted by binary search in every node on
+	 * the search path, so this operation runs in {@code O(log^2 n)} time, as long as the
+	 * visited nodes store at most {@link SortedIntervalSet#MAX_ARRAY_SIZE} intervals each.
+	 *
+	 * @param point The query point.
+	 * @return The amount of intervals from the tree, intersecting the query point.
+	 */
+	public int countOverlapping(T point){
+		return TreeNode.countOverlapping(root, point);
+	}
+
+	/**
+	 * Returns the amount of intervals stored in the tree, that intersect a given query interval,
+	 * without collecting them. Every node stores the amount of intervals in its subtree, so the
+	 * subtrees entirely covered by the query are counted in {@code O(1)} time, and the intervals
+	 * in the remaining nodes on the search paths are counted by binary search. This operation runs
+	 * in {@code O(log^2 n)} time, as long as the visited nodes store at most
+	 * {@link SortedIntervalSet#MAX_ARRAY_SIZE} intervals each.
+	 *
+	 * @param interval The query interval.
+	 * @return The amount of intervals from the tree, intersecting the query interval.
+	 */
+	public int countOverlapping(Interval<T> interval){
+		if (interval.isEmpty())
+			return 0;
+		return TreeNode.countOverlapping(root, interval);
+	}
+
+	/**
+	 * Creates a visitor, which adds every visited interval to a collection.
+	 */
+	private static <T extends Comparable<? super T>> IntervalVisitor<T> addTo(final Collection<? super Interval<T>> result){
+		return new IntervalVisitor<T>() {
+			@Override
+			public boolean visit(Interval<T> interval) {
+				result.add(interval);
+				return true;
+			}
+		};
 	}
 
 	/**
@@ -136,15 +640,171 @@ public class IntervalTree<T extends Comparable<? super T>> extends AbstractSet<I
 	 * worst-case time, even though on average it should run in {@code O(logn)} due to the
 	 * nature binary trees.
 	 *
-	 * @param interval
-	 * @return
+	 * @param interval The interval to be removed from the tree.
+	 * @return {@code true}, if the tree has been modified as a result of the operation,
+	 *         or {@code false} otherwise.
 	 */
 	public boolean remove(Interval<T> interval){
 		if (interval.isEmpty() || root == null)
 			return false;
 		int sizeBeforeOperation = size;
 		root = TreeNode.removeInterval(this, root, interval);
-		return size == sizeBeforeOperation;
+		if (size == sizeBeforeOperation)
+			return false;
+		modCount++;
+		return true;
+	}
+
+	/**
+	 * Removes an object from the tree, if it is an interval stored in it. Unlike the default
+	 * implementation of {@link AbstractCollection#remove(Object)}, this doesn't iterate over the
+	 * tree, but performs the same binary search as {@link #remove(Interval)}.
+	 *
+	 * @param o The object to be removed from the tree.
+	 * @return {@code true}, if the tree has been modified as a result of the operation,
+	 *         or {@code false} otherwise.
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public boolean remove(Object o){
+		if (!(o instanceof Interval))
+			return false;
+		return remove((Interval<T>) o);
+	}
+
+	/**
+	 * Removes all intervals from the tree, which are contained in a given collection. If the
+	 * collection is small compared to the tree, the intervals are removed one by one. Otherwise,
+	 * all intervals are removed in a single pass over the tree, see {@link #removeMatching(IntervalPredicate)}.
+	 *
+	 * @param c The intervals to be removed from the tree.
+	 * @return {@code true}, if the tree has been modified as a result of the operation,
+	 *         or {@code false} otherwise.
+	 */
+	@Override
+	public boolean removeAll(Collection<?> c){
+		if (c.size() < size / BULK_RATIO){
+			boolean modified = false;
+			for (Object next: c){
+				if (remove(next))
+					modified = true;
+			}
+			return modified;
+		}
+		final Collection<?> removed = c instanceof Set ? c : new HashSet<>(c);
+		return removeMatching(new IntervalPredicate<T>() {
+			@Override
+			public boolean test(Interval<T> interval) {
+				return removed.contains(interval);
+			}
+		});
+	}
+
+	/**
+	 * Removes all intervals from the tree, which are not contained in a given collection. The
+	 * intervals are removed in a single pass over the tree, see {@link #removeMatching(IntervalPredicate)}.
+	 *
+	 * @param c The intervals to be retained in the tree.
+	 * @return {@code true}, if the tree has been modified as a result of the operation,
+	 *         or {@code false} otherwise.
+	 */
+	@Override
+	public boolean retainAll(Collection<?> c){
+		final Collection<?> retained = c instanceof Set ? c : new HashSet<>(c);
+		return removeMatching(new IntervalPredicate<T>() {
+			@Override
+			public boolean test(Interval<T> interval) {
+				return !retained.contains(interval);
+			}
+		});
+	}
+
+	/**
+	 * Removes all intervals from the tree, which match a given predicate. The intervals are
+	 * filtered out of every node in place during a single post-order traversal of the tree, and
+	 * every node is deleted or rebalanced right after its subtrees, instead of once for every
+	 * removed interval. Subtrees, which have shrunk too unevenly to be balanced by a rotation,
+	 * are {@link TreeNode#build(List) rebuilt} from their remaining intervals. This is why this
+	 * operation runs in {@code O(nlogn)} worst-case time, regardless of the amount of removed
+	 * intervals, and in {@code O(n)} time, if they are spread evenly over the tree.
+	 *
+	 * @param predicate The predicate selecting the intervals to be removed. It is evaluated
+	 *                  exactly once for every interval in the tree.
+	 * @return {@code true}, if the tree has been modified as a result of the operation,
+	 *         or {@code false} otherwise.
+	 */
+	public boolean removeMatching(IntervalPredicate<T> predicate){
+		int sizeBeforeOperation = size;
+		root = TreeNode.removeMatching(this, root, predicate);
+		if (size == sizeBeforeOperation)
+			return false;
+		modCount++;
+		return true;
+	}
+
+	/**
+	 * Removes all intervals from the tree, that intersect a given query interval. The intervals
+	 * are removed during a single traversal, which visits the same nodes as
+	 * {@link #query(Interval)}, and every visited node is deleted or rebalanced at most once,
+	 * instead of searching for and rebalancing the tree after every single removal. Nodes, whose
+	 * midpoint is contained in the query, are emptied entirely.
+	 *
+	 * @param interval The query interval.
+	 * @return The amount of removed intervals.
+	 */
+	public int removeOverlapping(Interval<T> interval){
+		return removeOverlapping(interval, null);
+	}
+
+	/**
+	 * Removes all intervals from the tree, that intersect a given query interval, and appends
+	 * them to a collection supplied by the caller. See {@link #removeOverlapping(Interval)}.
+	 *
+	 * @param interval The query interval.
+	 * @param removed The collection, to which the removed intervals are added. Its previous
+	 *                content is retained.
+	 * @return The amount of removed intervals.
+	 */
+	public int removeOverlapping(Interval<T> interval, Collection<? super Interval<T>> removed){
+		if (interval.isEmpty())
+			return 0;
+		int sizeBeforeOperation = size;
+		root = TreeNode.removeOverlapping(this, root, interval, removed);
+		if (size != sizeBeforeOperation)
+			modCount++;
+		return sizeBeforeOperation - size;
+	}
+
+	/**
+	 * Removes all intervals from the tree, that are entirely contained in a given query interval.
+	 * Just like {@link #removeOverlapping(Interval)}, the intervals are removed during a single
+	 * traversal, which visits the same nodes as {@link #queryContainedIn(Interval)}, and every
+	 * visited node is deleted or rebalanced at most once.
+	 *
+	 * @param interval The query interval.
+	 * @return The amount of removed intervals.
+	 */
+	public int removeContainedIn(Interval<T> interval){
+		return removeContainedIn(interval, null);
+	}
+
+	/**
+	 * Removes all intervals from the tree, that are entirely contained in a given query interval,
+	 * and appends them to a collection supplied by the caller. See {@link #removeContainedIn(Interval)}.
+	 *
+	 * @param interval The query interval.
+	 * @param removed The collection, to which the removed intervals are added. Its previous
+	 *                content is retained.
+	 * @return The amount of removed intervals.
+	 */
+	public int removeContainedIn(Interval<T> interval, Collection<? super Interval<T>> removed){
+		if (interval.isEmpty())
+			return 0;
+		int sizeBeforeOperation = size;
+		root = TreeNode.removeContainedIn(this, root, interval, removed);
+		if (size != sizeBeforeOperation)
+			modCount++;
+		return sizeBeforeOperation - size;
 	}
 
 
@@ -164,6 +824,7 @@ public class IntervalTree<T extends Comparable<? super T>> extends AbstractSet<I
 			return new Iterator<Interval<T>>() {
 				@Override
 				public void remove() {
+					modCount++;
 					if (it.currentNode.increasing.size() == 1){
 						root = TreeNode.removeInterval(IntervalTree.this, root, it.currentInterval);
 
@@ -190,6 +851,17 @@ public class IntervalTree<T extends Comparable<? super T>> extends AbstractSet<I
 						}
 					} else {
 						it.remove();
+						it.currentNode.decreasing.remove(it.currentInterval);
+						size--;
+
+						// The node stays in the tree, so only the subtree sizes on the path
+						// from the root to the node change.
+						TreeNode<T> node = root;
+						while (node != it.currentNode){
+							node.subtreeSize--;
+							node = it.currentNode.midpoint.compareTo(node.midpoint) < 0 ? node.left : node.right;
+						}
+						node.subtreeSize--;
 					}
 				}
 
@@ -210,6 +882,71 @@ public class IntervalTree<T extends Comparable<? super T>> extends AbstractSet<I
 
 
 
+	/**
+	 * Returns an iterator over all intervals in the tree, ordered by {@link Interval#sweepLeftToRight}.
+	 * Unlike {@link #iterator()}, which returns the intervals node by node, this iterator merges the
+	 * ordered sets of the nodes lazily, so no sorting is needed to get the intervals ordered by their
+	 * start points. The iterator needs {@code O(logn)} time for the first interval and doesn't support
+	 * the {@code remove} operation.
+	 *
+	 * @return An iterator over the intervals in ascending order.
+	 */
+	public Iterator<Interval<T>> orderedIterator(){
+		return new OrderedIterator<>(this, false, null, false, null, false);
+	}
+
+	/**
+	 * Returns an iterator over all intervals in the tree in the reverse order of
+	 * {@link #orderedIterator()}.
+	 *
+	 * @return An iterator over the intervals in descending order.
+	 */
+	public Iterator<Interval<T>> descendingOrderedIterator(){
+		return new OrderedIterator<>(this, true, null, false, null, false);
+	}
+
+	/**
+	 * Returns a view of the intervals in the tree, that start before a given point.
+	 *
+	 * @param toStart The upper bound for the start points of the intervals.
+	 * @param inclusive {@code true}, if the intervals starting at {@code toStart} belong to the view.
+	 * @return An ordered read-only view of the intervals. See {@link IntervalRangeView}.
+	 */
+	public IntervalRangeView<T> headSet(T toStart, boolean inclusive){
+		return subSet(null, false, toStart, inclusive);
+	}
+
+	/**
+	 * Returns a view of the intervals in the tree, that start after a given point.
+	 *
+	 * @param fromStart The lower bound for the start points of the intervals.
+	 * @param inclusive {@code true}, if the intervals starting at {@code fromStart} belong to the view.
+	 * @return An ordered read-only view of the intervals. See {@link IntervalRangeView}.
+	 */
+	public IntervalRangeView<T> tailSet(T fromStart, boolean inclusive){
+		return subSet(fromStart, inclusive, null, false);
+	}
+
+	/**
+	 * Returns a view of the intervals in the tree, whose start points lie between two points. The
+	 * view is backed by the tree and its iterators return the intervals ordered by their start
+	 * points, just like {@link #orderedIterator()}. An iteration over the view only visits the
+	 * nodes, which may contain intervals in the range, so it starts in {@code O(logn)} time.
+	 *
+	 * @param fromStart The lower bound for the start points, or {@code null} for no lower bound.
+	 * @param fromInclusive {@code true}, if the intervals starting at {@code fromStart} belong to the view.
+	 * @param toStart The upper bound for the start points, or {@code null} for no upper bound.
+	 * @param toInclusive {@code true}, if the intervals starting at {@code toStart} belong to the view.
+	 * @return An ordered read-only view of the intervals. See {@link IntervalRangeView}.
+	 */
+	public IntervalRangeView<T> subSet(T fromStart, boolean fromInclusive, T toStart, boolean toInclusive){
+		return new IntervalRangeView<>(this, fromStart, fromInclusive, toStart, toInclusive);
+	}
+
+
+
+
+
 	// =========================================================================
 	// ================== Methods from the Set interface =======================
 	// =========================================================================
@@ -231,6 +968,7 @@ public class IntervalTree<T extends Comparable<? super T>> extends AbstractSet<I
 	public void clear() {
 		size = 0;
 		root = null;
+		modCount++;
 	}
 
 	/**
@@ -0,0 +1,26 @@
+package com.lodborg.intervaltree;
+
+/**
+ * A callback, which receives the results of a query one at a time, while the tree is being
+ * traversed. Unlike the queries returning a set, a query with a visitor doesn't allocate any
+ * collection and doesn't hash the results, so the visitor can stream them onward directly.
+ *
+ * <p>
+ * The visitor may stop the query at any time by returning {@code false}. The order, in which
+ * the intervals are visited, is not specified. Every matching interval is visited exactly once,
+ * unless the query is stopped. The tree must not be modified while it is being traversed.
+ * </p>
+ *
+ * @param <T> The type for the start and end point of the interval
+ */
+public interface IntervalVisitor<T extends Comparable<? super T>> {
+
+	/**
+	 * Called for every interval matching the query.
+	 *
+	 * @param interval The matching interval.
+	 * @return {@code true}, if the query should continue, or {@code false}, if it should
+	 *         stop without visiting any further intervals.
+	 */
+	boolean visit(Interval<T> interval);
+}
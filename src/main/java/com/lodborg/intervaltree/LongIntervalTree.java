@@ -0,0 +1,208 @@
+package com.lodborg.intervaltree;
+
+import java.util.Date;
+import com.lodborg.intervaltree.Interval.Bounded;
+
+/**
+ * A centered interval tree specialized for intervals with {@code long} start and end points,
+ * for example timestamps in milliseconds or nanoseconds. It is an alternative to an
+ * {@link IntervalTree IntervalTree&lt;Date&gt;} filled with {@link DateInterval}s, which neither
+ * dereferences {@link Date} objects during comparisons, nor allocates any objects per stored
+ * interval.
+ * <p>
+ * The intervals are stored in primitive arrays and identified by {@code int} handles. The
+ * {@code add} method returns the handle of the newly added interval and the queries return
+ * arrays of handles. The start and end points of an interval can be retrieved via its handle
+ * with the methods {@link #getStart(int)}, {@link #getEnd(int)}, {@link #isStartInclusive(int)}
+ * and {@link #isEndInclusive(int)}. See {@link PrimitiveIntervalTree} for more information on
+ * the handles.
+ * </p>
+ * <p>
+ * Similarly to the {@link IntIntervalTree}, the tree treats the {@code long} values as a discrete
+ * domain. An open interval, whose start and end points differ by one, for example the interval
+ * (4, 5), is considered to be empty and will be rejected by the tree. Only bounded intervals are
+ * supported. The {@link #add(DateInterval)} method converts unbounded {@link DateInterval}s to
+ * intervals bounded by {@link Long#MIN_VALUE} and/or {@link Long#MAX_VALUE}, in the same fashion
+ * as {@link DateInterval#getMidpoint()} does.
+ * </p>
+ */
+public class LongIntervalTree extends PrimitiveIntervalTree {
+
+	/**
+	 * Adds an interval to the tree. If the interval is empty or an equal interval is already
+	 * stored in the tree, the interval is rejected.
+	 *
+	 * @param start The start point of the interval.
+	 * @param end The end point of the interval.
+	 * @param type Description of whether the interval is open/closed at one or both
+	 *             of its ends. See {@link Bounded the documentation of the Bounded enum}
+	 *             for more information on the different possibilities.
+	 * @return The handle of the added interval, or -1 if the tree hasn't been modified.
+	 */
+	public int add(long start, long end, Bounded type){
+		byte flag = flags(type);
+		if (isEmpty(start, end, flag))
+			return -1;
+		return insert(low(start, flag), high(end, flag), flag);
+	}
+
+	/**
+	 * Adds a {@link DateInterval} to the tree, by converting its start and end points to
+	 * milliseconds since the epoch.
+	 *
+	 * @param interval The interval to be added.
+	 * @return The handle of the added interval, or -1 if the tree hasn't been modified.
+	 */
+	public int add(DateInterval interval){
+		return add(startOf(interval), endOf(interval), typeOf(interval));
+	}
+
+	/**
+	 * Removes an interval from the tree, if it was stored in it.
+	 *
+	 * @param start The start point of the interval.
+	 * @param end The end point of the interval.
+	 * @param type The type of the interval.
+	 * @return {@code true}, if the tree has been modified as a result of the operation.
+	 */
+	public boolean remove(long start, long end, Bounded type){
+		int id = find(start, end, type);
+		if (id < 0)
+			return false;
+		delete(id);
+		return true;
+	}
+
+	/**
+	 * Removes a {@link DateInterval} from the tree, if it was stored in it.
+	 *
+	 * @param interval The interval to be removed.
+	 * @return {@code true}, if the tree has been modified as a result of the operation.
+	 */
+	public boolean remove(DateInterval interval){
+		return remove(startOf(interval), endOf(interval), typeOf(interval));
+	}
+
+	/**
+	 * Checks if an interval is stored in the tree. This method uses binary search instead of
+	 * iteration over all intervals, which is why it runs in {@code O(logn)} worst-case time.
+	 *
+	 * @param start The start point of the interval.
+	 * @param end The end point of the interval.
+	 * @param type The type of the interval.
+	 * @return {@code true}, if the interval is stored in the tree.
+	 */
+	public boolean contains(long start, long end, Bounded type){
+		return find(start, end, type) >= 0;
+	}
+
+	/**
+	 * Searches for the handle of a stored interval.
+	 *
+	 * @param start The start point of the interval.
+	 * @param end The end point of the interval.
+	 * @param type The type of the interval.
+	 * @return The handle of the interval, or -1 if the interval is not stored in the tree.
+	 */
+	public int find(long start, long end, Bounded type){
+		byte flag = flags(type);
+		if (isEmpty(start, end, flag))
+			return -1;
+		return lookup(low(start, flag), high(end, flag), flag);
+	}
+
+	/**
+	 * Searches for and returns all intervals stored in the tree, that contain a given
+	 * query point. This operation runs in {@code O(logn + k)}, where {@code n} is the
+	 * size of the tree and {@code k} is the amount of returned intervals.
+	 *
+	 * @param point The query point.
+	 * @return The handles of all intervals from the tree, containing the query point.
+	 */
+	public int[] query(long point){
+		return queryPoint(point);
+	}
+
+	/**
+	 * Searches for and returns all intervals stored in the tree, that intersect the closed
+	 * query interval [from, to].
+	 *
+	 * @param from The start point of the query interval.
+	 * @param to The end point of the query interval.
+	 * @return The handles of all intervals from the tree, intersecting the query interval.
+	 * @see #query(long, long, Bounded)
+	 */
+	public int[] query(long from, long to){
+		return query(from, to, Bounded.CLOSED);
+	}
+
+	/**
+	 * Searches for and returns all intervals stored in the tree, that intersect a given
+	 * query interval. This operation runs in {@code O(logn + k)}, where {@code n} is the
+	 * size of the tree and {@code k} is the amount of returned intervals.
+	 *
+	 * @param start The start point of the query interval.
+	 * @param end The end point of the query interval.
+	 * @param type The type of the query interval.
+	 * @return The handles of all intervals from the tree, intersecting the query interval.
+	 */
+	public int[] query(long start, long end, Bounded type){
+		byte flag = flags(type);
+		if (isEmpty(start, end, flag))
+			return new int[0];
+		return queryRange(low(start, flag), high(end, flag));
+	}
+
+	/**
+	 * Searches for and returns all intervals stored in the tree, that intersect a given
+	 * {@link DateInterval}.
+	 *
+	 * @param interval The query interval.
+	 * @return The handles of all intervals from the tree, intersecting the query interval.
+	 */
+	public int[] query(DateInterval interval){
+		return query(startOf(interval), endOf(interval), typeOf(interval));
+	}
+
+	/** Returns the start point of the interval with the given handle. */
+	public long getStart(int id){
+		return startKey(id);
+	}
+
+	/** Returns the end point of the interval with the given handle. */
+	public long getEnd(int id){
+		return endKey(id);
+	}
+
+	/**
+	 * Creates a new {@link DateInterval} equal to the interval with the given handle, interpreting
+	 * the start and end points as milliseconds since the epoch.
+	 *
+	 * @param id The handle of a stored interval.
+	 * @return A new interval object.
+	 */
+	public DateInterval toDateInterval(int id){
+		return (DateInterval) new DateInterval().create(new Date(getStart(id)), isStartInclusive(id), new Date(getEnd(id)), isEndInclusive(id));
+	}
+
+	private static long startOf(DateInterval interval){
+		return interval.getStart() == null ? Long.MIN_VALUE : interval.getStart().getTime();
+	}
+
+	private static long endOf(DateInterval interval){
+		return interval.getEnd() == null ? Long.MAX_VALUE : interval.getEnd().getTime();
+	}
+
+	/**
+	 * Checks if an interval contains no values. Open end points at the limits of the
+	 * {@code long} range are handled separately, because they would overflow when
+	 * converted to closed ones.
+	 */
+	private static boolean isEmpty(long start, long end, byte flag){
+		if ((flag & START_INCLUSIVE) == 0 && start == Long.MAX_VALUE)
+			return true;
+		if ((flag & END_INCLUSIVE) == 0 && end == Long.MIN_VALUE)
+			return true;
+		return low(start, flag) > high(end, flag);
+	}
+}
@@ -0,0 +1,26 @@
+package com.lodborg.intervaltree;
+
+/**
+ * A distance function between two points of the type of the interval bounds. It is needed by the
+ * queries for the nearest intervals, such as {@link IntervalTree#nearest(Comparable, int, Metric)},
+ * since a {@link Comparable} only defines the order of two points, but not how far apart they are.
+ *
+ * <p>
+ * The distance must be non-negative and consistent with the order of the points. More formally,
+ * for any three points {@code a <= b <= c}, it must hold that {@code distance(a, b) <= distance(a, c)}
+ * and {@code distance(b, c) <= distance(a, c)}.
+ * </p>
+ *
+ * @param <T> The type of the points
+ */
+public interface Metric<T> {
+
+	/**
+	 * Returns the distance between two points.
+	 *
+	 * @param a The first point.
+	 * @param b The second point.
+	 * @return The non-negative distance between the points.
+	 */
+	double distance(T a, T b);
+}
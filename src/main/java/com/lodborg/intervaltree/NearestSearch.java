@@ -0,0 +1,119 @@
+package com.lodborg.intervaltree;
+
+import java.util.*;
+
+/**
+ * A best-first search for the intervals in an {@link IntervalTree}, which are nearest to a point.
+ * See {@link IntervalTree#nearest(Comparable, int, Metric)}.
+ *
+ * <p>
+ * The search keeps a priority queue of two kinds of entries, ordered by their distance to the
+ * query point. A subtree entry represents a subtree, which hasn't been visited yet. All intervals
+ * in the subtree lie between the midpoints of the two closest ancestors, under which the subtree
+ * hangs, so the distance to this range is a lower bound for the distance of any interval in the
+ * subtree. A node entry represents the remaining intervals of a visited node. All intervals in a
+ * node contain its midpoint, so iterating over them by their start points, if the query point is
+ * left of the midpoint, or by their end points otherwise, yields them ordered by their distance.
+ * </p>
+ * <p>
+ * Whenever an interval is taken from the queue, no other interval in the tree can be closer, so
+ * the search stops after {@code k} intervals, without visiting any subtree farther away than the
+ * {@code k}-th nearest interval.
+ * </p>
+ *
+ * @param <T> The type for the start and end point of the interval
+ */
+class NearestSearch<T extends Comparable<? super T>> {
+	private final T point;
+	private final Metric<? super T> metric;
+	private final PriorityQueue<Entry> queue = new PriorityQueue<>();
+
+	NearestSearch(T point, Metric<? super T> metric){
+		this.point = point;
+		this.metric = metric;
+	}
+
+	/**
+	 * Returns up to {@code k} intervals from the subtree rooted at a node, nearest to the point.
+	 */
+	List<Interval<T>> search(TreeNode<T> root, int k){
+		List<Interval<T>> result = new ArrayList<>(Math.min(k, 16));
+		if (root != null)
+			queue.add(new Entry(root, null, null, 0));
+		while (result.size() < k && !queue.isEmpty()){
+			Entry entry = queue.poll();
+			if (entry.intervals == null){
+				visit(entry);
+				continue;
+			}
+			result.add(entry.interval);
+			if (entry.intervals.hasNext())
+				queue.add(nodeEntry(entry.intervals));
+		}
+		return result;
+	}
+
+	/**
+	 * Replaces a subtree entry by an entry for the intervals of its root and entries for
+	 * both child subtrees.
+	 */
+	private void visit(Entry subtree){
+		TreeNode<T> node = subtree.node;
+		int compare = point.compareTo(node.midpoint);
+		Iterator<Interval<T>> intervals = compare > 0 ? node.decreasing.iterator() : node.increasing.iterator();
+		queue.add(nodeEntry(intervals));
+		if (node.left != null)
+			queue.add(subtreeEntry(node.left, subtree.low, node.midpoint));
+		if (node.right != null)
+			queue.add(subtreeEntry(node.right, node.midpoint, subtree.high));
+	}
+
+	private Entry nodeEntry(Iterator<Interval<T>> intervals){
+		Interval<T> interval = intervals.next();
+		Entry entry = new Entry(null, null, null, distance(interval));
+		entry.interval = interval;
+		entry.intervals = intervals;
+		return entry;
+	}
+
+	/**
+	 * Creates an entry for a subtree, whose intervals lie between two points. A {@code null}
+	 * point means that the range is unbounded on this side.
+	 */
+	private Entry subtreeEntry(TreeNode<T> node, T low, T high){
+		double distance = 0;
+		if (low != null && point.compareTo(low) <= 0)
+			distance = metric.distance(point, low);
+		else if (high != null && point.compareTo(high) >= 0)
+			distance = metric.distance(high, point);
+		return new Entry(node, low, high, distance);
+	}
+
+	private double distance(Interval<T> interval){
+		if (interval.isRightOf(point))
+			return metric.distance(point, interval.getStart());
+		if (interval.isLeftOf(point))
+			return metric.distance(interval.getEnd(), point);
+		return 0;
+	}
+
+	private class Entry implements Comparable<Entry> {
+		final TreeNode<T> node;
+		final T low, high;
+		final double distance;
+		Interval<T> interval;
+		Iterator<Interval<T>> intervals;
+
+		Entry(TreeNode<T> node, T low, T high, double distance){
+			this.node = node;
+			this.low = low;
+			this.high = high;
+			this.distance = distance;
+		}
+
+		@Override
+		public int compareTo(Entry other) {
+			return Double.compare(distance, other.distance);
+		}
+	}
+}
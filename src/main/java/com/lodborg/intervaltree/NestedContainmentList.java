@@ -0,0 +1,226 @@
+package com.lodborg.intervaltree;
+
+import java.util.*;
+
+/**
+ * An immutable Nested Containment List (NCList), a read-only interval index for data sets
+ * dominated by containment, where many intervals lie inside other intervals. See Alekseyenko and
+ * Lee: "Nested Containment List (NCList): a new algorithm for accelerating interval query of genome
+ * alignment and interval databases", Bioinformatics 2007.
+ *
+ * <p>
+ * The intervals are split into a hierarchy of sublists. The top-level list contains all intervals,
+ * which are not contained in any other interval. Every interval that is contained in another one is
+ * stored in the sublist of the last interval containing it. Since no interval in a sublist contains
+ * another interval of the same sublist, the intervals of every sublist are sorted by their start
+ * points and by their end points at the same time. This allows a query to find the first interval
+ * in a sublist, that is not to the left of the query, by binary search, and to collect all
+ * intersecting intervals by scanning forward until it reaches an interval to the right of the query.
+ * The query then descends into the sublists of the intersecting intervals.
+ * </p>
+ * <p>
+ * All sublists are laid out in a single flat array in breadth-first order, so the index consists
+ * of three arrays and doesn't allocate any objects per interval or sublist. The index answers the
+ * same queries as the {@link IntervalTree} with identical results. Just like the
+ * {@link StaticIntervalTree}, it is created once via {@link #build(Collection)}, discards
+ * {@code null}, empty and duplicate intervals, and throws an {@link UnsupportedOperationException}
+ * on any attempt to modify it.
+ * </p>
+ *
+ * @param <T> The type for the start and end point of the interval
+ */
+public class NestedContainmentList<T extends Comparable<? super T>> extends ImmutableIntervalSet<T> {
+
+	/**
+	 * Sorts the intervals by their start points in ascending order and intervals with the same
+	 * start point by their end points in descending order. Thus every interval comes after all
+	 * intervals containing it.
+	 */
+	@SuppressWarnings({"rawtypes", "unchecked"})
+	private static final Comparator<Interval> CONTAINMENT_ORDER = new Comparator<Interval>() {
+		@Override
+		public int compare(Interval a, Interval b) {
+			int compare = a.compareStarts(b);
+			if (compare != 0)
+				return compare;
+			compare = b.compareEnds(a);
+			if (compare != 0)
+				return compare;
+			return a.compareSpecialization(b);
+		}
+	};
+
+	/**
+	 * The size of the top-level list, which occupies the beginning of the {@link #intervals} array.
+	 */
+	private final int topLevelSize;
+
+	/**
+	 * The sublist of the interval at position {@code i} occupies the range from {@code sublistStarts[i]}
+	 * to {@code sublistEnds[i] - 1} in the {@link #intervals} array. The range is empty, if the
+	 * interval doesn't contain any other intervals.
+	 */
+	private final int[] sublistStarts, sublistEnds;
+
+	@SuppressWarnings("unchecked")
+	private NestedContainmentList(Interval<T>[] sorted){
+		super((Interval<T>[]) new Interval<?>[sorted.length]);
+		int n = sorted.length;
+
+		// Find the parent of every interval - the last preceding interval that contains it.
+		int[] parents = new int[n];
+		int[] childCounts = new int[n + 1];
+		int[] stack = new int[n];
+		int top = 0;
+		for (int i = 0; i < n; i++){
+			while (top > 0 && !contains(sorted[stack[top - 1]], sorted[i]))
+				top--;
+			parents[i] = top > 0 ? stack[top - 1] : n;
+			childCounts[parents[i]]++;
+			stack[top++] = i;
+		}
+
+		// Group the children of every interval. The virtual parent n represents the top-level list.
+		int[] childOffsets = new int[n + 2];
+		for (int i = 0; i <= n; i++)
+			childOffsets[i + 1] = childOffsets[i] + childCounts[i];
+		int[] children = new int[n];
+		int[] fill = Arrays.copyOf(childOffsets, n + 1);
+		for (int i = 0; i < n; i++)
+			children[fill[parents[i]]++] = i;
+
+		// Lay out the sublists breadth-first. The intervals are placed one sublist at a time,
+		// and the sublist of every placed interval is appended after all previous sublists.
+		sublistStarts = new int[n];
+		sublistEnds = new int[n];
+		int[] positions = new int[n];
+		int placed = 0;
+		for (int c = childOffsets[n]; c < childOffsets[n + 1]; c++){
+			positions[placed] = children[c];
+			intervals[placed++] = sorted[children[c]];
+		}
+		topLevelSize = placed;
+		for (int i = 0; i < n; i++){
+			int source = positions[i];
+			sublistStarts[i] = placed;
+			for (int c = childOffsets[source]; c < childOffsets[source + 1]; c++){
+				positions[placed] = children[c];
+				intervals[placed++] = sorted[children[c]];
+			}
+			sublistEnds[i] = placed;
+		}
+	}
+
+	/**
+	 * Builds a new nested containment list containing all intervals from a collection. This
+	 * operation runs in {@code O(nlogn)} time, where {@code n} is the size of the collection.
+	 *
+	 * @param intervals The intervals to be stored in the list. {@code null} and empty intervals, as
+	 *                  well as duplicates, are discarded.
+	 * @param <T> The type for the start and end point of the intervals.
+	 * @return A new list containing the intervals.
+	 */
+	public static <T extends Comparable<? super T>> NestedContainmentList<T> build(Collection<? extends Interval<T>> intervals){
+		Interval<T>[] sorted = sortedDistinct(intervals);
+		Arrays.sort(sorted, CONTAINMENT_ORDER);
+		return new NestedContainmentList<>(sorted);
+	}
+
+	/**
+	 * Checks if the interval {@code outer} contains the interval {@code inner}.
+	 */
+	private static <T extends Comparable<? super T>> boolean contains(Interval<T> outer, Interval<T> inner){
+		return outer.compareStarts(inner) <= 0 && outer.compareEnds(inner) >= 0;
+	}
+
+	/**
+	 * Searches for and returns all intervals stored in the list, that contain a given
+	 * query point. This operation runs in {@code O((s+1)logn + k)} time, where {@code n} is
+	 * the size of the list, {@code k} is the size of the returned set and {@code s} is the
+	 * amount of returned intervals with a sublist.
+	 *
+	 * @param point The query point.
+	 * @return A set containing all intervals from the list, intersecting the query point.
+	 * @see IntervalTree#query(Comparable)
+	 */
+	@Override
+	public Set<Interval<T>> query(T point){
+		return query(OverlapQuery.of(point));
+	}
+
+	/**
+	 * Searches for and returns all intervals stored in the list, that intersect a given
+	 * query interval. This operation runs in {@code O((s+1)logn + k)} time, where {@code n} is
+	 * the size of the list, {@code k} is the size of the returned set and {@code s} is the
+	 * amount of returned intervals with a sublist.
+	 *
+	 * @param interval The query interval.
+	 * @return A set containing all intervals from the list, intersecting the query interval.
+	 * @see IntervalTree#query(Interval)
+	 */
+	@Override
+	public Set<Interval<T>> query(Interval<T> interval){
+		if (interval.isEmpty())
+			return new HashSet<>();
+		return query(OverlapQuery.of(interval));
+	}
+
+	/**
+	 * Scans the top-level list and descends into the sublists of all intersecting intervals.
+	 * An interval that doesn't intersect the query can't contain an interval intersecting it,
+	 * so the sublists of the remaining intervals are skipped.
+	 */
+	private Set<Interval<T>> query(OverlapQuery<T> query){
+		Set<Interval<T>> result = new HashSet<>();
+		Deque<int[]> stack = new ArrayDeque<>();
+		stack.push(new int[]{0, topLevelSize});
+		while (!stack.isEmpty()){
+			int[] sublist = stack.pop();
+			int from = sublist[0], to = sublist[1];
+			while (from < to){
+				int mid = (from + to) >>> 1;
+				if (query.isLeftOf(intervals[mid]))
+					from = mid + 1;
+				else
+					to = mid;
+			}
+			for (int i = from; i < sublist[1] && !query.isRightOf(intervals[i]); i++){
+				if (!query.intersects(intervals[i]))
+					continue;
+				result.add(intervals[i]);
+				if (sublistStarts[i] < sublistEnds[i])
+					stack.push(new int[]{sublistStarts[i], sublistEnds[i]});
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Checks if a given object is stored in the list. This method performs a binary search
+	 * in the top-level list and follows the containment chain of the object into the sublists.
+	 *
+	 * @param o The query object.
+	 * @return {@code true}, if the object is stored in the list, or {@code false}
+	 *         otherwise.
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public boolean contains(Object o) {
+		if (!(o instanceof Interval))
+			return false;
+		Interval<T> query = (Interval<T>) o;
+		int from = 0, to = topLevelSize;
+		while (from < to){
+			// Find the last interval in the sublist, which doesn't come after the query.
+			int index = Arrays.binarySearch(intervals, from, to, query, CONTAINMENT_ORDER);
+			if (index >= 0)
+				return true;
+			index = -index - 2;
+			if (index < from || !contains(intervals[index], query))
+				return false;
+			from = sublistStarts[index];
+			to = sublistEnds[index];
+		}
+		return false;
+	}
+}
@@ -0,0 +1,214 @@
+package com.lodborg.intervaltree;
+
+import java.util.*;
+
+/**
+ * A lazy iterator over the intervals in an {@link IntervalTree}, ordered by
+ * {@link Interval#sweepLeftToRight} across the whole tree, or in the reverse order. Optionally,
+ * the iteration is restricted to the intervals, whose start points lie between two bounds.
+ *
+ * <p>
+ * The intervals in a node all start no later than its midpoint and the intervals in its right
+ * subtree all start after it. So in ascending order, a subtree yields the intervals of its root
+ * merged with the ones of its left subtree, followed by the ones of its right subtree. The
+ * iterator performs this merge lazily with a priority queue of two kinds of entries. A node entry
+ * holds a cursor into the increasing set of a visited node. A subtree entry represents a subtree,
+ * which hasn't been visited yet, together with a bound for the start points of all of its
+ * intervals - the midpoint of the closest ancestor, left of which the subtree hangs. A subtree is
+ * only visited, once the next interval in the queue doesn't start before this bound. The
+ * descending order is the mirror image, with upper bounds for the start points of the subtrees.
+ * </p>
+ * <p>
+ * The subtrees which are entirely out of the range of start points are never visited, so the
+ * first interval in the range is found in {@code O(logn)} time, as long as the visited nodes
+ * store at most {@link SortedIntervalSet#MAX_ARRAY_SIZE} intervals each. The iterator doesn't
+ * support the {@code remove} operation and throws a {@link ConcurrentModificationException},
+ * if the tree is modified during the iteration.
+ * </p>
+ *
+ * @param <T> The type for the start and end point of the interval
+ */
+class OrderedIterator<T extends Comparable<? super T>> implements Iterator<Interval<T>> {
+	private final IntervalTree<T> tree;
+	private final int expectedModCount;
+	private final boolean descending;
+
+	/**
+	 * The bounds for the start points of the returned intervals. A {@code null} bound means that
+	 * the range is unbounded on this side.
+	 */
+	private final T from, to;
+	private final boolean fromInclusive, toInclusive;
+
+	private final PriorityQueue<Entry> queue;
+	private Interval<T> next;
+
+	OrderedIterator(IntervalTree<T> tree, boolean descending, T from, boolean fromInclusive, T to, boolean toInclusive){
+		this.tree = tree;
+		this.expectedModCount = tree.modCount;
+		this.descending = descending;
+		this.from = from;
+		this.fromInclusive = fromInclusive;
+		this.to = to;
+		this.toInclusive = toInclusive;
+		queue = new PriorityQueue<>(11, descending ? descendingOrder : ascendingOrder);
+		if (tree.root != null)
+			queue.add(new Entry(tree.root, null));
+		next = fetch();
+	}
+
+	@Override
+	public boolean hasNext() {
+		return next != null;
+	}
+
+	@Override
+	public Interval<T> next() {
+		if (tree.modCount != expectedModCount)
+			throw new ConcurrentModificationException();
+		if (next == null)
+			throw new NoSuchElementException();
+		Interval<T> result = next;
+		next = fetch();
+		return result;
+	}
+
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * Visits subtrees until the head of the queue is an interval.
+	 *
+	 * @return The next interval in the range, or {@code null}, if there are no more intervals.
+	 */
+	private Interval<T> fetch(){
+		while (!queue.isEmpty()){
+			Entry entry = queue.poll();
+			if (entry.node != null){
+				visit(entry);
+				continue;
+			}
+			Interval<T> result = entry.interval;
+			if (descending ? from != null && SortedIntervalSet.startsBefore(result, from, fromInclusive)
+					: to != null && SortedIntervalSet.startsAfter(result, to, toInclusive)){
+				// All remaining intervals are out of the range as well
+				queue.clear();
+				return null;
+			}
+			if (entry.intervals.hasNext())
+				queue.add(new Entry(entry.intervals));
+			return result;
+		}
+		return null;
+	}
+
+	/**
+	 * Replaces a subtree entry by an entry for the intervals of its root and entries for both
+	 * child subtrees, skipping the parts of the subtree out of the range of start points.
+	 */
+	private void visit(Entry subtree){
+		TreeNode<T> node = subtree.node;
+		Iterator<Interval<T>> intervals;
+		if (descending){
+			if (node.left != null)
+				queue.add(new Entry(node.left, node.midpoint));
+			if (to != null && isAfter(node.midpoint, to, toInclusive)){
+				// The intervals in the right subtree start after the midpoint
+				intervals = node.increasing.headDescendingIterator(to, toInclusive);
+			} else {
+				if (node.right != null)
+					queue.add(new Entry(node.right, subtree.bound));
+				intervals = node.increasing.descendingIterator();
+			}
+		} else {
+			if (node.right != null)
+				queue.add(new Entry(node.right, node.midpoint));
+			if (from != null && isAfter(from, node.midpoint, fromInclusive))
+				return; // The intervals in the node and the left subtree start before the midpoint
+			if (node.left != null)
+				queue.add(new Entry(node.left, subtree.bound));
+			intervals = from == null ? node.increasing.iterator() : node.increasing.tailIterator(from, fromInclusive);
+		}
+		if (intervals.hasNext())
+			queue.add(new Entry(intervals));
+	}
+
+	/**
+	 * Checks if a point is after a bound, or equal to it, if the bound is not {@code inclusive}.
+	 */
+	private static <T extends Comparable<? super T>> boolean isAfter(T point, T bound, boolean inclusive){
+		int compare = point.compareTo(bound);
+		return compare > 0 || compare == 0 && !inclusive;
+	}
+
+	private class Entry {
+		/**
+		 * The root of the subtree, or {@code null}, if this is a node entry.
+		 */
+		final TreeNode<T> node;
+
+		/**
+		 * The bound for the start points in the subtree. It is {@code null}, if the subtree is unbounded.
+		 */
+		final T bound;
+
+		Interval<T> interval;
+		Iterator<Interval<T>> intervals;
+
+		Entry(TreeNode<T> node, T bound){
+			this.node = node;
+			this.bound = bound;
+		}
+
+		Entry(Iterator<Interval<T>> intervals){
+			this(null, null);
+			this.interval = intervals.next();
+			this.intervals = intervals;
+		}
+	}
+
+	/**
+	 * Orders the entries by the start points of the intervals. A subtree is placed before all
+	 * intervals, which don't start before its lower bound, since it may contain intervals, that
+	 * precede them.
+	 */
+	private final Comparator<Entry> ascendingOrder = new Comparator<Entry>() {
+		@Override
+		public int compare(Entry a, Entry b) {
+			if (a.node == null && b.node == null)
+				return Interval.sweepLeftToRight.compare(a.interval, b.interval);
+			if (a.node != null && b.node != null){
+				if (a.bound == null || b.bound == null)
+					return a.bound == null ? (b.bound == null ? 0 : -1) : 1;
+				return a.bound.compareTo(b.bound);
+			}
+			Entry subtree = a.node == null ? b : a;
+			Entry interval = a.node == null ? a : b;
+			boolean subtreeFirst = subtree.bound == null || interval.interval.isRightOf(subtree.bound, true);
+			return subtreeFirst == (subtree == a) ? -1 : 1;
+		}
+	};
+
+	/**
+	 * Orders the entries by the start points of the intervals in reverse. A subtree is placed after
+	 * all intervals, which don't start before its upper bound.
+	 */
+	private final Comparator<Entry> descendingOrder = new Comparator<Entry>() {
+		@Override
+		public int compare(Entry a, Entry b) {
+			if (a.node == null && b.node == null)
+				return Interval.sweepLeftToRight.compare(b.interval, a.interval);
+			if (a.node != null && b.node != null){
+				if (a.bound == null || b.bound == null)
+					return a.bound == null ? (b.bound == null ? 0 : -1) : 1;
+				return b.bound.compareTo(a.bound);
+			}
+			Entry subtree = a.node == null ? b : a;
+			Entry interval = a.node == null ? a : b;
+			boolean subtreeFirst = subtree.bound == null || !interval.interval.isRightOf(subtree.bound, false);
+			return subtreeFirst == (subtree == a) ? -1 : 1;
+		}
+	};
+}
@@ -0,0 +1,179 @@
+package com.lodborg.intervaltree;
+
+import java.util.*;
+
+/**
+ * A query for all intervals in an {@link IntervalTree}, that intersect a query interval, which
+ * returns them ordered by their start points or by their end points. See
+ * {@link IntervalTree#queryOrderedByStart(Interval)} and {@link IntervalTree#queryOrderedByEnd(Interval)}.
+ *
+ * <p>
+ * The query visits the same nodes as {@link IntervalTree#query(Interval, IntervalVisitor)}, but
+ * instead of reporting the intervals node by node, it merges the ordered runs of intersecting
+ * intervals of the visited nodes with a priority queue, just like the {@link OrderedIterator}.
+ * Unvisited subtrees are kept in the queue with a lower bound for the start points, or the end
+ * points respectively, of their intervals, and are only visited once their intervals may come
+ * next. Whenever the matching intervals of a node form a prefix of the set ordered by the other
+ * end point, they are sorted before they are merged. This only happens in the nodes, whose
+ * midpoint is on one particular side of the query.
+ * </p>
+ *
+ * @param <T> The type for the start and end point of the interval
+ */
+class OrderedQuery<T extends Comparable<? super T>> {
+	private static final Comparator<? super Interval<?>> byStart = Interval.sweepLeftToRight;
+	private static final Comparator<? super Interval<?>> byEnd = Collections.reverseOrder(Interval.sweepRightToLeft);
+
+	private final Interval<T> query;
+	private final boolean orderByEnd;
+	private final Comparator<? super Interval<T>> order;
+	private final PriorityQueue<Entry> queue = new PriorityQueue<>(11, new Comparator<Entry>() {
+		@Override
+		public int compare(Entry a, Entry b) {
+			if (a.node == null && b.node == null)
+				return order.compare(a.interval, b.interval);
+			if (a.node != null && b.node != null){
+				if (a.bound == null || b.bound == null)
+					return a.bound == null ? (b.bound == null ? 0 : -1) : 1;
+				return a.bound.compareTo(b.bound);
+			}
+			Entry subtree = a.node == null ? b : a;
+			return isBefore(subtree, a.node == null ? a.interval : b.interval) == (subtree == a) ? -1 : 1;
+		}
+	});
+
+	OrderedQuery(Interval<T> query, boolean orderByEnd){
+		this.query = query;
+		this.orderByEnd = orderByEnd;
+		if (orderByEnd)
+			order = byEnd;
+		else
+			order = byStart;
+	}
+
+	/**
+	 * Returns the intervals from the subtree rooted at a node, which intersect the query, in order.
+	 */
+	List<Interval<T>> run(TreeNode<T> root){
+		List<Interval<T>> result = new ArrayList<>();
+		if (root != null)
+			queue.add(new Entry(root, null));
+		while (!queue.isEmpty()){
+			Entry entry = queue.poll();
+			if (entry.node != null){
+				visit(entry);
+				continue;
+			}
+			result.add(entry.interval);
+			if (entry.intervals.hasNext())
+				queue.add(new Entry(entry.intervals));
+		}
+		return result;
+	}
+
+	/**
+	 * Replaces a subtree entry by an entry for the intersecting intervals of its root and
+	 * entries for the child subtrees, which may contain intersecting intervals.
+	 */
+	private void visit(Entry subtree){
+		TreeNode<T> node = subtree.node;
+		Iterator<Interval<T>> intervals;
+		if (query.contains(node.midpoint)){
+			intervals = orderByEnd ? node.decreasing.descendingIterator() : node.increasing.iterator();
+			if (node.left != null)
+				queue.add(new Entry(node.left, subtree.bound));
+			if (node.right != null)
+				queue.add(new Entry(node.right, node.midpoint));
+		} else if (query.isLeftOf(node.midpoint)){
+			int count = node.increasing.countPrefix(OverlapQuery.of(query));
+			intervals = orderByEnd ? sortedPrefix(node.increasing, count) : limit(node.increasing.iterator(), count);
+			if (node.left != null)
+				queue.add(new Entry(node.left, subtree.bound));
+		} else {
+			int count = node.decreasing.countPrefix(OverlapQuery.of(query));
+			intervals = orderByEnd ? node.decreasing.descendingPrefixIterator(count) : sortedPrefix(node.decreasing, count);
+			if (node.right != null)
+				queue.add(new Entry(node.right, node.midpoint));
+		}
+		if (intervals.hasNext())
+			queue.add(new Entry(intervals));
+	}
+
+	/**
+	 * Checks if a subtree must be visited before an interval is returned, because it may contain
+	 * intervals preceding it. This is the case, if the bound of the subtree is not after the start
+	 * point, or the end point respectively, of the interval.
+	 */
+	private boolean isBefore(Entry subtree, Interval<T> interval){
+		if (subtree.bound == null)
+			return true;
+		T key = orderByEnd ? interval.getEnd() : interval.getStart();
+		if (key == null)
+			return orderByEnd;
+		return subtree.bound.compareTo(key) <= 0;
+	}
+
+	/**
+	 * Returns the first {@code count} intervals of a set, sorted by the order of the query.
+	 */
+	private Iterator<Interval<T>> sortedPrefix(SortedIntervalSet<T> set, int count){
+		if (count == 0)
+			return Collections.emptyIterator();
+		List<Interval<T>> prefix = new ArrayList<>(count);
+		for (Iterator<Interval<T>> it = set.iterator(); prefix.size() < count; )
+			prefix.add(it.next());
+		Collections.sort(prefix, order);
+		return prefix.iterator();
+	}
+
+	private static <T extends Comparable<? super T>> Iterator<Interval<T>> limit(final Iterator<Interval<T>> iterator, final int count){
+		return new Iterator<Interval<T>>() {
+			private int remaining = count;
+
+			@Override
+			public boolean hasNext() {
+				return remaining > 0 && iterator.hasNext();
+			}
+
+			@Override
+			public Interval<T> next() {
+				if (!hasNext())
+					throw new NoSuchElementException();
+				remaining--;
+				return iterator.next();
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	private class Entry {
+		/**
+		 * The root of the subtree, or {@code null}, if this is an entry for the intervals of a node.
+		 */
+		final TreeNode<T> node;
+
+		/**
+		 * The lower bound for the points in the subtree, by which the intervals are ordered. It is
+		 * {@code null}, if the subtree is unbounded.
+		 */
+		final T bound;
+
+		Interval<T> interval;
+		Iterator<Interval<T>> intervals;
+
+		Entry(TreeNode<T> node, T bound){
+			this.node = node;
+			this.bound = bound;
+		}
+
+		Entry(Iterator<Interval<T>> intervals){
+			this(null, null);
+			this.interval = intervals.next();
+			this.intervals = intervals;
+		}
+	}
+}
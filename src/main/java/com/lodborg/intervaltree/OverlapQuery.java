@@ -0,0 +1,102 @@
+package com.lodborg.intervaltree;
+
+/**
+ * A query for all intervals overlapping a point or an interval. It lets the read-only indexes share
+ * a single traversal between the two types of queries, since the traversals only need to know
+ * whether an interval is entirely on one side of the query or intersects it.
+ *
+ * @param <T> The type for the start and end point of the interval
+ */
+abstract class OverlapQuery<T extends Comparable<? super T>> {
+
+	/**
+	 * Creates a query for all intervals containing a point.
+	 */
+	static <T extends Comparable<? super T>> OverlapQuery<T> of(final T point){
+		return new OverlapQuery<T>() {
+			@Override
+			boolean isRightOf(Interval<T> interval) {
+				return interval.isRightOf(point);
+			}
+
+			@Override
+			boolean isLeftOf(Interval<T> interval) {
+				return interval.isLeftOf(point);
+			}
+
+			@Override
+			boolean intersects(Interval<T> interval) {
+				return interval.contains(point);
+			}
+
+			@Override
+			int locate(T reference) {
+				return point.compareTo(reference);
+			}
+
+			@Override
+			Interval<T> bounds(Interval<T> reference) {
+				return reference.create(point, true, point, true);
+			}
+		};
+	}
+
+	/**
+	 * Creates a query for all intervals intersecting a non-empty query interval.
+	 */
+	static <T extends Comparable<? super T>> OverlapQuery<T> of(final Interval<T> query){
+		return new OverlapQuery<T>() {
+			@Override
+			boolean isRightOf(Interval<T> interval) {
+				return interval.isRightOf(query);
+			}
+
+			@Override
+			boolean isLeftOf(Interval<T> interval) {
+				return interval.isLeftOf(query);
+			}
+
+			@Override
+			boolean intersects(Interval<T> interval) {
+				return query.intersects(interval);
+			}
+
+			@Override
+			int locate(T reference) {
+				if (query.contains(reference))
+					return 0;
+				return query.isLeftOf(reference) ? -1 : 1;
+			}
+
+			@Override
+			Interval<T> bounds(Interval<T> reference) {
+				return query;
+			}
+		};
+	}
+
+	/** Returns {@code true}, if the interval is entirely to the right of the query. */
+	abstract boolean isRightOf(Interval<T> interval);
+
+	/** Returns {@code true}, if the interval is entirely to the left of the query. */
+	abstract boolean isLeftOf(Interval<T> interval);
+
+	/** Returns {@code true}, if the interval intersects the query. */
+	abstract boolean intersects(Interval<T> interval);
+
+	/**
+	 * Locates the query relative to a reference point, such as the midpoint of a tree node.
+	 *
+	 * @return A negative number, if the query is entirely to the left of the point, a positive
+	 *         number, if it is entirely to the right of the point, or 0, if it contains the point.
+	 */
+	abstract int locate(T reference);
+
+	/**
+	 * Returns the smallest interval containing the query.
+	 *
+	 * @param reference An interval of the same type as the intervals the query runs on, used
+	 *                  to create a new interval, if the query is not an interval itself.
+	 */
+	abstract Interval<T> bounds(Interval<T> reference);
+}
@@ -0,0 +1,93 @@
+package com.lodborg.intervaltree;
+
+import java.util.*;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A task answering a batch of queries on an {@link IntervalTree} in a
+ * {@link java.util.concurrent.ForkJoinPool}. See {@link IntervalTree#queryAll(Comparable[], java.util.concurrent.ForkJoinPool)}
+ * and {@link IntervalTree#queryAll(Interval[], java.util.concurrent.ForkJoinPool)}.
+ *
+ * <p>
+ * The task is responsible for a range of the batch. It keeps splitting off the second half of its
+ * range as a new task, as long as the range is large enough and the worker thread doesn't have a
+ * surplus of queued tasks, which idle threads could steal. This way, the batch is split into about
+ * as many parts as there are threads looking for work, regardless of the size of the pool or how
+ * uneven the cost of the queries is. Every task writes the results only into the slots of its own
+ * range in a preallocated array, so the threads never contend on shared state. The tree is only
+ * read, so it must not be modified while the batch is running.
+ * </p>
+ * <p>
+ * The point queries are first sorted, so that every task sweeps a range of neighbouring points
+ * through the tree together, as described in {@link TreeNode#queryAll(TreeNode, List, int[], int, int, BatchVisitor)}.
+ * </p>
+ *
+ * @param <T> The type for the start and end point of the interval
+ */
+class ParallelQuery<T extends Comparable<? super T>> extends RecursiveAction {
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The smallest range of queries, that is split into two tasks.
+	 */
+	static final int MIN_SPLIT_SIZE = 64;
+
+	/**
+	 * The amount of queued tasks of a worker thread, above which the thread stops splitting.
+	 */
+	private static final int MAX_SURPLUS = 3;
+
+	private final IntervalTree<T> tree;
+	private final List<T> points;
+	private final int[] order;
+	private final Interval<T>[] intervals;
+	private final Set<Interval<T>>[] results;
+	private final int from;
+	private int to;
+
+	ParallelQuery(IntervalTree<T> tree, List<T> points, int[] order, Interval<T>[] intervals, Set<Interval<T>>[] results, int from, int to){
+		this.tree = tree;
+		this.points = points;
+		this.order = order;
+		this.intervals = intervals;
+		this.results = results;
+		this.from = from;
+		this.to = to;
+	}
+
+	@Override
+	protected void compute() {
+		List<ParallelQuery<T>> forked = new ArrayList<>();
+		while (to - from >= MIN_SPLIT_SIZE && getSurplusQueuedTaskCount() <= MAX_SURPLUS){
+			int mid = (from + to) >>> 1;
+			ParallelQuery<T> task = new ParallelQuery<>(tree, points, order, intervals, results, mid, to);
+			task.fork();
+			forked.add(task);
+			to = mid;
+		}
+		if (intervals == null)
+			queryPoints();
+		else
+			queryIntervals();
+		// Join in the reverse order of forking, so that the tasks not stolen yet can be run directly
+		for (int i = forked.size() - 1; i >= 0; i--)
+			forked.get(i).join();
+	}
+
+	private void queryPoints(){
+		for (int i = from; i < to; i++)
+			results[order[i]] = new HashSet<>();
+		TreeNode.queryAll(tree.root, points, order, from, to, new BatchVisitor<T>() {
+			@Override
+			public boolean visit(int index, Interval<T> interval) {
+				results[index].add(interval);
+				return true;
+			}
+		});
+	}
+
+	private void queryIntervals(){
+		for (int i = from; i < to; i++)
+			results[i] = tree.query(intervals[i], new HashSet<Interval<T>>());
+	}
+}
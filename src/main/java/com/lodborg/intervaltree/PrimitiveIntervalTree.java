@@ -0,0 +1,763 @@
+package com.lodborg.intervaltree;
+
+import java.util.Arrays;
+import com.lodborg.intervaltree.Interval.Bounded;
+
+/**
+ * The common base of the interval trees specialized for primitive start and end points, such as
+ * {@link IntIntervalTree}.
+ * <p>
+ * The class implements the same centered interval tree as {@link IntervalTree} and {@link TreeNode},
+ * including the balancing rotations and the assimilation of intervals into promoted nodes, but it
+ * doesn't allocate any objects per interval. Instead, every interval is identified by an {@code int}
+ * handle, which is an index into the primitive arrays storing the start and end points of the
+ * intervals. The nodes of the tree are identified by {@code int} indices as well. Each node keeps
+ * the handles of its intervals in two sorted {@code int} arrays - one ordered by the start points in
+ * ascending order and one ordered by the end points in descending order. These arrays play the role
+ * of the {@code increasing} and {@code decreasing} sets in the {@link TreeNode}.
+ * </p>
+ * <p>
+ * The tree stores every interval as a closed interval of {@code long} keys. The subclasses map
+ * their primitive type to keys in an order-preserving way, such that the values directly following
+ * and preceding a point are mapped to the keys directly following and preceding the key of the point.
+ * An open end point can therefore be converted to an inclusive one by adding or subtracting one from
+ * its key. The inclusiveness of the original end points is only kept to be able to tell apart
+ * distinct intervals, such as [4, 6) and [4, 5], and to restore the original end points. All
+ * comparisons and queries are implemented in this class on the keys, while the subclasses convert
+ * the arguments of their public methods and define which intervals are empty.
+ * </p>
+ * <p>
+ * Handles of removed intervals are reused for intervals added later. A handle is therefore only
+ * valid as long as the interval it identifies is stored in the tree.
+ * </p>
+ */
+public abstract class PrimitiveIntervalTree {
+	/**
+	 * Marks a missing node, for example the left child of a leaf.
+	 */
+	static final int NIL = -1;
+
+	static final byte START_INCLUSIVE = 1, END_INCLUSIVE = 2;
+
+	private static final int[] EMPTY = new int[0];
+	private static final int INITIAL_CAPACITY = 16;
+
+	/**
+	 * The index of the root node, or {@link #NIL} if the tree is empty.
+	 */
+	int root = NIL;
+
+	/**
+	 * The amount of intervals stored in the tree.
+	 */
+	int size;
+
+	int[] left = EMPTY, right = EMPTY, height = EMPTY;
+
+	/**
+	 * The handles of the intervals stored in each node, ordered by their start points.
+	 * Only the first {@code counts[node]} elements of each array are used.
+	 */
+	int[][] increasing = new int[0][];
+
+	/**
+	 * The handles of the intervals stored in each node, ordered by their end points
+	 * in descending order. Only the first {@code counts[node]} elements of each array
+	 * are used.
+	 */
+	int[][] decreasing = new int[0][];
+
+	/**
+	 * The amount of intervals stored in each node.
+	 */
+	int[] counts = EMPTY;
+
+	private int nodeCapacity, nodesUsed;
+	private int[] freeNodes = EMPTY;
+	private int freeNodeCount;
+
+	private int slotCapacity, slotsUsed;
+	private int[] freeSlots = EMPTY;
+	private int freeSlotCount;
+
+	/**
+	 * The smallest and the largest key contained in each interval.
+	 */
+	long[] lows = new long[0], highs = new long[0];
+
+	/**
+	 * Stores the inclusiveness of the original start and end points of each interval.
+	 */
+	byte[] flags = new byte[0];
+
+	/**
+	 * The keys of the midpoints of the nodes.
+	 */
+	long[] midpoints = new long[0];
+
+	/**
+	 * Returns the size of the tree.
+	 *
+	 * @return The amount of intervals, stored in the tree.
+	 */
+	public int size(){
+		return size;
+	}
+
+	/**
+	 * Checks if the tree is empty.
+	 *
+	 * @return {@code true}, if there are no intervals stored in the tree.
+	 */
+	public boolean isEmpty(){
+		return size == 0;
+	}
+
+	/**
+	 * Removes all intervals from the tree. All handles returned so far become invalid.
+	 */
+	public void clear(){
+		root = NIL;
+		size = 0;
+		nodesUsed = 0;
+		freeNodeCount = 0;
+		slotsUsed = 0;
+		freeSlotCount = 0;
+	}
+
+	/**
+	 * Returns the handles of all intervals stored in the tree.
+	 *
+	 * @return A new array containing the handle of every interval in the tree exactly once.
+	 */
+	public int[] toArray(){
+		Handles out = new Handles();
+		collectSubtree(root, out);
+		return out.toArray();
+	}
+
+	/** Returns {@code true}, if the start point of the interval with the given handle is inclusive. */
+	public boolean isStartInclusive(int id){
+		return (flags[id] & START_INCLUSIVE) != 0;
+	}
+
+	/** Returns {@code true}, if the end point of the interval with the given handle is inclusive. */
+	public boolean isEndInclusive(int id){
+		return (flags[id] & END_INCLUSIVE) != 0;
+	}
+
+	/** Returns the key of the original start point of the interval with the given handle. */
+	long startKey(int id){
+		return (flags[id] & START_INCLUSIVE) != 0 ? lows[id] : lows[id] - 1;
+	}
+
+	/** Returns the key of the original end point of the interval with the given handle. */
+	long endKey(int id){
+		return (flags[id] & END_INCLUSIVE) != 0 ? highs[id] : highs[id] + 1;
+	}
+
+	/**
+	 * Adds an interval to the tree. If the interval is empty or an equal interval is already
+	 * stored in the tree, the interval is rejected.
+	 *
+	 * @param low The smallest key contained in the interval.
+	 * @param high The largest key contained in the interval.
+	 * @param flag The inclusiveness of the original start and end points.
+	 * @return The handle of the added interval, or -1 if the tree hasn't been modified.
+	 */
+	int insert(long low, long high, byte flag){
+		if (low > high)
+			return -1;
+		int id = allocateSlot();
+		lows[id] = low;
+		highs[id] = high;
+		flags[id] = flag;
+		int sizeBeforeOperation = size;
+		root = addInterval(root, id);
+		if (size == sizeBeforeOperation){
+			releaseSlot(id);
+			return -1;
+		}
+		return id;
+	}
+
+	/**
+	 * Removes a stored interval from the tree and releases its handle.
+	 *
+	 * @param id The handle of a stored interval.
+	 */
+	void delete(int id){
+		root = removeInterval(root, id);
+		releaseSlot(id);
+	}
+
+	private int allocateSlot(){
+		if (freeSlotCount > 0)
+			return freeSlots[--freeSlotCount];
+		if (slotsUsed == slotCapacity){
+			slotCapacity = Math.max(INITIAL_CAPACITY, slotCapacity + (slotCapacity >> 1));
+			lows = Arrays.copyOf(lows, slotCapacity);
+			highs = Arrays.copyOf(highs, slotCapacity);
+			flags = Arrays.copyOf(flags, slotCapacity);
+		}
+		return slotsUsed++;
+	}
+
+	private void releaseSlot(int id){
+		if (freeSlotCount == freeSlots.length)
+			freeSlots = Arrays.copyOf(freeSlots, Math.max(INITIAL_CAPACITY, freeSlotCount * 2));
+		freeSlots[freeSlotCount++] = id;
+	}
+
+	/**
+	 * Searches for the handle of a stored interval. This method uses binary search instead of
+	 * iteration over all intervals, which is why it runs in {@code O(logn)} worst-case time.
+	 *
+	 * @param low The smallest key contained in the interval.
+	 * @param high The largest key contained in the interval.
+	 * @param flag The inclusiveness of the original start and end points.
+	 * @return The handle of the interval, or -1 if the interval is not stored in the tree.
+	 */
+	int lookup(long low, long high, byte flag){
+		if (low > high)
+			return -1;
+		int node = root;
+		while (node != NIL){
+			long midpoint = midpoints[node];
+			if (low <= midpoint && midpoint <= high){
+				int[] ids = increasing[node];
+				int from = 0, to = counts[node] - 1;
+				while (from <= to){
+					int index = (from + to) >>> 1;
+					int id = ids[index];
+					int compare = compare(low, high, flag, id);
+					if (compare < 0)
+						to = index - 1;
+					else if (compare > 0)
+						from = index + 1;
+					else
+						return id;
+				}
+				return -1;
+			}
+			node = high < midpoint ? left[node] : right[node];
+		}
+		return -1;
+	}
+
+	/**
+	 * Searches for and returns all intervals stored in the tree, that contain a given
+	 * query key. This operation runs in {@code O(logn + k)}, where {@code n} is the
+	 * size of the tree and {@code k} is the amount of returned intervals.
+	 *
+	 * @param point The key of the query point.
+	 * @return The handles of all intervals from the tree, containing the query point.
+	 */
+	int[] queryPoint(long point){
+		Handles out = new Handles();
+		int node = root;
+		while (node != NIL){
+			int count = counts[node];
+			if (point <= midpoints[node]){
+				int[] ids = increasing[node];
+				for (int i = 0; i < count && lows[ids[i]] <= point; i++)
+					out.add(ids[i]);
+				node = left[node];
+			} else {
+				int[] ids = decreasing[node];
+				for (int i = 0; i < count && highs[ids[i]] >= point; i++)
+					out.add(ids[i]);
+				node = right[node];
+			}
+		}
+		return out.toArray();
+	}
+
+	/**
+	 * Searches for and returns all intervals stored in the tree, that intersect the closed
+	 * query interval [low, high] of keys. This operation runs in {@code O(logn + k)}, where
+	 * {@code n} is the size of the tree and {@code k} is the amount of returned intervals.
+	 *
+	 * @param low The smallest key contained in the query interval.
+	 * @param high The largest key contained in the query interval.
+	 * @return The handles of all intervals from the tree, intersecting the query interval.
+	 */
+	int[] queryRange(long low, long high){
+		Handles out = new Handles();
+		if (low > high)
+			return out.toArray();
+		int node = root;
+		while (node != NIL){
+			long midpoint = midpoints[node];
+			int count = counts[node];
+			if (low <= midpoint && midpoint <= high){
+				out.addAll(increasing[node], count);
+				rangeQueryLeft(left[node], low, out);
+				rangeQueryRight(right[node], high, out);
+				break;
+			}
+			if (high < midpoint){
+				int[] ids = increasing[node];
+				for (int i = 0; i < count && lows[ids[i]] <= high; i++)
+					out.add(ids[i]);
+				node = left[node];
+			} else {
+				int[] ids = decreasing[node];
+				for (int i = 0; i < count && highs[ids[i]] >= low; i++)
+					out.add(ids[i]);
+				node = right[node];
+			}
+		}
+		return out.toArray();
+	}
+
+	/**
+	 * The primitive counterpart of {@link TreeNode#rangeQueryLeft(TreeNode, Interval, IntervalVisitor)}.
+	 * The query interval is known to extend beyond the midpoints of all nodes in the subtree, so
+	 * only its start point matters.
+	 */
+	private void rangeQueryLeft(int node, long low, Handles out){
+		while (node != NIL){
+			if (low <= midpoints[node]){
+				out.addAll(increasing[node], counts[node]);
+				collectSubtree(right[node], out);
+				node = left[node];
+			} else {
+				int[] ids = decreasing[node];
+				for (int i = 0; i < counts[node] && highs[ids[i]] >= low; i++)
+					out.add(ids[i]);
+				node = right[node];
+			}
+		}
+	}
+
+	/**
+	 * The primitive counterpart of {@link TreeNode#rangeQueryRight(TreeNode, Interval, IntervalVisitor)}.
+	 * The query interval is known to extend beyond the midpoints of all nodes in the subtree, so
+	 * only its end point matters.
+	 */
+	private void rangeQueryRight(int node, long high, Handles out){
+		while (node != NIL){
+			if (midpoints[node] <= high){
+				out.addAll(increasing[node], counts[node]);
+				collectSubtree(left[node], out);
+				node = right[node];
+			} else {
+				int[] ids = increasing[node];
+				for (int i = 0; i < counts[node] && lows[ids[i]] <= high; i++)
+					out.add(ids[i]);
+				node = left[node];
+			}
+		}
+	}
+
+	/**
+	 * Sets the midpoint of a newly created node to the center of the interval with the given
+	 * handle. Subclasses may choose a different point, as long as the interval contains it.
+	 */
+	void assignMidpoint(int node, int id){
+		midpoints[node] = lows[id] + ((highs[id] - lows[id]) >>> 1);
+	}
+
+	/**
+	 * Compares an interval given by its keys to a stored interval in the order defined by
+	 * {@link #compareIncreasing(int, int)}.
+	 */
+	private int compare(long low, long high, byte flag, int id){
+		if (low != lows[id])
+			return low < lows[id] ? -1 : 1;
+		if (high != highs[id])
+			return high < highs[id] ? -1 : 1;
+		return flag - flags[id];
+	}
+
+	/**
+	 * Compares two stored intervals by their start points in ascending order. Intervals with
+	 * the same start point are ordered by their end points and by the inclusiveness of the
+	 * original points, so that the method returns 0 only for equal intervals.
+	 */
+	private int compareIncreasing(int a, int b){
+		return compare(lows[a], highs[a], flags[a], b);
+	}
+
+	/**
+	 * Compares two stored intervals by their end points in descending order. Intervals with
+	 * the same end point are ordered by their start points and by the inclusiveness of the
+	 * original points, so that the method returns 0 only for equal intervals.
+	 */
+	private int compareDecreasing(int a, int b){
+		if (highs[a] != highs[b])
+			return highs[a] > highs[b] ? -1 : 1;
+		if (lows[a] != lows[b])
+			return lows[a] > lows[b] ? -1 : 1;
+		return flags[a] - flags[b];
+	}
+
+	private boolean containsMidpoint(int id, int node){
+		return lows[id] <= midpoints[node] && midpoints[node] <= highs[id];
+	}
+
+	private boolean isLeftOfMidpoint(int id, int node){
+		return highs[id] < midpoints[node];
+	}
+
+	private int newNode(int id){
+		int node;
+		if (freeNodeCount > 0){
+			node = freeNodes[--freeNodeCount];
+		} else {
+			if (nodesUsed == nodeCapacity){
+				nodeCapacity = Math.max(INITIAL_CAPACITY, nodeCapacity + (nodeCapacity >> 1));
+				left = Arrays.copyOf(left, nodeCapacity);
+				right = Arrays.copyOf(right, nodeCapacity);
+				height = Arrays.copyOf(height, nodeCapacity);
+				counts = Arrays.copyOf(counts, nodeCapacity);
+				increasing = Arrays.copyOf(increasing, nodeCapacity);
+				decreasing = Arrays.copyOf(decreasing, nodeCapacity);
+				midpoints = Arrays.copyOf(midpoints, nodeCapacity);
+			}
+			node = nodesUsed++;
+		}
+		left[node] = NIL;
+		right[node] = NIL;
+		height[node] = 1;
+		counts[node] = 1;
+		increasing[node] = new int[]{id};
+		decreasing[node] = new int[]{id};
+		assignMidpoint(node, id);
+		return node;
+	}
+
+	private void releaseNode(int node){
+		increasing[node] = null;
+		decreasing[node] = null;
+		if (freeNodeCount == freeNodes.length)
+			freeNodes = Arrays.copyOf(freeNodes, Math.max(INITIAL_CAPACITY, freeNodeCount * 2));
+		freeNodes[freeNodeCount++] = node;
+	}
+
+	private int compare(int a, int b, boolean increasingOrder){
+		return increasingOrder ? compareIncreasing(a, b) : compareDecreasing(a, b);
+	}
+
+	/**
+	 * Performs a binary search for an interval within the first {@code count} elements of
+	 * a sorted array of handles.
+	 *
+	 * @return The index of the interval, if it is found, or {@code -(insertion point) - 1}
+	 *         otherwise, similarly to {@link Arrays#binarySearch(int[], int)}.
+	 */
+	private int search(int[] ids, int count, int id, boolean increasingOrder){
+		int low = 0, high = count - 1;
+		while (low <= high){
+			int mid = (low + high) >>> 1;
+			int compare = compare(ids[mid], id, increasingOrder);
+			if (compare < 0)
+				low = mid + 1;
+			else if (compare > 0)
+				high = mid - 1;
+			else
+				return mid;
+		}
+		return -(low + 1);
+	}
+
+	private static int[] insertAt(int[] ids, int count, int index, int id){
+		if (count == ids.length){
+			int[] grown = new int[Math.max(2, count + (count >> 1))];
+			System.arraycopy(ids, 0, grown, 0, index);
+			System.arraycopy(ids, index, grown, index + 1, count - index);
+			ids = grown;
+		} else {
+			System.arraycopy(ids, index, ids, index + 1, count - index);
+		}
+		ids[index] = id;
+		return ids;
+	}
+
+	private int height(int node){
+		return node == NIL ? 0 : height[node];
+	}
+
+	private void updateHeight(int node){
+		height[node] = Math.max(height(left[node]), height(right[node])) + 1;
+	}
+
+	/**
+	 * The primitive counterpart of {@link TreeNode#addInterval(IntervalTree, TreeNode, Interval)}.
+	 */
+	private int addInterval(int node, int id){
+		if (node == NIL){
+			size++;
+			return newNode(id);
+		}
+		if (containsMidpoint(id, node)){
+			int count = counts[node];
+			int index = search(increasing[node], count, id, true);
+			if (index >= 0)
+				return node;
+			increasing[node] = insertAt(increasing[node], count, -index - 1, id);
+			index = search(decreasing[node], count, id, false);
+			decreasing[node] = insertAt(decreasing[node], count, -index - 1, id);
+			counts[node]++;
+			size++;
+			return node;
+		}
+		// The child must be computed before the assignment, because adding a new
+		// node may replace the arrays of the tree.
+		if (isLeftOfMidpoint(id, node)){
+			int child = addInterval(left[node], id);
+			left[node] = child;
+		} else {
+			int child = addInterval(right[node], id);
+			right[node] = child;
+		}
+		updateHeight(node);
+		return balanceOut(node);
+	}
+
+	/**
+	 * The primitive counterpart of {@link TreeNode#removeInterval(IntervalTree, TreeNode, Interval)}.
+	 */
+	private int removeInterval(int node, int id){
+		if (node == NIL)
+			return NIL;
+		if (containsMidpoint(id, node)){
+			int count = counts[node];
+			int index = search(increasing[node], count, id, true);
+			if (index < 0)
+				return node;
+			System.arraycopy(increasing[node], index + 1, increasing[node], index, count - index - 1);
+			index = search(decreasing[node], count, id, false);
+			System.arraycopy(decreasing[node], index + 1, decreasing[node], index, count - index - 1);
+			counts[node]--;
+			size--;
+			if (counts[node] == 0)
+				return deleteNode(node);
+			return node;
+		} else if (isLeftOfMidpoint(id, node)){
+			left[node] = removeInterval(left[node], id);
+		} else {
+			right[node] = removeInterval(right[node], id);
+		}
+		updateHeight(node);
+		return balanceOut(node);
+	}
+
+	private int balanceOut(int node){
+		int balance = height(left[node]) - height(right[node]);
+		if (balance < -1){
+			// The tree is right-heavy.
+			if (height(left[right[node]]) > height(right[right[node]]))
+				right[node] = rightRotate(right[node]);
+			return leftRotate(node);
+		} else if (balance > 1){
+			// The tree is left-heavy.
+			if (height(right[left[node]]) > height(left[left[node]]))
+				left[node] = leftRotate(left[node]);
+			return rightRotate(node);
+		}
+		// The tree is already balanced.
+		return node;
+	}
+
+	private int leftRotate(int node){
+		int head = right[node];
+		right[node] = left[head];
+		updateHeight(node);
+		left[head] = assimilateOverlappingIntervals(head, node);
+		updateHeight(head);
+		return head;
+	}
+
+	private int rightRotate(int node){
+		int head = left[node];
+		left[node] = right[head];
+		updateHeight(node);
+		right[head] = assimilateOverlappingIntervals(head, node);
+		updateHeight(head);
+		return head;
+	}
+
+	/**
+	 * The primitive counterpart of {@link TreeNode#assimilateOverlappingIntervals(TreeNode)}.
+	 * Moves all intervals from the node {@code from} into the node {@code head}, if they contain
+	 * the midpoint of {@code head}. Since both sorted arrays are filtered in order, the moved
+	 * handles are already sorted and can simply be merged into the arrays of the {@code head}.
+	 *
+	 * @return The new root of the subtree, previously rooted at {@code from}.
+	 */
+	private int assimilateOverlappingIntervals(int head, int from){
+		int count = counts[from];
+		int[] moved = null;
+		int kept = 0, movedCount = 0;
+		int[] ids = increasing[from];
+		for (int i = 0; i < count; i++){
+			int id = ids[i];
+			if (containsMidpoint(id, head)){
+				if (moved == null)
+					moved = new int[count - i];
+				moved[movedCount++] = id;
+			} else {
+				ids[kept++] = id;
+			}
+		}
+		if (movedCount == 0)
+			return from;
+		increasing[head] = merge(increasing[head], counts[head], moved, movedCount, true);
+
+		ids = decreasing[from];
+		kept = 0;
+		movedCount = 0;
+		for (int i = 0; i < count; i++){
+			int id = ids[i];
+			if (containsMidpoint(id, head))
+				moved[movedCount++] = id;
+			else
+				ids[kept++] = id;
+		}
+		decreasing[head] = merge(decreasing[head], counts[head], moved, movedCount, false);
+		counts[head] += movedCount;
+		counts[from] = kept;
+
+		if (kept == 0)
+			return deleteNode(from);
+		return from;
+	}
+
+	private int[] merge(int[] ids, int count, int[] other, int otherCount, boolean increasingOrder){
+		int[] result = new int[count + otherCount];
+		int i = 0, j = 0, k = 0;
+		while (i < count && j < otherCount){
+			if (compare(ids[i], other[j], increasingOrder) < 0)
+				result[k++] = ids[i++];
+			else
+				result[k++] = other[j++];
+		}
+		while (i < count)
+			result[k++] = ids[i++];
+		while (j < otherCount)
+			result[k++] = other[j++];
+		return result;
+	}
+
+	/**
+	 * The primitive counterpart of {@link TreeNode#deleteNode(TreeNode)}. Deletes an empty
+	 * node by replacing it with the rightmost node of its left subtree.
+	 *
+	 * @return The new root of the subtree, rooted at the deleted node.
+	 */
+	private int deleteNode(int node){
+		int result;
+		if (left[node] == NIL){
+			// If the left child is empty, then the right subtree can consist of at most
+			// one node, otherwise it would have been unbalanced. So, just return
+			// the right child.
+			result = right[node];
+		} else {
+			int[] stack = new int[height[node]];
+			int depth = 0;
+			int next = left[node];
+			while (right[next] != NIL){
+				stack[depth++] = next;
+				next = right[next];
+			}
+			if (depth > 0){
+				right[stack[depth - 1]] = left[next];
+				left[next] = left[node];
+			}
+			right[next] = right[node];
+
+			int newRoot = next;
+			while (depth > 0){
+				next = stack[--depth];
+				updateHeight(next);
+				if (depth > 0)
+					right[stack[depth - 1]] = assimilateOverlappingIntervals(newRoot, next);
+				else
+					left[newRoot] = assimilateOverlappingIntervals(newRoot, next);
+			}
+			updateHeight(newRoot);
+			result = balanceOut(newRoot);
+		}
+		releaseNode(node);
+		return result;
+	}
+
+	/**
+	 * Converts the type of an interval to the flags stored for each interval. A missing
+	 * type is treated as {@link Bounded#CLOSED}.
+	 */
+	static byte flags(Bounded type){
+		if (type == null)
+			type = Bounded.CLOSED;
+		switch (type){
+			case OPEN:
+				return 0;
+			case CLOSED:
+				return START_INCLUSIVE | END_INCLUSIVE;
+			case CLOSED_RIGHT:
+				return END_INCLUSIVE;
+			default:
+				return START_INCLUSIVE;
+		}
+	}
+
+	/**
+	 * Returns the type of an interval object. Unbounded end points are treated as inclusive,
+	 * since the subclasses replace them by the smallest or largest value of their primitive type.
+	 */
+	static Bounded typeOf(Interval<?> interval){
+		boolean isStartInclusive = interval.getStart() == null || interval.isStartInclusive();
+		boolean isEndInclusive = interval.getEnd() == null || interval.isEndInclusive();
+		if (isStartInclusive)
+			return isEndInclusive ? Bounded.CLOSED : Bounded.CLOSED_LEFT;
+		return isEndInclusive ? Bounded.CLOSED_RIGHT : Bounded.OPEN;
+	}
+
+	/** Returns the smallest key contained in an interval starting at the given key. */
+	static long low(long start, byte flag){
+		return (flag & START_INCLUSIVE) != 0 ? start : start + 1;
+	}
+
+	/** Returns the largest key contained in an interval ending at the given key. */
+	static long high(long end, byte flag){
+		return (flag & END_INCLUSIVE) != 0 ? end : end - 1;
+	}
+
+	/**
+	 * Adds the handles of all intervals stored in the subtree rooted at a node to a buffer.
+	 */
+	void collectSubtree(int node, Handles out){
+		while (node != NIL){
+			collectSubtree(left[node], out);
+			out.addAll(increasing[node], counts[node]);
+			node = right[node];
+		}
+	}
+
+	/**
+	 * A growable buffer of interval handles, used to gather the results of a query.
+	 */
+	static final class Handles {
+		private int[] ids = new int[INITIAL_CAPACITY];
+		private int count;
+
+		void add(int id){
+			if (count == ids.length)
+				ids = Arrays.copyOf(ids, count * 2);
+			ids[count++] = id;
+		}
+
+		void addAll(int[] other, int otherCount){
+			if (count + otherCount > ids.length)
+				ids = Arrays.copyOf(ids, Math.max(count * 2, count + otherCount));
+			System.arraycopy(other, 0, ids, count, otherCount);
+			count += otherCount;
+		}
+
+		int[] toArray(){
+			return Arrays.copyOf(ids, count);
+		}
+	}
+}
@@ -0,0 +1,148 @@
+package com.lodborg.intervaltree;
+
+import java.util.*;
+
+/**
+ * A lazy iterator over the intervals in an {@link IntervalTree}, that intersect a query. It
+ * performs the same traversal as {@link IntervalTree#query(Interval, IntervalVisitor)}, but
+ * suspends it after every returned interval, instead of collecting all results up front.
+ *
+ * <p>
+ * The traversal goes through three phases. First, it descends from the root to the first node,
+ * whose midpoint is contained in the query, and returns the matching prefix of the ordered sets
+ * of every node on the way. Then it follows the left and the right branch of the range search
+ * below that node, just like {@link TreeNode#rangeQueryLeft(TreeNode, Interval, IntervalVisitor)}
+ * and {@link TreeNode#rangeQueryRight(TreeNode, Interval, IntervalVisitor)}. The iterator only
+ * keeps a cursor into the current node, a pending subtree iterator and the branch, which is yet
+ * to be followed, so it needs {@code O(logn)} memory regardless of the amount of results.
+ * </p>
+ * <p>
+ * The iterator doesn't support the {@code remove} operation. The tree must not be modified
+ * during the iteration.
+ * </p>
+ *
+ * @param <T> The type for the start and end point of the interval
+ */
+class QueryIterator<T extends Comparable<? super T>> implements Iterator<Interval<T>> {
+	private static final int DESCEND = 0, LEFT_BRANCH = 1, RIGHT_BRANCH = 2, DONE = 3;
+	private static final int ALL = 0, PREFIX_INCREASING = 1, PREFIX_DECREASING = 2;
+
+	private final OverlapQuery<T> query;
+	private int phase = DESCEND;
+
+	/**
+	 * The next node to be visited in the current phase, and the root of the right branch,
+	 * which is visited after the left one.
+	 */
+	private TreeNode<T> node, rightBranch;
+
+	/**
+	 * The intervals of the current node or subtree, and how they are filtered.
+	 */
+	private Iterator<Interval<T>> current = Collections.emptyIterator();
+	private int mode = ALL;
+
+	/**
+	 * A whole subtree entirely covered by the query, which is returned after the current node.
+	 */
+	private TreeNode<T> pendingSubtree;
+
+	private Interval<T> next;
+
+	QueryIterator(TreeNode<T> root, OverlapQuery<T> query){
+		this.query = query;
+		node = root;
+		next = fetch();
+	}
+
+	@Override
+	public boolean hasNext() {
+		return next != null;
+	}
+
+	@Override
+	public Interval<T> next() {
+		if (next == null)
+			throw new NoSuchElementException();
+		Interval<T> result = next;
+		next = fetch();
+		return result;
+	}
+
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * Continues the traversal until the next matching interval.
+	 *
+	 * @return The next matching interval, or {@code null}, if there are no more intervals.
+	 */
+	private Interval<T> fetch(){
+		while (true){
+			while (current.hasNext()){
+				Interval<T> candidate = current.next();
+				if (mode == ALL)
+					return candidate;
+				if (mode == PREFIX_INCREASING ? query.isRightOf(candidate) : query.isLeftOf(candidate)){
+					current = Collections.emptyIterator();
+					break;
+				}
+				if (query.intersects(candidate))
+					return candidate;
+			}
+			if (pendingSubtree != null){
+				current = pendingSubtree.iterator();
+				mode = ALL;
+				pendingSubtree = null;
+				continue;
+			}
+			if (phase == DONE)
+				return null;
+			if (node == null){
+				if (phase == LEFT_BRANCH){
+					phase = RIGHT_BRANCH;
+					node = rightBranch;
+				} else {
+					phase = DONE;
+				}
+				continue;
+			}
+			visit(node);
+		}
+	}
+
+	/**
+	 * Sets the cursor to the intervals of a node, which may intersect the query, and moves
+	 * on to the next node in the current phase.
+	 */
+	private void visit(TreeNode<T> visited){
+		int location = query.locate(visited.midpoint);
+		if (location == 0){
+			select(visited.increasing, ALL);
+			if (phase == DESCEND){
+				phase = LEFT_BRANCH;
+				rightBranch = visited.right;
+				node = visited.left;
+			} else if (phase == LEFT_BRANCH){
+				pendingSubtree = visited.right;
+				node = visited.left;
+			} else {
+				pendingSubtree = visited.left;
+				node = visited.right;
+			}
+		} else if (location < 0){
+			select(visited.increasing, PREFIX_INCREASING);
+			node = visited.left;
+		} else {
+			select(visited.decreasing, PREFIX_DECREASING);
+			node = visited.right;
+		}
+	}
+
+	private void select(SortedIntervalSet<T> set, int mode){
+		current = set.iterator();
+		this.mode = mode;
+	}
+}
@@ -0,0 +1,75 @@
+package com.lodborg.intervaltree;
+
+import java.util.*;
+
+/**
+ * A single page of the results of a limited query on an {@link IntervalTree}. See
+ * {@link IntervalTree#query(Interval, int)}.
+ *
+ * <p>
+ * Besides the intervals on the page, it provides an opaque {@link Cursor}, which suspends the
+ * traversal of the tree right after the last interval on the page. Passing the cursor to
+ * {@link IntervalTree#query(Cursor, int)} continues the traversal from this position, so the
+ * next page costs {@code O(limit)} time instead of repeating the query from the start. The pages
+ * are returned in the order of the traversal, which is deterministic for a given tree, and every
+ * intersecting interval appears on exactly one page.
+ * </p>
+ *
+ * @param <T> The type for the start and end point of the interval
+ */
+public final class QueryPage<T extends Comparable<? super T>> {
+	private final List<Interval<T>> intervals;
+	private final Cursor<T> cursor;
+
+	QueryPage(List<Interval<T>> intervals, Cursor<T> cursor){
+		this.intervals = Collections.unmodifiableList(intervals);
+		this.cursor = cursor;
+	}
+
+	/**
+	 * Returns the intervals on this page.
+	 *
+	 * @return An unmodifiable list of at most {@code limit} intervals.
+	 */
+	public List<Interval<T>> getIntervals(){
+		return intervals;
+	}
+
+	/**
+	 * Checks if there are more intersecting intervals after this page.
+	 *
+	 * @return {@code true}, if there is a next page, or {@code false} otherwise.
+	 */
+	public boolean hasMore(){
+		return cursor != null;
+	}
+
+	/**
+	 * Returns the cursor pointing right after the last interval on this page.
+	 *
+	 * @return The cursor for the next page, or {@code null}, if this is the last page.
+	 */
+	public Cursor<T> getCursor(){
+		return cursor;
+	}
+
+	/**
+	 * An opaque position in the traversal of a limited query. A cursor is only valid for the tree
+	 * that created it, as long as the tree is not modified. Since it holds the suspended traversal
+	 * itself, it can be used only once.
+	 *
+	 * @param <T> The type for the start and end point of the interval
+	 */
+	public static final class Cursor<T extends Comparable<? super T>> {
+		final IntervalTree<T> tree;
+		final QueryIterator<T> iterator;
+		final int expectedModCount;
+		boolean used;
+
+		Cursor(IntervalTree<T> tree, QueryIterator<T> iterator, int expectedModCount){
+			this.tree = tree;
+			this.iterator = iterator;
+			this.expectedModCount = expectedModCount;
+		}
+	}
+}
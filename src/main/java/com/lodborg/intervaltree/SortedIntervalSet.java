@@ -0,0 +1,633 @@
+package com.lodborg.intervaltree;
+
+import java.util.*;
+
+/**
+ * A sorted set of intervals, used by the {@link TreeNode}s to store their intervals.
+ * <p>
+ * The majority of the nodes in an {@link IntervalTree} store only a handful of intervals. For them
+ * a {@link TreeSet} is an expensive choice - every interval costs a separate red-black tree entry
+ * and iterating through the set means following pointers from one entry to the next. The
+ * {@code SortedIntervalSet} adapts its representation to the amount of stored intervals instead.
+ * Small sets keep their intervals in a compact sorted array. New intervals are inserted at the
+ * position found by binary search and scans run over consecutive array slots. Only once a set
+ * grows beyond {@link #MAX_ARRAY_SIZE} intervals, it switches to a {@link TreeSet}, so that
+ * insertions and removals in very large nodes don't degrade to linear time. A set that shrinks
+ * below {@link #MIN_TREE_SIZE} intervals switches back to an array. The gap between the two
+ * thresholds prevents a set from switching back and forth on every operation.
+ * </p>
+ * <p>
+ * The order of the intervals is defined by a {@link Comparator}, which is one of
+ * {@link Interval#sweepLeftToRight} or {@link Interval#sweepRightToLeft}. Just like a
+ * {@code TreeSet}, the set considers two intervals equal, if the comparator returns 0 for them.
+ * </p>
+ *
+ * @param <T> The type for the start and end point of the interval
+ */
+public class SortedIntervalSet<T extends Comparable<? super T>> extends AbstractSet<Interval<T>> {
+	/**
+	 * The maximal amount of intervals stored in an array. A set that grows beyond this size
+	 * switches to a {@link TreeSet}.
+	 */
+	static final int MAX_ARRAY_SIZE = 128;
+
+	/**
+	 * A set stored in a {@link TreeSet}, whose size drops below this value, switches back
+	 * to an array.
+	 */
+	static final int MIN_TREE_SIZE = 32;
+
+	private static final int INITIAL_CAPACITY = 2;
+
+	private final Comparator<? super Interval<T>> comparator;
+
+	/**
+	 * The sorted intervals, if the set is in array mode. The slots at index {@code size} or
+	 * greater are always {@code null}.
+	 */
+	private Interval<T>[] elements;
+	private int size;
+
+	/**
+	 * The intervals, if the set is in tree mode, or {@code null} otherwise.
+	 */
+	private TreeSet<Interval<T>> tree;
+
+	/**
+	 * The amount of structural modifications performed on the set in array mode. Used by the
+	 * iterator to detect concurrent modifications.
+	 */
+	private int modCount;
+
+	/**
+	 * Instantiates a new empty set.
+	 *
+	 * @param comparator The comparator defining the order of the intervals.
+	 */
+	@SuppressWarnings("unchecked")
+	public SortedIntervalSet(Comparator<? super Interval<T>> comparator){
+		this.comparator = comparator;
+		elements = (Interval<T>[]) new Interval<?>[INITIAL_CAPACITY];
+	}
+
+	@Override
+	public boolean add(Interval<T> interval){
+		if (tree != null)
+			return tree.add(interval);
+		int index = indexOf(interval);
+		if (index >= 0)
+			return false;
+		if (size == MAX_ARRAY_SIZE){
+			switchToTree();
+			return tree.add(interval);
+		}
+		index = -index - 1;
+		if (size == elements.length)
+			elements = Arrays.copyOf(elements, Math.min(MAX_ARRAY_SIZE, size + (size >> 1) + 1));
+		System.arraycopy(elements, index, elements, index + 1, size - index);
+		elements[index] = interval;
+		size++;
+		modCount++;
+		return true;
+	}
+
+	@Override
+	public boolean addAll(Collection<? extends Interval<T>> c){
+		if (tree == null && size + c.size() > MAX_ARRAY_SIZE)
+			switchToTree();
+		if (tree != null)
+			return tree.addAll(c);
+		boolean modified = false;
+		for (Interval<T> next: c){
+			if (add(next))
+				modified = true;
+		}
+		return modified;
+	}
+
+	/**
+	 * Fills an empty set with distinct intervals, which are already sorted by the comparator of
+	 * the set. Unlike adding them one by one, this takes linear time in both array and tree mode.
+	 *
+	 * @param sorted The sorted intervals.
+	 */
+	@SuppressWarnings("unchecked")
+	void fillSorted(final List<Interval<T>> sorted){
+		if (sorted.size() <= MAX_ARRAY_SIZE){
+			elements = sorted.toArray((Interval<T>[]) new Interval<?>[Math.max(sorted.size(), INITIAL_CAPACITY)]);
+			size = sorted.size();
+			modCount++;
+			return;
+		}
+		// A TreeSet copies a SortedSet with the same comparator without comparing its elements
+		tree = new TreeSet<>(comparator);
+		tree.addAll(new SortedListView(sorted));
+	}
+
+	@Override
+	public boolean remove(Object o){
+		if (tree != null){
+			if (!tree.remove(o))
+				return false;
+			if (tree.size() < MIN_TREE_SIZE)
+				switchToArray();
+			return true;
+		}
+		int index = indexOf(o);
+		if (index < 0)
+			return false;
+		removeAt(index);
+		return true;
+	}
+
+	/**
+	 * Removes all intervals contained in a given collection. In array mode, the remaining
+	 * intervals are compacted in a single pass, instead of shifting the array once for
+	 * each removed interval.
+	 */
+	@Override
+	public boolean removeAll(Collection<?> c){
+		if (tree != null){
+			boolean modified = false;
+			for (Object next: c){
+				if (tree.remove(next))
+					modified = true;
+			}
+			if (tree.size() < MIN_TREE_SIZE)
+				switchToArray();
+			return modified;
+		}
+		boolean[] removed = new boolean[size];
+		boolean modified = false;
+		for (Object next: c){
+			int index = indexOf(next);
+			if (index >= 0){
+				removed[index] = true;
+				modified = true;
+			}
+		}
+		if (!modified)
+			return false;
+		int count = 0;
+		for (int i = 0; i < size; i++){
+			if (!removed[i])
+				elements[count++] = elements[i];
+		}
+		Arrays.fill(elements, count, size, null);
+		size = count;
+		modCount++;
+		return true;
+	}
+
+	@Override
+	public boolean contains(Object o){
+		if (tree != null)
+			return tree.contains(o);
+		return indexOf(o) >= 0;
+	}
+
+	@Override
+	public int size(){
+		return tree == null ? size : tree.size();
+	}
+
+	@Override
+	public void clear(){
+		tree = null;
+		Arrays.fill(elements, 0, size, null);
+		size = 0;
+		modCount++;
+	}
+
+	/**
+	 * Returns an iterator over the intervals in the order defined by the comparator of the
+	 * set. In array mode, the iterator runs over the array slots directly. The iterator supports
+	 * the {@code remove} operation.
+	 */
+	@Override
+	public Iterator<Interval<T>> iterator(){
+		if (tree != null)
+			return tree.iterator();
+		return new Iterator<Interval<T>>() {
+			private int index;
+			private int last = -1;
+			private int expectedModCount = modCount;
+
+			@Override
+			public boolean hasNext() {
+				return index < size;
+			}
+
+			@Override
+			public Interval<T> next() {
+				if (expectedModCount != modCount)
+					throw new ConcurrentModificationException();
+				if (index >= size)
+					throw new NoSuchElementException();
+				last = index++;
+				return elements[last];
+			}
+
+			@Override
+			public void remove() {
+				if (last < 0)
+					throw new IllegalStateException();
+				if (expectedModCount != modCount)
+					throw new ConcurrentModificationException();
+				removeAt(last);
+				index = last;
+				last = -1;
+				expectedModCount = modCount;
+			}
+		};
+	}
+
+	/**
+	 * Returns an iterator over the intervals in the reverse order of the set. The iterator
+	 * doesn't support the {@code remove} operation.
+	 */
+	Iterator<Interval<T>> descendingIterator(){
+		if (tree != null)
+			return Collections.unmodifiableSet(tree.descendingSet()).iterator();
+		return arrayIterator(size, true);
+	}
+
+	/**
+	 * Returns an iterator over the first {@code count} intervals of the set in reverse order. In
+	 * tree mode, the intervals after the prefix are skipped by iteration. The iterator doesn't
+	 * support the {@code remove} operation.
+	 *
+	 * @param count The length of the prefix.
+	 */
+	Iterator<Interval<T>> descendingPrefixIterator(int count){
+		if (tree != null){
+			Iterator<Interval<T>> it = descendingIterator();
+			for (int i = tree.size() - count; i > 0; i--)
+				it.next();
+			return it;
+		}
+		return arrayIterator(count, true);
+	}
+
+	/**
+	 * Returns a read-only iterator over the array slots, starting at a given index. A descending
+	 * iterator starts right before the index.
+	 */
+	private Iterator<Interval<T>> arrayIterator(final int start, final boolean descending){
+		return new Iterator<Interval<T>>() {
+			private int index = start;
+			private int expectedModCount = modCount;
+
+			@Override
+			public boolean hasNext() {
+				return descending ? index > 0 : index < size;
+			}
+
+			@Override
+			public Interval<T> next() {
+				if (expectedModCount != modCount)
+					throw new ConcurrentModificationException();
+				if (!hasNext())
+					throw new NoSuchElementException();
+				return descending ? elements[--index] : elements[index++];
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	/**
+	 * Returns an iterator over the intervals, whose start points are not before a given point,
+	 * in the order of the set. The set must be ordered by {@link Interval#sweepLeftToRight}, so
+	 * that the skipped intervals form a prefix. In array mode, the prefix is skipped by binary
+	 * search, and in tree mode by a {@link TreeSet#tailSet(Object, boolean)} view. The iterator
+	 * doesn't support the {@code remove} operation.
+	 *
+	 * @param point The lower bound for the start points.
+	 * @param inclusive {@code true}, if intervals starting at the point are returned as well.
+	 */
+	Iterator<Interval<T>> tailIterator(T point, boolean inclusive){
+		if (tree != null){
+			// Placed before all intervals starting at the point, or after all of them
+			Interval<T> probe = inclusive
+					? tree.first().create(point, true, point, false)
+					: tree.first().create(point, false, null, false);
+			return Collections.unmodifiableSet(tree.tailSet(probe, inclusive)).iterator();
+		}
+		int from = 0, to = size;
+		while (from < to){
+			int mid = (from + to) >>> 1;
+			if (startsBefore(elements[mid], point, inclusive))
+				from = mid + 1;
+			else
+				to = mid;
+		}
+		return arrayIterator(from, false);
+	}
+
+	/**
+	 * Returns an iterator over the intervals, whose start points are not after a given point,
+	 * in the reverse order of the set. This is the mirror image of {@link #tailIterator(Comparable, boolean)}.
+	 *
+	 * @param point The upper bound for the start points.
+	 * @param inclusive {@code true}, if intervals starting at the point are returned as well.
+	 */
+	Iterator<Interval<T>> headDescendingIterator(T point, boolean inclusive){
+		if (tree != null){
+			Interval<T> probe = inclusive
+					? tree.first().create(point, false, null, false)
+					: tree.first().create(point, true, point, false);
+			return Collections.unmodifiableSet(tree.headSet(probe, inclusive).descendingSet()).iterator();
+		}
+		int from = 0, to = size;
+		while (from < to){
+			int mid = (from + to) >>> 1;
+			if (startsAfter(elements[mid], point, inclusive))
+				to = mid;
+			else
+				from = mid + 1;
+		}
+		return arrayIterator(from, true);
+	}
+
+	/**
+	 * Checks if an interval starts before a point. A start point equal to the point counts as
+	 * before it, only if the point itself is not {@code inclusive}.
+	 */
+	static <T extends Comparable<? super T>> boolean startsBefore(Interval<T> interval, T point, boolean inclusive){
+		if (interval.getStart() == null)
+			return true;
+		int compare = interval.getStart().compareTo(point);
+		return compare < 0 || compare == 0 && !inclusive;
+	}
+
+	/**
+	 * Checks if an interval starts after a point. A start point equal to the point counts as
+	 * after it, only if the point itself is not {@code inclusive}.
+	 */
+	static <T extends Comparable<? super T>> boolean startsAfter(Interval<T> interval, T point, boolean inclusive){
+		if (interval.getStart() == null)
+			return false;
+		int compare = interval.getStart().compareTo(point);
+		return compare > 0 || compare == 0 && !inclusive;
+	}
+
+	/**
+	 * Passes all intervals to a visitor, in the order of the set. In array mode, the visitor
+	 * receives the array slots directly, without an iterator being created.
+	 *
+	 * @return {@code true}, if all intervals have been visited, or {@code false}, if
+	 *         the visitor has stopped the traversal.
+	 */
+	boolean visitAll(IntervalVisitor<T> visitor){
+		if (tree != null){
+			for (Interval<T> next: tree){
+				if (!visitor.visit(next))
+					return false;
+			}
+			return true;
+		}
+		for (int i = 0; i < size; i++){
+			if (!visitor.visit(elements[i]))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Passes the intervals at the beginning of the set to a visitor, until the first interval
+	 * beyond a bound. In a set ordered by {@link Interval#sweepLeftToRight}, an interval is beyond
+	 * the bound, if it is entirely right of it, and in a set ordered by {@link Interval#sweepRightToLeft},
+	 * if it is entirely left of it. In array mode, the array slots are scanned directly, without an
+	 * iterator being created.
+	 *
+	 * @param bound The bound. If it is {@code null}, no interval is beyond it.
+	 * @param inclusive {@code true}, if an interval ending or starting at the bound is not beyond
+	 *                  it, as long as it contains its end point.
+	 * @param filter If not {@code null}, only the intervals intersecting the filter are visited.
+	 * @param visitor The visitor.
+	 * @return {@code true}, if the whole prefix has been visited, or {@code false}, if
+	 *         the visitor has stopped the traversal.
+	 */
+	boolean visitPrefix(T bound, boolean inclusive, Interval<T> filter, IntervalVisitor<T> visitor){
+		boolean byEnd = comparator == Interval.sweepRightToLeft;
+		if (tree != null){
+			for (Interval<T> next: tree){
+				if (byEnd ? next.isLeftOf(bound, inclusive) : next.isRightOf(bound, inclusive))
+					return true;
+				if ((filter == null || filter.intersects(next)) && !visitor.visit(next))
+					return false;
+			}
+			return true;
+		}
+		for (int i = 0; i < size; i++){
+			Interval<T> next = elements[i];
+			if (byEnd ? next.isLeftOf(bound, inclusive) : next.isRightOf(bound, inclusive))
+				return true;
+			if ((filter == null || filter.intersects(next)) && !visitor.visit(next))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the first interval in the order of the set.
+	 *
+	 * @return The first interval, or {@code null}, if the set is empty.
+	 */
+	Interval<T> first(){
+		if (tree != null)
+			return tree.first();
+		return elements[0];
+	}
+
+	/**
+	 * Counts the intervals at the beginning of the set, which intersect a query. The intervals
+	 * intersecting the query must form a prefix of the set in its order, which is the case for
+	 * all queries the {@link TreeNode}s perform on their intervals. In array mode, the end of the
+	 * prefix is found by binary search. In tree mode, the prefix ends at a {@link #probe(OverlapQuery)},
+	 * and the views before and after the probe are iterated at the same time, so the operation
+	 * takes {@code O(log(n) + min(k, n-k))} time, where {@code k} is the returned amount and
+	 * {@code n} is the size of the set.
+	 *
+	 * @param query The query.
+	 * @return The amount of intervals in the set, intersecting the query.
+	 */
+	int countPrefix(OverlapQuery<T> query){
+		if (tree != null){
+			Interval<T> probe = probe(query);
+			int count = tree.size();
+			NavigableSet<Interval<T>> head = tree;
+			if (probe != null){
+				head = tree.headSet(probe, false);
+				Iterator<Interval<T>> before = head.iterator();
+				Iterator<Interval<T>> after = tree.tailSet(probe, true).iterator();
+				count = 0;
+				while (before.hasNext() && after.hasNext()){
+					before.next();
+					after.next();
+					count++;
+				}
+				if (before.hasNext())
+					count = tree.size() - count;
+			}
+			for (Iterator<Interval<T>> it = head.descendingIterator(); it.hasNext() && !query.intersects(it.next()); )
+				count--;
+			return count;
+		}
+		return prefixEnd(query);
+	}
+
+	/**
+	 * Returns the first interval in the set, which doesn't intersect a query. Just like for
+	 * {@link #countPrefix(OverlapQuery)}, the intervals intersecting the query must form a
+	 * prefix of the set. In tree mode, the interval is found next to the {@link #probe(OverlapQuery)}.
+	 *
+	 * @param query The query.
+	 * @return The first interval after the prefix, or {@code null}, if all intervals in the
+	 *         set intersect the query.
+	 */
+	Interval<T> firstNotIntersecting(OverlapQuery<T> query){
+		if (tree != null){
+			Interval<T> probe = probe(query);
+			Interval<T> first = probe == null ? null : tree.ceiling(probe);
+			NavigableSet<Interval<T>> head = probe == null ? tree : tree.headSet(probe, false);
+			for (Interval<T> next: head.descendingSet()){
+				if (query.intersects(next))
+					break;
+				first = next;
+			}
+			return first;
+		}
+		int index = prefixEnd(query);
+		return index < size ? elements[index] : null;
+	}
+
+	/**
+	 * Creates an interval, which the comparator of the set places after all intervals intersecting
+	 * a query and before all other intervals, as long as the points are compared like real numbers.
+	 * For discrete types, a few intervals right before the probe may still miss the query. For
+	 * example, {@code (4, 10]} is placed before the probe of {@code [0, 5)}, but the two
+	 * {@link IntegerInterval}s don't intersect. The set must be in tree mode.
+	 *
+	 * @return The probe, or {@code null}, if the query is unbounded in the direction of the
+	 *         order of the set, so that no interval is placed after the intersecting ones.
+	 */
+	private Interval<T> probe(OverlapQuery<T> query){
+		Interval<T> reference = tree.first();
+		Interval<T> bounds = query.bounds(reference);
+		if (comparator == Interval.sweepRightToLeft){
+			T start = bounds.getStart();
+			return start == null ? null : reference.create(start, false, start, !bounds.isStartInclusive());
+		}
+		T end = bounds.getEnd();
+		return end == null ? null : reference.create(end, !bounds.isEndInclusive(), end, false);
+	}
+
+	/**
+	 * Finds the end of the prefix of intervals intersecting a query in the sorted array by
+	 * binary search.
+	 */
+	private int prefixEnd(OverlapQuery<T> query){
+		int from = 0, to = size;
+		while (from < to){
+			int mid = (from + to) >>> 1;
+			if (query.intersects(elements[mid]))
+				from = mid + 1;
+			else
+				to = mid;
+		}
+		return from;
+	}
+
+	/**
+	 * Searches for an object in the sorted array.
+	 *
+	 * @return The index of the object, if it is stored in the set, or {@code -(insertion point) - 1}
+	 *         otherwise, following the contract of {@link Arrays#binarySearch(Object[], Object)}.
+	 */
+	@SuppressWarnings("unchecked")
+	private int indexOf(Object o){
+		if (!(o instanceof Interval))
+			return -1;
+		return Arrays.binarySearch(elements, 0, size, (Interval<T>) o, comparator);
+	}
+
+	private void removeAt(int index){
+		System.arraycopy(elements, index + 1, elements, index, size - index - 1);
+		elements[--size] = null;
+		modCount++;
+	}
+
+	@SuppressWarnings("unchecked")
+	private void switchToTree(){
+		tree = new TreeSet<>(comparator);
+		tree.addAll(Arrays.asList(elements).subList(0, size));
+		elements = (Interval<T>[]) new Interval<?>[INITIAL_CAPACITY];
+		size = 0;
+		modCount++;
+	}
+
+	@SuppressWarnings("unchecked")
+	private void switchToArray(){
+		elements = tree.toArray((Interval<T>[]) new Interval<?>[Math.max(tree.size(), INITIAL_CAPACITY)]);
+		size = tree.size();
+		tree = null;
+		modCount++;
+	}
+
+	/**
+	 * A read-only {@link SortedSet} view of a list of intervals, which is already sorted by the
+	 * comparator of the set. It only supports the operations needed for copying it.
+	 */
+	private class SortedListView extends AbstractSet<Interval<T>> implements SortedSet<Interval<T>> {
+		private final List<Interval<T>> list;
+
+		SortedListView(List<Interval<T>> list){
+			this.list = list;
+		}
+
+		@Override
+		public Comparator<? super Interval<T>> comparator() {
+			return comparator;
+		}
+
+		@Override
+		public Iterator<Interval<T>> iterator() {
+			return list.iterator();
+		}
+
+		@Override
+		public int size() {
+			return list.size();
+		}
+
+		@Override
+		public Interval<T> first() {
+			return list.get(0);
+		}
+
+		@Override
+		public Interval<T> last() {
+			return list.get(list.size() - 1);
+		}
+
+		@Override
+		public SortedSet<Interval<T>> subSet(Interval<T> fromElement, Interval<T> toElement) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public SortedSet<Interval<T>> headSet(Interval<T> toElement) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public SortedSet<Interval<T>> tailSet(Interval<T> fromElement) {
+			throw new UnsupportedOperationException();
+		}
+	}
+}
@@ -0,0 +1,399 @@
+package com.lodborg.intervaltree;
+
+import java.util.*;
+
+/**
+ * An immutable centered interval tree, that is built once from a batch of intervals and
+ * can only be queried afterwards. It answers the same queries as the {@link IntervalTree},
+ * but is meant for sets of intervals that are known in advance and never change, for example
+ * a snapshot of a database table.
+ *
+ * <p>
+ * The tree is created via the {@link #build(Collection)} method. Instead of adding the intervals
+ * one by one and rebalancing the tree after each insertion, the intervals are sorted once and
+ * the midpoint of every node is chosen as the median of points within the intervals in its
+ * subtree. This guarantees that the tree has a height of at most {@code O(logn)} without
+ * a single rotation and that the tree is built in {@code O(nlogn)} time.
+ * </p>
+ * <p>
+ * The nodes are laid out in flat arrays in pre-order. The intervals of each node are stored
+ * in two flat arrays - one ordered by the start points and one ordered by the end points
+ * of the intervals - where the intervals of every node, as well as the intervals of every
+ * subtree, occupy a contiguous range. Queries therefore scan arrays instead of chasing pointers
+ * through {@link TreeSet}s, and reporting all intervals of a subtree is a single pass over
+ * a range of an array.
+ * </p>
+ * <p>
+ * Just like the {@link IntervalTree}, the tree functions as a set. Duplicate intervals, as well as
+ * {@code null} and empty intervals are discarded during the construction. Any attempt to modify
+ * the tree will result in an {@link UnsupportedOperationException}.
+ * </p>
+ *
+ * @param <T> The type for the start and end point of the interval
+ */
+public class StaticIntervalTree<T extends Comparable<? super T>> extends ImmutableIntervalSet<T> {
+	private static final int NIL = -1;
+	private static final byte LEFT = 0, RIGHT = 1, CENTER = 2;
+
+	/**
+	 * The index of the root node, or {@link #NIL}, if the tree is empty.
+	 */
+	private final int root;
+
+	/**
+	 * The midpoints of the nodes.
+	 */
+	private final Object[] midpoints;
+
+	/**
+	 * The indices of the left and right children of the nodes, or {@link #NIL}, if the
+	 * node doesn't have a child.
+	 */
+	private final int[] left, right;
+
+	/**
+	 * The index following the last node in the subtree of a node. Since the nodes are laid out
+	 * in pre-order, the subtree of node {@code i} consists of the nodes from {@code i} to
+	 * {@code subtreeEnds[i] - 1}.
+	 */
+	private final int[] subtreeEnds;
+
+	/**
+	 * The intervals of node {@code i} are stored in the range from {@code offsets[i]} to
+	 * {@code offsets[i+1] - 1} in both {@link #increasing} and {@link #decreasing}.
+	 */
+	private final int[] offsets;
+
+	/**
+	 * All intervals stored in the tree, grouped by nodes. The intervals of each node are
+	 * ordered by their start points. This is the same array as {@link #intervals}.
+	 * @see Interval#sweepLeftToRight
+	 */
+	private final Interval<T>[] increasing;
+
+	/**
+	 * All intervals stored in the tree, grouped by nodes. The intervals of each node are
+	 * ordered by their end points.
+	 * @see Interval#sweepRightToLeft
+	 */
+	private final Interval<T>[] decreasing;
+
+	/**
+	 * The index, at which the intervals not stored in any node start in both {@link #increasing}
+	 * and {@link #decreasing}. These intervals don't contain any point, which can be computed,
+	 * like the open interval between two adjacent {@code Double}s, so they can't be assigned to
+	 * a node. They are rare and every query checks them one by one.
+	 */
+	private final int unstabbed;
+
+	private StaticIntervalTree(Builder<T> builder){
+		super(builder.increasing);
+		root = builder.nodes == 0 ? NIL : 0;
+		midpoints = Arrays.copyOf(builder.midpoints, builder.nodes);
+		left = Arrays.copyOf(builder.left, builder.nodes);
+		right = Arrays.copyOf(builder.right, builder.nodes);
+		subtreeEnds = Arrays.copyOf(builder.subtreeEnds, builder.nodes);
+		offsets = Arrays.copyOf(builder.offsets, builder.nodes + 1);
+		increasing = builder.increasing;
+		decreasing = builder.decreasing;
+		unstabbed = builder.unstabbed;
+	}
+
+	/**
+	 * Builds a new static interval tree containing all intervals from a collection. This
+	 * operation runs in {@code O(nlogn)} time, where {@code n} is the size of the collection.
+	 *
+	 * @param intervals The intervals to be stored in the tree. {@code null} and empty intervals, as
+	 *                  well as duplicates, are discarded.
+	 * @param <T> The type for the start and end point of the intervals.
+	 * @return A new tree containing the intervals.
+	 */
+	public static <T extends Comparable<? super T>> StaticIntervalTree<T> build(Collection<? extends Interval<T>> intervals){
+		return new StaticIntervalTree<>(new Builder<T>(intervals));
+	}
+
+	/**
+	 * Searches for and returns all intervals stored in the tree, that contain a given
+	 * query point. This operation is guaranteed to run in {@code O(logn + k)}, where
+	 * {@code n} is the size of the tree and {@code k} is the size of the returned set.
+	 *
+	 * @param point The query point.
+	 * @return A set containing all intervals from the tree, intersecting the query point.
+	 * @see IntervalTree#query(Comparable)
+	 */
+	public Set<Interval<T>> query(T point){
+		Set<Interval<T>> result = new HashSet<>();
+		int node = root;
+		while (node != NIL){
+			int end = offsets[node + 1];
+			if (point.compareTo(midpoint(node)) <= 0){
+				for (int i = offsets[node]; i < end && !increasing[i].isRightOf(point); i++)
+					result.add(increasing[i]);
+				node = left[node];
+			} else {
+				for (int i = offsets[node]; i < end && !decreasing[i].isLeftOf(point); i++)
+					result.add(decreasing[i]);
+				node = right[node];
+			}
+		}
+		for (int i = unstabbed; i < increasing.length; i++){
+			if (increasing[i].contains(point))
+				result.add(increasing[i]);
+		}
+		return result;
+	}
+
+	/**
+	 * Searches for and returns all intervals stored in the tree, that intersect a given
+	 * query interval. This operation is guaranteed to run in {@code O(logn + k)}, where
+	 * {@code n} is the size of the tree and {@code k} is the size of the returned set.
+	 *
+	 * @param interval The query interval.
+	 * @return A set containing all intervals from the tree, intersecting the query interval.
+	 * @see IntervalTree#query(Interval)
+	 */
+	public Set<Interval<T>> query(Interval<T> interval){
+		Set<Interval<T>> result = new HashSet<>();
+		if (interval.isEmpty())
+			return result;
+		for (int i = unstabbed; i < increasing.length; i++){
+			if (interval.intersects(increasing[i]))
+				result.add(increasing[i]);
+		}
+		int node = root;
+		while (node != NIL){
+			T midpoint = midpoint(node);
+			int end = offsets[node + 1];
+			if (interval.contains(midpoint)){
+				addRange(offsets[node], end, result);
+				rangeQueryLeft(left[node], interval, result);
+				rangeQueryRight(right[node], interval, result);
+				break;
+			}
+			if (interval.isLeftOf(midpoint)){
+				for (int i = offsets[node]; i < end && interval.intersects(increasing[i]); i++)
+					result.add(increasing[i]);
+				node = left[node];
+			} else {
+				for (int i = offsets[node]; i < end && interval.intersects(decreasing[i]); i++)
+					result.add(decreasing[i]);
+				node = right[node];
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * The flat counterpart of {@link TreeNode#rangeQueryLeft(TreeNode, Interval, IntervalVisitor)}. The
+	 * right subtree of every node containing the query's start point is reported as a whole.
+	 * Intervals that are not left of the query, but still don't intersect it, such as the
+	 * {@link IntegerInterval}s (1, 5) and (4, 8), are skipped without ending the scan.
+	 */
+	private void rangeQueryLeft(int node, Interval<T> query, Set<Interval<T>> result){
+		while (node != NIL){
+			if (query.contains(midpoint(node))){
+				addRange(offsets[node], offsets[node + 1], result);
+				if (right[node] != NIL)
+					addRange(offsets[right[node]], offsets[subtreeEnds[right[node]]], result);
+				node = left[node];
+			} else {
+				int end = offsets[node + 1];
+				for (int i = offsets[node]; i < end && !decreasing[i].isLeftOf(query); i++){
+					if (query.intersects(decreasing[i]))
+						result.add(decreasing[i]);
+				}
+				node = right[node];
+			}
+		}
+	}
+
+	/**
+	 * The flat counterpart of {@link TreeNode#rangeQueryRight(TreeNode, Interval, IntervalVisitor)}. The
+	 * left subtree of every node containing the query's end point is reported as a whole.
+	 * See {@link #rangeQueryLeft(int, Interval, Set)} for the handling of non-intersecting intervals.
+	 */
+	private void rangeQueryRight(int node, Interval<T> query, Set<Interval<T>> result){
+		while (node != NIL){
+			if (query.contains(midpoint(node))){
+				addRange(offsets[node], offsets[node + 1], result);
+				if (left[node] != NIL)
+					addRange(offsets[left[node]], offsets[subtreeEnds[left[node]]], result);
+				node = right[node];
+			} else {
+				int end = offsets[node + 1];
+				for (int i = offsets[node]; i < end && !increasing[i].isRightOf(query); i++){
+					if (query.intersects(increasing[i]))
+						result.add(increasing[i]);
+				}
+				node = left[node];
+			}
+		}
+	}
+
+	private void addRange(int from, int to, Set<Interval<T>> result){
+		for (int i = from; i < to; i++)
+			result.add(increasing[i]);
+	}
+
+	@SuppressWarnings("unchecked")
+	private T midpoint(int node){
+		return (T) midpoints[node];
+	}
+
+	/**
+	 * Checks if a given object is stored in the tree. This method uses binary
+	 * search instead of iteration over all intervals, which is why it runs in
+	 * guaranteed {@code O(logn)} worst-case time.
+	 * @param o The query object.
+	 * @return {@code true}, if the object is stored in the tree, or {@code false}
+	 *         otherwise.
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public boolean contains(Object o) {
+		if (!(o instanceof Interval))
+			return false;
+		Interval<T> query = (Interval<T>) o;
+		int node = root;
+		while (node != NIL){
+			T midpoint = midpoint(node);
+			if (query.contains(midpoint))
+				return Arrays.binarySearch(increasing, offsets[node], offsets[node + 1], query, Interval.sweepLeftToRight) >= 0;
+			node = query.isLeftOf(midpoint) ? left[node] : right[node];
+		}
+		return Arrays.binarySearch(increasing, unstabbed, increasing.length, query, Interval.sweepLeftToRight) >= 0;
+	}
+
+	/**
+	 * Lays out the nodes of a {@link StaticIntervalTree} in pre-order. The construction keeps
+	 * two permutations of the intervals - one ordered by start points and one ordered by a
+	 * {@link TreeNode#stabbingPoint(Interval) point within each interval}. Each level of the
+	 * recursion picks the median point of a range as the midpoint of a new node, and partitions
+	 * both permutations of the range stably into the intervals left of, right of and containing
+	 * the midpoint. The interval of the median point contains it, so every node receives at least
+	 * one interval. Thus the intervals of every node come out ordered by their start points and
+	 * only the order by end points needs to be sorted for each node. The intervals without such
+	 * a point are appended after all nodes.
+	 */
+	private static class Builder<T extends Comparable<? super T>> {
+		private final Interval<T>[] intervals;
+		private final Object[] points;
+		private final int[] byStart, byPoint, buffer;
+		private final byte[] sides;
+
+		private final Object[] midpoints;
+		private final int[] left, right, subtreeEnds, offsets;
+		private final Interval<T>[] increasing, decreasing;
+		private int nodes, position, unstabbed;
+
+		@SuppressWarnings("unchecked")
+		Builder(Collection<? extends Interval<T>> collection){
+			intervals = sortedDistinct(collection);
+			int n = intervals.length;
+
+			points = new Object[n];
+			List<Integer> stabbed = new ArrayList<>(n);
+			for (int i = 0; i < n; i++){
+				points[i] = TreeNode.stabbingPoint(intervals[i]);
+				if (points[i] != null)
+					stabbed.add(i);
+			}
+			int m = stabbed.size();
+			byStart = new int[m];
+			for (int i = 0; i < m; i++)
+				byStart[i] = stabbed.get(i);
+			Collections.sort(stabbed, new Comparator<Integer>() {
+				@Override
+				public int compare(Integer a, Integer b) {
+					return pointOf(a).compareTo(pointOf(b));
+				}
+			});
+			byPoint = new int[m];
+			for (int i = 0; i < m; i++)
+				byPoint[i] = stabbed.get(i);
+			buffer = new int[n];
+			sides = new byte[n];
+
+			midpoints = new Object[n];
+			left = new int[n];
+			right = new int[n];
+			subtreeEnds = new int[n];
+			offsets = new int[n + 1];
+			increasing = (Interval<T>[]) new Interval<?>[n];
+			decreasing = (Interval<T>[]) new Interval<?>[n];
+			build(0, m);
+			offsets[nodes] = position;
+
+			unstabbed = position;
+			for (int i = 0; i < n; i++){
+				if (points[i] == null){
+					increasing[position] = intervals[i];
+					decreasing[position] = intervals[i];
+					position++;
+				}
+			}
+		}
+
+		@SuppressWarnings("unchecked")
+		private T pointOf(int interval){
+			return (T) points[interval];
+		}
+
+		/**
+		 * Builds the subtree for the intervals in the range {@code [from, to)} of the two
+		 * permutations and returns the index of its root node.
+		 */
+		private int build(int from, int to){
+			if (from >= to)
+				return NIL;
+			T midpoint = pointOf(byPoint[from + (to - from) / 2]);
+			int leftEnd = from, rightEnd = from;
+			for (int i = from; i < to; i++){
+				Interval<T> next = intervals[byStart[i]];
+				if (next.contains(midpoint)){
+					sides[byStart[i]] = CENTER;
+				} else if (next.isLeftOf(midpoint)){
+					sides[byStart[i]] = LEFT;
+					leftEnd++;
+					rightEnd++;
+				} else {
+					sides[byStart[i]] = RIGHT;
+					rightEnd++;
+				}
+			}
+			partition(byStart, from, to);
+			partition(byPoint, from, to);
+
+			int node = nodes++;
+			midpoints[node] = midpoint;
+			offsets[node] = position;
+			for (int i = rightEnd; i < to; i++){
+				increasing[position] = intervals[byStart[i]];
+				decreasing[position] = intervals[byStart[i]];
+				position++;
+			}
+			Arrays.sort(decreasing, offsets[node], position, Interval.sweepRightToLeft);
+
+			left[node] = build(from, leftEnd);
+			right[node] = build(leftEnd, rightEnd);
+			subtreeEnds[node] = nodes;
+			return node;
+		}
+
+		/**
+		 * Stably reorders a range of a permutation, so that the intervals left of the
+		 * current midpoint come first, followed by the intervals right of it and finally
+		 * the intervals containing it.
+		 */
+		private void partition(int[] permutation, int from, int to){
+			int count = 0;
+			for (byte side = LEFT; side <= CENTER; side++){
+				for (int i = from; i < to; i++){
+					if (sides[permutation[i]] == side)
+						buffer[count++] = permutation[i];
+				}
+			}
+			System.arraycopy(buffer, 0, permutation, from, count);
+		}
+	}
+}
@@ -54,12 +54,14 @@ import java.util.*;
  * it will have to linearly check each interval in the List. This can
  * degrade the performance of the tree, especially in cases where a single
  * node contains all intervals. Intervals have to be stored in an ordered
- * way. Each node keeps its intervals in two {@link TreeSet}s at the same
+ * way. Each node keeps its intervals in two {@link SortedIntervalSet}s at the same
  * time - one containing the intervals by their start points in ascending order
- * and the other by the end points in descending order. Whenever we have to provide
+ * and the other by the end points in descending order. The sets keep small amounts
+ * of intervals in compact sorted arrays and only switch to a {@link TreeSet} in
+ * very large nodes. Whenever we have to provide
  * a set of all intervals contained within this node, that intersect a query point,
  * we check if the query is left or right of the middlepoint of the node.
- * If it is left, we iterate through the TreeSet ordered by the start points
+ * If it is left, we iterate through the set ordered by the start points
  * until we reach an interval completely to the right of the query. Analogously,
  * if the query is to the right of the middlepoint, we iterate through the set
  * ordered by the end points until we reach an interval that's completely to
@@ -75,14 +77,14 @@ public class TreeNode<T extends Comparable<? super T>> implements Iterable<Inter
 	 * starting points.
 	 * @see Interval#sweepLeftToRight
 	 */
-	protected NavigableSet<Interval<T>> increasing;
+	protected SortedIntervalSet<T> increasing;
 
 	/**
 	 * A set containing all {@link Interval}s stored in this node, ordered by their
 	 * end points.
 	 * @see Interval#sweepRightToLeft
 	 */
-	protected NavigableSet<Interval<T>> decreasing;
+	protected SortedIntervalSet<T> decreasing;
 
 	/**
 	 * A pointer to the left child of the current node. The left child must either be
@@ -110,6 +112,12 @@ public class TreeNode<T extends Comparable<? super T>> implements Iterable<Inter
 	 */
 	protected int height;
 
+	/**
+	 * The amount of intervals stored in the subtree rooted at this node, including
+	 * the intervals stored in the node itself.
+	 */
+	protected int subtreeSize;
+
 	/**
 	 * Instantiates a new node in an {@link IntervalTree}.
 	 *
@@ -117,13 +125,336 @@ public class TreeNode<T extends Comparable<? super T>> implements Iterable<Inter
 	 *                 the node will be set based on this interval.
 	 */
 	public TreeNode(Interval<T> interval){
-		decreasing = new TreeSet<>(Interval.sweepRightToLeft);
-		increasing = new TreeSet<>(Interval.sweepLeftToRight);
+		decreasing = new SortedIntervalSet<>(Interval.sweepRightToLeft);
+		increasing = new SortedIntervalSet<>(Interval.sweepLeftToRight);
 
 		decreasing.add(interval);
 		increasing.add(interval);
 		midpoint = interval.getMidpoint();
 		height = 1;
+		subtreeSize = 1;
+	}
+
+	/**
+	 * Instantiates a new empty node with a given midpoint. The node has to be filled with
+	 * intervals by the caller.
+	 */
+	private TreeNode(T midpoint){
+		decreasing = new SortedIntervalSet<>(Interval.sweepRightToLeft);
+		increasing = new SortedIntervalSet<>(Interval.sweepLeftToRight);
+		this.midpoint = midpoint;
+	}
+
+	/**
+	 * A helper function for the {@link IntervalTree#addAll(Collection)} method. Builds a
+	 * balanced tree from a list of distinct non-empty intervals in {@code O(nlogn)} time.
+	 * <p>
+	 * First, a set of points stabbing all intervals is chosen greedily, in the order of the end
+	 * points of the intervals - whenever an interval doesn't contain the last chosen point, a
+	 * {@link #stabbingPoint(Interval) point within it} becomes the next point. The chosen points
+	 * are increasing, so they are turned directly into the midpoints of a perfectly balanced
+	 * tree. Then every interval is stored in the first node on its search path, whose midpoint it
+	 * contains. Every interval contains at least one of the points, so this is always possible.
+	 * In rare cases, the interval that introduced a point is stored in a node higher up, which may
+	 * leave the node of the point empty. Such nodes are deleted in a final pass over the tree.
+	 * </p>
+	 * <p>
+	 * Some non-empty intervals don't contain any point, which can be computed, like the open
+	 * interval between two adjacent {@code Double}s. They can't be stabbed, so they are
+	 * {@link #addInterval(IntervalTree, TreeNode, Interval) added} to the finished tree one by one,
+	 * just like {@link IntervalTree#add(Interval)} would store them.
+	 * </p>
+	 *
+	 * @param intervals The intervals, sorted by their end points, i.e. in the reverse order of
+	 *                  {@link Interval#sweepRightToLeft}.
+	 * @param <T> The type of the start and end points of the intervals.
+	 * @return The root of the new tree, or {@code null}, if the list is empty.
+	 */
+	static <T extends Comparable<? super T>> TreeNode<T> build(List<Interval<T>> intervals) {
+		List<T> points = new ArrayList<>();
+		List<Interval<T>> unstabbed = new ArrayList<>(0);
+		T point = null;
+		for (Interval<T> next: intervals){
+			if (point != null && next.contains(point))
+				continue;
+			T candidate = stabbingPoint(next);
+			if (candidate == null){
+				unstabbed.add(next);
+				continue;
+			}
+			point = candidate;
+			points.add(point);
+		}
+
+		// Find the node of every interval by binary search over the points, which follows the
+		// same path as a search in the perfectly balanced tree built on top of them
+		List<List<Interval<T>>> buckets = new ArrayList<>(points.size());
+		for (int i = 0; i < points.size(); i++)
+			buckets.add(new ArrayList<Interval<T>>(2));
+		int skipped = 0;
+		for (Interval<T> next: intervals){
+			int index = indexOfStabbingPoint(points, next);
+			if (index >= 0){
+				buckets.get(index).add(next);
+			} else if (skipped < unstabbed.size() && unstabbed.get(skipped) == next){
+				skipped++;
+			} else {
+				throw new IllegalStateException("No stabbing point found for the interval " + next);
+			}
+		}
+		TreeNode<T> root = pruneEmptyNodes(buildNodes(points, buckets, 0, points.size()));
+
+		// The tree keeps its own size, so the size of the scratch tree is irrelevant
+		IntervalTree<T> scratch = new IntervalTree<>();
+		for (Interval<T> next: unstabbed)
+			root = addInterval(scratch, root, next);
+		return root;
+	}
+
+	/**
+	 * Returns a point contained in an interval, preferably its end point, so that the point stabs
+	 * as many of the intervals ending later as possible.
+	 *
+	 * @return The point, or {@code null}, if neither the end point, nor the midpoint, nor the
+	 *         start point is contained in the interval.
+	 */
+	static <T extends Comparable<? super T>> T stabbingPoint(Interval<T> interval) {
+		if (interval.getEnd() != null && interval.isEndInclusive())
+			return interval.getEnd();
+		T midpoint = interval.getMidpoint();
+		if (midpoint != null && interval.contains(midpoint))
+			return midpoint;
+		if (interval.getStart() != null && interval.isStartInclusive())
+			return interval.getStart();
+		return null;
+	}
+
+	/**
+	 * Searches for the first point on the search path of an interval, which is contained in it.
+	 *
+	 * @param points The sorted points.
+	 * @return The index of the point, or -1, if the interval doesn't contain any of the points.
+	 */
+	private static <T extends Comparable<? super T>> int indexOfStabbingPoint(List<T> points, Interval<T> interval) {
+		int from = 0, to = points.size();
+		while (from < to){
+			int mid = (from + to) >>> 1;
+			if (interval.contains(points.get(mid)))
+				return mid;
+			if (interval.isLeftOf(points.get(mid)))
+				to = mid;
+			else
+				from = mid + 1;
+		}
+		return -1;
+	}
+
+	/**
+	 * Creates a perfectly balanced tree with the midpoints in a sorted range, filled with the
+	 * intervals assigned to each midpoint.
+	 */
+	private static <T extends Comparable<? super T>> TreeNode<T> buildNodes(List<T> points, List<List<Interval<T>>> buckets, int from, int to) {
+		if (from >= to)
+			return null;
+		int mid = (from + to) >>> 1;
+		TreeNode<T> node = new TreeNode<>(points.get(mid));
+		List<Interval<T>> bucket = buckets.get(mid);
+		Collections.reverse(bucket);
+		node.decreasing.fillSorted(bucket);
+		Collections.sort(bucket, Interval.sweepLeftToRight);
+		node.increasing.fillSorted(bucket);
+		node.left = buildNodes(points, buckets, from, mid);
+		node.right = buildNodes(points, buckets, mid + 1, to);
+		return node;
+	}
+
+	/**
+	 * Computes the heights and subtree sizes of a new tree bottom-up and deletes its empty nodes.
+	 */
+	private static <T extends Comparable<? super T>> TreeNode<T> pruneEmptyNodes(TreeNode<T> node) {
+		if (node == null)
+			return null;
+		node.left = pruneEmptyNodes(node.left);
+		node.right = pruneEmptyNodes(node.right);
+		if (node.increasing.size() == 0)
+			return deleteNode(node);
+		return node.balanceOut();
+	}
+
+	/**
+	 * A helper function for the {@link IntervalTree#removeAll(Collection)},
+	 * {@link IntervalTree#retainAll(Collection)} and {@link IntervalTree#removeMatching(IntervalPredicate)}
+	 * methods. Removes all intervals matching a predicate from the subtree rooted at a node in a
+	 * single post-order pass. The matching intervals are filtered out of the sets of every node in
+	 * place and the node is {@link #repair(TreeNode) repaired} right after its subtrees, so every
+	 * node is deleted or rebalanced at most once, regardless of the amount of removed intervals.
+	 *
+	 * @param tree The {@link IntervalTree} containing the subtree. Its size is decreased by the
+	 *             amount of removed intervals.
+	 * @param node The root of the currently traversed subtree. May be {@code null}.
+	 * @param predicate The predicate selecting the intervals to be removed.
+	 * @param <T> The type of the start and end points of the intervals.
+	 * @return The new root of the subtree. It may be {@code null}, if all intervals were removed.
+	 */
+	static <T extends Comparable<? super T>> TreeNode<T> removeMatching(IntervalTree<T> tree, TreeNode<T> node, IntervalPredicate<T> predicate) {
+		if (node == null)
+			return null;
+		node.left = removeMatching(tree, node.left, predicate);
+		node.right = removeMatching(tree, node.right, predicate);
+		List<Interval<T>> matching = null;
+		for (Interval<T> next: node.increasing){
+			if (predicate.test(next)){
+				if (matching == null)
+					matching = new ArrayList<>();
+				matching.add(next);
+			}
+		}
+		if (matching != null)
+			removeFromNode(tree, node, matching, null);
+		return repair(node);
+	}
+
+	/**
+	 * Restores the invariants of a node, after intervals have been removed from the node or from
+	 * its subtrees, provided that both subtrees are balanced. An empty node is deleted and a
+	 * subtree, whose height has dropped by one, is rebalanced by a rotation, just like after a
+	 * single removal. If many intervals have been removed at once, the heights of the subtrees
+	 * may differ too much to be fixed by rotations. Such a subtree is {@link #build(List) rebuilt}
+	 * from its remaining intervals instead.
+	 *
+	 * @return The new root of the subtree rooted at the node.
+	 */
+	private static <T extends Comparable<? super T>> TreeNode<T> repair(TreeNode<T> node) {
+		int balance = Math.abs(height(node.left) - height(node.right));
+		boolean empty = node.increasing.size() == 0;
+		if (balance > 2 || balance > 1 && empty)
+			return rebuild(node);
+		if (empty)
+			return deleteNode(node);
+		return node.balanceOut();
+	}
+
+	/**
+	 * Builds a new balanced tree from all intervals in the subtree rooted at a node. The node
+	 * itself may be empty, but its subtrees may not contain empty nodes.
+	 */
+	private static <T extends Comparable<? super T>> TreeNode<T> rebuild(TreeNode<T> node) {
+		List<Interval<T>> intervals = new ArrayList<>(node.increasing.size() + subtreeSize(node.left) + subtreeSize(node.right));
+		intervals.addAll(node.increasing);
+		if (node.left != null){
+			for (Interval<T> next: node.left)
+				intervals.add(next);
+		}
+		if (node.right != null){
+			for (Interval<T> next: node.right)
+				intervals.add(next);
+		}
+		Collections.sort(intervals, Collections.reverseOrder(Interval.sweepRightToLeft));
+		return build(intervals);
+	}
+
+	/**
+	 * A helper function for the {@link IntervalTree#removeOverlapping(Interval)} method. Removes
+	 * all intervals intersecting a query from the subtree rooted at a node in a single traversal.
+	 * The traversal visits the same nodes as a query would. All intervals in a node, whose
+	 * midpoint is contained in the query, intersect it, so the node is emptied entirely. In the
+	 * other nodes, the intersecting intervals form a prefix of one of the two sets. Every visited
+	 * node is {@link #repair(TreeNode) repaired} once, right after its subtrees.
+	 *
+	 * @param tree The {@link IntervalTree} containing the subtree. Its size is decreased by the
+	 *             amount of removed intervals.
+	 * @param node The root of the currently traversed subtree. May be {@code null}.
+	 * @param query The non-empty query interval.
+	 * @param removed The collection, to which the removed intervals are added, or {@code null}.
+	 * @param <T> The type of the start and end points of the intervals.
+	 * @return The new root of the subtree. It may be {@code null}, if all intervals were removed.
+	 */
+	static <T extends Comparable<? super T>> TreeNode<T> removeOverlapping(IntervalTree<T> tree, TreeNode<T> node, Interval<T> query, Collection<? super Interval<T>> removed) {
+		if (node == null)
+			return null;
+		List<Interval<T>> matching;
+		if (query.contains(node.midpoint)){
+			matching = new ArrayList<>(node.increasing);
+			node.left = removeOverlapping(tree, node.left, query, removed);
+			node.right = removeOverlapping(tree, node.right, query, removed);
+		} else if (query.isLeftOf(node.midpoint)){
+			matching = prefix(node.increasing, node.increasing.countPrefix(OverlapQuery.of(query)));
+			node.left = removeOverlapping(tree, node.left, query, removed);
+		} else {
+			matching = prefix(node.decreasing, node.decreasing.countPrefix(OverlapQuery.of(query)));
+			node.right = removeOverlapping(tree, node.right, query, removed);
+		}
+		removeFromNode(tree, node, matching, removed);
+		return repair(node);
+	}
+
+	/**
+	 * A helper function for the {@link IntervalTree#removeContainedIn(Interval)} method. Removes
+	 * all intervals contained in a query from the subtree rooted at a node in a single traversal.
+	 * The intervals in a node, whose midpoint is not contained in the query, can't be contained
+	 * in it either. So only the nodes with a midpoint in the query lose intervals, and the
+	 * traversal follows the search path on both sides of them, just like
+	 * {@link #queryContainedIn(TreeNode, Interval, Set)}. Every visited node is
+	 * {@link #repair(TreeNode) repaired} once, right after its subtrees.
+	 *
+	 * @param tree The {@link IntervalTree} containing the subtree. Its size is decreased by the
+	 *             amount of removed intervals.
+	 * @param node The root of the currently traversed subtree. May be {@code null}.
+	 * @param query The non-empty query interval.
+	 * @param removed The collection, to which the removed intervals are added, or {@code null}.
+	 * @param <T> The type of the start and end points of the intervals.
+	 * @return The new root of the subtree. It may be {@code null}, if all intervals were removed.
+	 */
+	static <T extends Comparable<? super T>> TreeNode<T> removeContainedIn(IntervalTree<T> tree, TreeNode<T> node, Interval<T> query, Collection<? super Interval<T>> removed) {
+		if (node == null)
+			return null;
+		if (query.contains(node.midpoint)){
+			// The candidates start no earlier than the query
+			List<Interval<T>> matching = new ArrayList<>();
+			for (Iterator<Interval<T>> it = node.increasing.descendingIterator(); it.hasNext(); ){
+				Interval<T> next = it.next();
+				if (next.compareStarts(query) < 0)
+					break;
+				if (query.contains(next))
+					matching.add(next);
+			}
+			node.left = removeContainedIn(tree, node.left, query, removed);
+			node.right = removeContainedIn(tree, node.right, query, removed);
+			removeFromNode(tree, node, matching, removed);
+		} else if (query.isLeftOf(node.midpoint)){
+			node.left = removeContainedIn(tree, node.left, query, removed);
+		} else {
+			node.right = removeContainedIn(tree, node.right, query, removed);
+		}
+		return repair(node);
+	}
+
+	/**
+	 * Returns the first {@code count} intervals of a set.
+	 */
+	private static <T extends Comparable<? super T>> List<Interval<T>> prefix(SortedIntervalSet<T> set, int count) {
+		List<Interval<T>> result = new ArrayList<>(count);
+		for (Iterator<Interval<T>> it = set.iterator(); result.size() < count; )
+			result.add(it.next());
+		return result;
+	}
+
+	/**
+	 * Removes intervals from both sets of a node, without deleting or rebalancing the node.
+	 */
+	private static <T extends Comparable<? super T>> void removeFromNode(IntervalTree<T> tree, TreeNode<T> node, List<Interval<T>> intervals, Collection<? super Interval<T>> removed) {
+		if (intervals.isEmpty())
+			return;
+		if (intervals.size() == node.increasing.size()){
+			node.increasing.clear();
+			node.decreasing.clear();
+		} else {
+			node.increasing.removeAll(intervals);
+			node.decreasing.removeAll(intervals);
+		}
+		tree.size -= intervals.size();
+		if (removed != null)
+			removed.addAll(intervals);
 	}
 
 	/**
@@ -144,16 +475,16 @@ public class TreeNode<T extends Comparable<? super T>> implements Iterable<Inter
 			return new TreeNode<>(interval);
 		}
 		if (interval.contains(root.midpoint)){
-			if (root.decreasing.add(interval))
+			if (root.decreasing.add(interval)){
 				tree.size++;
+				root.subtreeSize++;
+			}
 			root.increasing.add(interval);
 			return root;
 		} else if (interval.isLeftOf(root.midpoint)){
 			root.left = addInterval(tree, root.left, interval);
-			root.height = Math.max(height(root.left), height(root.right))+1;
 		} else {
 			root.right = addInterval(tree, root.right, interval);
-			root.height = Math.max(height(root.left), height(root.right))+1;
 		}
 
 		return root.balanceOut();
@@ -181,6 +512,24 @@ public class TreeNode<T extends Comparable<? super T>> implements Iterable<Inter
 		return node == null ? 0 : node.height();
 	}
 
+	/**
+	 * Returns the amount of intervals stored in a subtree, rooted at a given node. This
+	 * function accepts {@code null} values and returns 0 as size for them.
+	 */
+	static int subtreeSize(TreeNode<?> node){
+		return node == null ? 0 : node.subtreeSize;
+	}
+
+	/**
+	 * Recomputes the height and the subtree size of the current node from its children.
+	 * Has to be called whenever the children of the node or the intervals stored in it
+	 * change.
+	 */
+	private void update(){
+		height = Math.max(height(left), height(right)) + 1;
+		subtreeSize = increasing.size() + subtreeSize(left) + subtreeSize(right);
+	}
+
 	/**
 	 * Checks if the subtree rooted at the current node is balanced and balances it
 	 * if necessary.
@@ -191,6 +540,7 @@ public class TreeNode<T extends Comparable<? super T>> implements Iterable<Inter
 	 * and the removed interval had been the last one in the subtree.
 	 */
 	private TreeNode<T> balanceOut(){
+		update();
 		int balance = height(left) - height(right);
 		if (balance < -1){
 			// The tree is right-heavy.
@@ -226,8 +576,9 @@ public class TreeNode<T extends Comparable<? super T>> implements Iterable<Inter
 		TreeNode<T> head = right;
 		right = head.left;
 		head.left = this;
-		height = Math.max(height(right), height(left)) + 1;
+		update();
 		head.left = head.assimilateOverlappingIntervals(this);
+		head.update();
 		return head;
 	}
 
@@ -244,8 +595,9 @@ public class TreeNode<T extends Comparable<? super T>> implements Iterable<Inter
 		TreeNode<T> head = left;
 		left = head.right;
 		head.right = this;
-		height = Math.max(height(right), height(left)) + 1;
+		update();
 		head.right = head.assimilateOverlappingIntervals(this);
+		head.update();
 		return head;
 	}
 
@@ -282,12 +634,13 @@ public class TreeNode<T extends Comparable<? super T>> implements Iterable<Inter
 		if (from.increasing.size() == 0){
 			return deleteNode(from);
 		}
+		from.update();
 		return from;
 	}
 
 	/**
 	 * A helper function for the {@link IntervalTree#query(Comparable)} method.
-	 * It searches recursively for all intervals stored in the subtree rooted at
+	 * It searches for all intervals stored in the subtree rooted at
 	 * the current node, that intersect a target point.
 	 *
 	 * @param root The root of the currently traversed subtree. May be {@code null}.
@@ -297,24 +650,161 @@ public class TreeNode<T extends Comparable<? super T>> implements Iterable<Inter
 	 *            the query point.
 	 * @return The set of all intervals from the current subtree, containing the query.
 	 */
-	public static <T extends Comparable<? super T>> Set<Interval<T>> query(TreeNode<T> root, T point, Set<Interval<T>> res) {
-		if (root == null)
-			return res;
-		if (point.compareTo(root.midpoint) <= 0){
-			for (Interval<T> next: root.increasing){
-				if (next.isRightOf(point))
+	public static <T extends Comparable<? super T>> Set<Interval<T>> query(TreeNode<T> root, T point, final Set<Interval<T>> res) {
+		query(root, point, new IntervalVisitor<T>() {
+			@Override
+			public boolean visit(Interval<T> interval) {
+				res.add(interval);
+				return true;
+			}
+		});
+		return res;
+	}
+
+	/**
+	 * A helper function for the {@link IntervalTree#query(Comparable, IntervalVisitor)} method.
+	 * It searches for all intervals stored in the subtree rooted at the current node, that
+	 * intersect a target point, and passes them to a visitor.
+	 *
+	 * @param root The root of the currently traversed subtree. May be {@code null}.
+	 * @param point The query point.
+	 * @param visitor The visitor receiving all intervals to be returned.
+	 * @param <T> The type of the start and end points of the intervals, as well as
+	 *            the query point.
+	 * @return {@code true}, if the whole subtree has been searched, or {@code false}, if
+	 *         the visitor has stopped the search.
+	 */
+	public static <T extends Comparable<? super T>> boolean query(TreeNode<T> root, T point, IntervalVisitor<T> visitor) {
+		while (root != null){
+			if (point.compareTo(root.midpoint) <= 0){
+				if (!root.increasing.visitPrefix(point, true, null, visitor))
+					return false;
+				root = root.left;
+			} else {
+				if (!root.decreasing.visitPrefix(point, true, null, visitor))
+					return false;
+				root = root.right;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * A helper function for the {@link IntervalTree#queryAll(List, BatchVisitor)} method. It
+	 * sweeps a range of sorted query points through the subtree rooted at a node. In every node,
+	 * the points are split by the midpoint. An interval in the node contains the midpoint, so if
+	 * it contains a point left of the midpoint, it contains all points between them as well. The
+	 * points left of the midpoint are therefore matched against the increasing set in a single
+	 * merge-like pass, in which every interval is reported to a consecutive range of points. The
+	 * points right of the midpoint are matched against the decreasing set in the same way, and
+	 * the points equal to the midpoint are contained in all intervals of the node. Then the points
+	 * on each side descend together into the corresponding subtree.
+	 *
+	 * @param node The root of the currently traversed subtree. May be {@code null}.
+	 * @param points The query points.
+	 * @param order The indexes of the query points, sorted by their points.
+	 * @param from The start of the range of points in {@code order}, inclusive.
+	 * @param to The end of the range of points in {@code order}, exclusive.
+	 * @param visitor The visitor receiving all matching intervals.
+	 * @param <T> The type of the start and end points of the intervals, as well as
+	 *            the query points.
+	 * @return {@code true}, if the whole subtree has been searched, or {@code false}, if
+	 *         the visitor has stopped the search.
+	 */
+	static <T extends Comparable<? super T>> boolean queryAll(TreeNode<T> node, List<T> points, int[] order, int from, int to, BatchVisitor<T> visitor) {
+		while (node != null && from < to){
+			int left = split(points, order, from, to, node.midpoint, false);
+			int right = split(points, order, left, to, node.midpoint, true);
+
+			// The points in [from, left) are left of the midpoint. An interval starting later
+			// contains a shorter suffix of them.
+			int first = from;
+			for (Interval<T> next: node.increasing){
+				while (first < left && next.isRightOf(points.get(order[first])))
+					first++;
+				if (first == left)
 					break;
-				res.add(next);
+				for (int i = first; i < left; i++){
+					if (!visitor.visit(order[i], next))
+						return false;
+				}
 			}
-			return TreeNode.query(root.left, point, res);
-		} else{
-			for (Interval<T> next: root.decreasing){
-				if (next.isLeftOf(point))
+
+			// The points in [right, to) are right of the midpoint. An interval ending earlier
+			// contains a shorter prefix of them.
+			int last = to;
+			for (Interval<T> next: node.decreasing){
+				while (last > right && next.isLeftOf(points.get(order[last - 1])))
+					last--;
+				if (last == right)
 					break;
-				res.add(next);
+				for (int i = right; i < last; i++){
+					if (!visitor.visit(order[i], next))
+						return false;
+				}
 			}
-			return TreeNode.query(root.right, point, res);
+
+			// The points in [left, right) are equal to the midpoint
+			for (int i = left; i < right; i++){
+				if (!visitNode(node, order[i], visitor))
+					return false;
+			}
+
+			if (!queryAll(node.left, points, order, from, left, visitor))
+				return false;
+			node = node.right;
+			from = right;
+		}
+		return true;
+	}
+
+	private static <T extends Comparable<? super T>> boolean visitNode(TreeNode<T> node, int index, BatchVisitor<T> visitor) {
+		for (Interval<T> next: node.increasing){
+			if (!visitor.visit(index, next))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Finds the first point in a sorted range of query points, which is greater than or equal
+	 * to a midpoint, or strictly greater than it, if {@code after} is set.
+	 */
+	private static <T extends Comparable<? super T>> int split(List<T> points, int[] order, int from, int to, T midpoint, boolean after) {
+		while (from < to){
+			int mid = (from + to) >>> 1;
+			int compare = points.get(order[mid]).compareTo(midpoint);
+			if (compare < 0 || after && compare == 0)
+				from = mid + 1;
+			else
+				to = mid;
 		}
+		return from;
+	}
+
+	/**
+	 * Passes all intervals stored in the subtree rooted at a node to a visitor.
+	 *
+	 * @return {@code true}, if all intervals have been visited, or {@code false}, if
+	 *         the visitor has stopped the traversal.
+	 */
+	static <T extends Comparable<? super T>> boolean visitAll(TreeNode<T> node, IntervalVisitor<T> visitor) {
+		while (node != null){
+			if (!visitAll(node.left, visitor) || !node.increasing.visitAll(visitor))
+				return false;
+			node = node.right;
+		}
+		return true;
+	}
+
+	/**
+	 * Passes all intervals stored in a single node to a visitor.
+	 *
+	 * @return {@code true}, if all intervals have been visited, or {@code false}, if
+	 *         the visitor has stopped the traversal.
+	 */
+	static <T extends Comparable<? super T>> boolean visitNode(TreeNode<T> node, IntervalVisitor<T> visitor) {
+		return node.increasing.visitAll(visitor);
 	}
 
 
@@ -405,29 +895,29 @@ public class TreeNode<T extends Comparable<? super T>> implements Iterable<Inter
 	 * are guaranteed to intersect with the query, if they have an endpoint greater or equal than
 	 * the start of the query interval. Basically, this means that every time we branch to the left
 	 * in the binary search, we need to add the whole right subtree to the result set.
+	 * The intervals in the nodes, whose midpoint is not in the query, are checked for an
+	 * intersection one by one, because an interval may only touch the query across a gap between
+	 * two adjacent discrete points, like {@code (430, 440]} and {@code [389, 431)} do.
 	 *
 	 * @param node    The left child of the node, whose midpoint is contained in the query interval.
 	 * @param query   The query interval.
-	 * @param result  The set which stores all intervals in the tree, intersecting the query.
+	 * @param visitor The visitor receiving all intervals in the tree, intersecting the query.
+	 * @return {@code true}, if the whole subtree has been searched, or {@code false}, if
+	 *         the visitor has stopped the search.
 	 */
-	static <T extends Comparable<? super T>> void rangeQueryLeft(TreeNode<T> node, Interval<T> query, Set<Interval<T>> result) {
+	static <T extends Comparable<? super T>> boolean rangeQueryLeft(TreeNode<T> node, Interval<T> query, IntervalVisitor<T> visitor) {
 		while (node != null) {
 			if (query.contains(node.midpoint)) {
-				result.addAll(node.increasing);
-				if (node.right != null) {
-					for (Interval<T> next : node.right)
-						result.add(next);
-				}
+				if (!visitNode(node, visitor) || !visitAll(node.right, visitor))
+					return false;
 				node = node.left;
 			} else {
-				for (Interval<T> next: node.decreasing){
-					if (next.isLeftOf(query))
-						break;
-					result.add(next);
-				}
+				if (!node.decreasing.visitPrefix(query.getStart(), query.isStartInclusive(), query, visitor))
+					return false;
 				node = node.right;
 			}
 		}
+		return true;
 	}
 
 	/**
@@ -437,31 +927,331 @@ public class TreeNode<T extends Comparable<? super T>> implements Iterable<Inter
 	 * are guaranteed to intersect with the query, if they have an endpoint smaller or equal than
 	 * the end of the query interval. Basically, this means that every time we branch to the right
 	 * in the binary search, we need to add the whole left subtree to the result set.
+	 * The intervals in the nodes, whose midpoint is not in the query, are checked for an
+	 * intersection one by one, because an interval may only touch the query across a gap between
+	 * two adjacent discrete points, like {@code (430, 440]} and {@code [389, 431)} do.
 	 *
 	 * @param node    The right child of the node, whose midpoint is contained in the query interval.
 	 * @param query   The query interval.
-	 * @param result  The set which stores all intervals in the tree, intersecting the query.
+	 * @param visitor The visitor receiving all intervals in the tree, intersecting the query.
+	 * @return {@code true}, if the whole subtree has been searched, or {@code false}, if
+	 *         the visitor has stopped the search.
 	 */
-	static <T extends Comparable<? super T>> void rangeQueryRight(TreeNode<T> node, Interval<T> query, Set<Interval<T>> result) {
+	static <T extends Comparable<? super T>> boolean rangeQueryRight(TreeNode<T> node, Interval<T> query, IntervalVisitor<T> visitor) {
 		while (node != null) {
 			if (query.contains(node.midpoint)) {
-				result.addAll(node.increasing);
-				if (node.left != null) {
-					for (Interval<T> next : node.left)
+				if (!visitNode(node, visitor) || !visitAll(node.left, visitor))
+					return false;
+				node = node.right;
+			} else {
+				if (!node.increasing.visitPrefix(query.getEnd(), query.isEndInclusive(), query, visitor))
+					return false;
+				node = node.left;
+			}
+		}
+		return true;
+	}
+
+
+	/**
+	 * A helper function for the {@link IntervalTree#queryContaining(Interval)} method. An interval
+	 * containing the query contains every point of the query, so its base node is on the search
+	 * path of the query, at or above the first node whose midpoint is contained in the query. In
+	 * every node on the path, the candidates form a prefix of one of the ordered sets - the
+	 * intervals starting no later than the query, if the query is left of the midpoint, or the
+	 * intervals ending no earlier than the query, if it is right of the midpoint.
+	 *
+	 * @param root The root of the tree. May be {@code null}.
+	 * @param query The non-empty query interval.
+	 * @param result The set used to store all intervals to be returned.
+	 * @param <T> The type of the start and end points of the intervals.
+	 * @return The set of all intervals from the tree, containing the query.
+	 */
+	static <T extends Comparable<? super T>> Set<Interval<T>> queryContaining(TreeNode<T> root, Interval<T> query, Set<Interval<T>> result) {
+		TreeNode<T> node = root;
+		while (node != null){
+			boolean isLeft = query.isLeftOf(node.midpoint);
+			if (isLeft || query.contains(node.midpoint)){
+				for (Interval<T> next: node.increasing){
+					if (next.compareStarts(query) > 0)
+						break;
+					if (next.contains(query))
+						result.add(next);
+				}
+				if (!isLeft)
+					break;
+				node = node.left;
+			} else {
+				for (Interval<T> next: node.decreasing){
+					if (next.compareEnds(query) < 0)
+						break;
+					if (next.contains(query))
 						result.add(next);
 				}
 				node = node.right;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * A helper function for the {@link IntervalTree#queryContainedIn(Interval)} method. An interval
+	 * stored in a node, whose midpoint is not contained in the query, contains a point outside of
+	 * the query, so such nodes are skipped entirely. Below the first node, whose midpoint is
+	 * contained in the query, the search branches to the left and to the right just like the range
+	 * search of {@link IntervalTree#query(Interval)}. Every subtree, which lies between two midpoints
+	 * contained in the query, is entirely contained in the query.
+	 *
+	 * @param root The root of the tree. May be {@code null}.
+	 * @param query The non-empty query interval.
+	 * @param result The set used to store all intervals to be returned.
+	 * @param <T> The type of the start and end points of the intervals.
+	 * @return The set of all intervals from the tree, contained in the query.
+	 */
+	static <T extends Comparable<? super T>> Set<Interval<T>> queryContainedIn(TreeNode<T> root, Interval<T> query, Set<Interval<T>> result) {
+		TreeNode<T> node = root;
+		while (node != null && !query.contains(node.midpoint))
+			node = query.isLeftOf(node.midpoint) ? node.left : node.right;
+		if (node == null)
+			return result;
+
+		// In the node splitting the search, the candidates start no earlier than the query
+		for (Iterator<Interval<T>> it = node.increasing.descendingIterator(); it.hasNext(); ){
+			Interval<T> next = it.next();
+			if (next.compareStarts(query) < 0)
+				break;
+			if (query.contains(next))
+				result.add(next);
+		}
+
+		// The intervals stored in the left branch end before the midpoint of the splitting node
+		TreeNode<T> branch = node.left;
+		while (branch != null){
+			if (query.contains(branch.midpoint)){
+				for (Iterator<Interval<T>> it = branch.increasing.descendingIterator(); it.hasNext(); ){
+					Interval<T> next = it.next();
+					if (next.compareStarts(query) < 0)
+						break;
+					if (query.contains(next))
+						result.add(next);
+				}
+				if (branch.right != null){
+					for (Interval<T> next: branch.right)
+						result.add(next);
+				}
+				branch = branch.left;
 			} else {
-				for (Interval<T> next: node.increasing){
-					if (next.isRightOf(query))
+				branch = branch.right;
+			}
+		}
+
+		// The intervals stored in the right branch start after the midpoint of the splitting node
+		branch = node.right;
+		while (branch != null){
+			if (query.contains(branch.midpoint)){
+				for (Iterator<Interval<T>> it = branch.decreasing.descendingIterator(); it.hasNext(); ){
+					Interval<T> next = it.next();
+					if (next.compareEnds(query) > 0)
 						break;
-					result.add(next);
+					if (query.contains(next))
+						result.add(next);
 				}
+				if (branch.left != null){
+					for (Interval<T> next: branch.left)
+						result.add(next);
+				}
+				branch = branch.right;
+			} else {
+				branch = branch.left;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * A helper function for the {@link IntervalTree#nextAfter(Comparable)} method. The intervals
+	 * in a node, whose midpoint is not greater than the point, as well as all intervals in its
+	 * left subtree, can't be entirely right of the point, so the search continues to the right.
+	 * Otherwise, the intervals in the node, which don't contain the point, are right of it and
+	 * follow the prefix of intervals containing the point in the increasing set. The whole right
+	 * subtree is right of the point, but any candidate in the node starts before all of them.
+	 * <p>
+	 * Every interval in the left subtree lies entirely left of the midpoint, so a candidate found
+	 * further down the path starts before all intervals in the right subtrees above it. That is why
+	 * the search only remembers the best candidate from the nodes and the last right subtree, which
+	 * could still contain the answer, and looks for the minimum of that subtree only once at the end.
+	 * </p>
+	 *
+	 * @param root The root of the tree. May be {@code null}.
+	 * @param point The query point.
+	 * @param <T> The type of the start and end points of the intervals, as well as
+	 *            the query point.
+	 * @return The interval with the smallest start point, that lies entirely right of the point,
+	 *         or {@code null}, if there is no such interval.
+	 */
+	static <T extends Comparable<? super T>> Interval<T> nextAfter(TreeNode<T> root, T point) {
+		OverlapQuery<T> query = OverlapQuery.of(point);
+		Interval<T> best = null;
+		TreeNode<T> subtree = null;
+		TreeNode<T> node = root;
+		while (node != null){
+			if (point.compareTo(node.midpoint) >= 0){
+				node = node.right;
+				continue;
+			}
+			Interval<T> candidate = node.increasing.firstNotIntersecting(query);
+			if (candidate != null){
+				if (best == null || Interval.sweepLeftToRight.compare(candidate, best) < 0)
+					best = candidate;
+				subtree = null;
+			} else if (node.right != null){
+				subtree = node.right;
+			}
+			node = node.left;
+		}
+
+		// The intervals with the smallest start points are on the left spine of the subtree
+		for (; subtree != null; subtree = subtree.left){
+			Interval<T> first = subtree.increasing.first();
+			if (best == null || Interval.sweepLeftToRight.compare(first, best) < 0)
+				best = first;
+		}
+		return best;
+	}
+
+	/**
+	 * A helper function for the {@link IntervalTree#previousBefore(Comparable)} method. It is the
+	 * mirror image of {@link #nextAfter(TreeNode, Comparable)} - the candidates in every node are
+	 * found in the decreasing set, after the prefix of intervals containing the point, and the
+	 * intervals with the greatest end points of a left subtree are on its right spine.
+	 *
+	 * @param root The root of the tree. May be {@code null}.
+	 * @param point The query point.
+	 * @param <T> The type of the start and end points of the intervals, as well as
+	 *            the query point.
+	 * @return The interval with the greatest end point, that lies entirely left of the point,
+	 *         or {@code null}, if there is no such interval.
+	 */
+	static <T extends Comparable<? super T>> Interval<T> previousBefore(TreeNode<T> root, T point) {
+		OverlapQuery<T> query = OverlapQuery.of(point);
+		Interval<T> best = null;
+		TreeNode<T> subtree = null;
+		TreeNode<T> node = root;
+		while (node != null){
+			if (point.compareTo(node.midpoint) <= 0){
+				node = node.left;
+				continue;
+			}
+			Interval<T> candidate = node.decreasing.firstNotIntersecting(query);
+			if (candidate != null){
+				if (best == null || Interval.sweepRightToLeft.compare(candidate, best) < 0)
+					best = candidate;
+				subtree = null;
+			} else if (node.left != null){
+				subtree = node.left;
+			}
+			node = node.right;
+		}
+
+		// The intervals with the greatest end points are on the right spine of the subtree
+		for (; subtree != null; subtree = subtree.right){
+			Interval<T> first = subtree.decreasing.first();
+			if (best == null || Interval.sweepRightToLeft.compare(first, best) < 0)
+				best = first;
+		}
+		return best;
+	}
+
+	/**
+	 * A helper function for the {@link IntervalTree#countOverlapping(Comparable)} method. It
+	 * follows the same path as {@link #query(TreeNode, Comparable, IntervalVisitor)}, but instead
+	 * of iterating over the matching intervals in each node, it counts them by binary search.
+	 *
+	 * @param root The root of the currently traversed subtree. May be {@code null}.
+	 * @param point The query point.
+	 * @param <T> The type of the start and end points of the intervals, as well as
+	 *            the query point.
+	 * @return The amount of intervals in the subtree, containing the query point.
+	 */
+	static <T extends Comparable<? super T>> int countOverlapping(TreeNode<T> root, T point) {
+		OverlapQuery<T> query = OverlapQuery.of(point);
+		int count = 0;
+		while (root != null){
+			if (point.compareTo(root.midpoint) <= 0){
+				count += root.increasing.countPrefix(query);
+				root = root.left;
+			} else {
+				count += root.decreasing.countPrefix(query);
+				root = root.right;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * A helper function for the {@link IntervalTree#countOverlapping(Interval)} method. It
+	 * follows the same path as {@link IntervalTree#query(Interval, IntervalVisitor)}. The
+	 * intervals in nodes partially covered by the query are counted by binary search, and
+	 * the subtrees entirely covered by the query are counted by their subtree size.
+	 *
+	 * @param root The root of the tree. May be {@code null}.
+	 * @param interval The non-empty query interval.
+	 * @param <T> The type of the start and end points of the intervals.
+	 * @return The amount of intervals in the tree, intersecting the query interval.
+	 */
+	static <T extends Comparable<? super T>> int countOverlapping(TreeNode<T> root, Interval<T> interval) {
+		OverlapQuery<T> query = OverlapQuery.of(interval);
+		int count = 0;
+		TreeNode<T> node = root;
+		while (node != null){
+			if (interval.contains(node.midpoint))
+				return count + node.increasing.size() + rangeCountLeft(node.left, interval, query) + rangeCountRight(node.right, interval, query);
+			if (interval.isLeftOf(node.midpoint)){
+				count += node.increasing.countPrefix(query);
 				node = node.left;
+			} else {
+				count += node.decreasing.countPrefix(query);
+				node = node.right;
 			}
 		}
+		return count;
 	}
 
+	/**
+	 * The counting counterpart of {@link #rangeQueryLeft(TreeNode, Interval, IntervalVisitor)}.
+	 * Whenever the search branches to the left, the whole right subtree is counted by its size.
+	 */
+	private static <T extends Comparable<? super T>> int rangeCountLeft(TreeNode<T> node, Interval<T> interval, OverlapQuery<T> query) {
+		int count = 0;
+		while (node != null){
+			if (interval.contains(node.midpoint)){
+				count += node.increasing.size() + subtreeSize(node.right);
+				node = node.left;
+			} else {
+				count += node.decreasing.countPrefix(query);
+				node = node.right;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * The counting counterpart of {@link #rangeQueryRight(TreeNode, Interval, IntervalVisitor)}.
+	 * Whenever the search branches to the right, the whole left subtree is counted by its size.
+	 */
+	private static <T extends Comparable<? super T>> int rangeCountRight(TreeNode<T> node, Interval<T> interval, OverlapQuery<T> query) {
+		int count = 0;
+		while (node != null){
+			if (interval.contains(node.midpoint)){
+				count += node.increasing.size() + subtreeSize(node.left);
+				node = node.right;
+			} else {
+				count += node.increasing.countPrefix(query);
+				node = node.left;
+			}
+		}
+		return count;
+	}
 
 	/**
 	 * An iterator over all intervals stored in subtree rooted at the current node. Traversal
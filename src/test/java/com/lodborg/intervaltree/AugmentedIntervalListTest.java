@@ -0,0 +1,68 @@
+package com.lodborg.intervaltree;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+import com.lodborg.intervaltree.Interval.*;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class AugmentedIntervalListTest {
+
+	@Test
+	public void test_decomposesNestedIntervals(){
+		List<Interval<Integer>> list = new ArrayList<>();
+		for (int i = 0; i < 1000; i++)
+			list.add(new IntegerInterval(i * 10, i * 10 + 5, Bounded.CLOSED));
+		for (int i = 0; i < 100; i++)
+			list.add(new IntegerInterval(i * 100, i * 100 + 5000, Bounded.CLOSED));
+		AugmentedIntervalList<Integer> aiList = AugmentedIntervalList.build(list);
+		assertTrue(aiList.components() > 1);
+		assertEquals(list.size(), aiList.size());
+		assertEquals(new HashSet<>(list), new HashSet<>(aiList));
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void test_removeThrows(){
+		AugmentedIntervalList<Integer> aiList = AugmentedIntervalList.build(Arrays.asList(new IntegerInterval(0, 10, Bounded.CLOSED)));
+		aiList.remove(new IntegerInterval(0, 10, Bounded.CLOSED));
+	}
+
+	@Test
+	@Ignore
+	public void benchmark_highlyOverlapping(){
+		Random random = new Random();
+		int range = 10_000_000;
+		List<Interval<Integer>> list = new ArrayList<>();
+		for (int i = 0; i < 1_000_000; i++){
+			int start = random.nextInt(range);
+			// 1% of the intervals cover a large part of the range, the rest are short
+			int length = random.nextInt(100) == 0 ? random.nextInt(range / 10) : random.nextInt(1_000);
+			list.add(new IntegerInterval(start, start + length, Bounded.CLOSED));
+		}
+		int[] queries = new int[100_000];
+		for (int i = 0; i < queries.length; i++)
+			queries[i] = random.nextInt(range);
+
+		long time = System.currentTimeMillis();
+		IntervalTree<Integer> tree = new IntervalTree<>();
+		tree.addAll(list);
+		System.out.println("IntervalTree build: " + (System.currentTimeMillis() - time) + " ms");
+		time = System.currentTimeMillis();
+		long found = 0;
+		for (int query: queries)
+			found += tree.query(new IntegerInterval(query, query + 100, Bounded.CLOSED)).size();
+		System.out.println("IntervalTree queries: " + (System.currentTimeMillis() - time) + " ms, " + found + " results");
+
+		time = System.currentTimeMillis();
+		AugmentedIntervalList<Integer> aiList = AugmentedIntervalList.build(list);
+		System.out.println("AugmentedIntervalList build: " + (System.currentTimeMillis() - time) + " ms, " + aiList.components() + " components");
+		time = System.currentTimeMillis();
+		found = 0;
+		for (int query: queries)
+			found += aiList.query(new IntegerInterval(query, query + 100, Bounded.CLOSED)).size();
+		System.out.println("AugmentedIntervalList queries: " + (System.currentTimeMillis() - time) + " ms, " + found + " results");
+	}
+}
@@ -0,0 +1,183 @@
+package com.lodborg.intervaltree;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+import com.lodborg.intervaltree.Interval.*;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class AugmentedIntervalTreeTest {
+
+	@Test
+	public void test_queries(){
+		AugmentedIntervalTree<Integer> tree = new AugmentedIntervalTree<>();
+		List<Interval<Integer>> list = new ArrayList<>();
+		list.add(new IntegerInterval(0, 10, Bounded.CLOSED));
+		list.add(new IntegerInterval(5, 15, Bounded.OPEN));
+		list.add(new IntegerInterval(10, 20, Bounded.CLOSED_RIGHT));
+		list.add(new IntegerInterval(-20, -10, Bounded.CLOSED));
+		list.add(new IntegerInterval(30, Unbounded.CLOSED_LEFT));
+		for (Interval<Integer> next: list)
+			assertTrue(tree.add(next));
+		assertFalse(tree.add(new IntegerInterval(30, Unbounded.CLOSED_LEFT)));
+		assertFalse(tree.add(new IntegerInterval(4, 5, Bounded.OPEN)));
+		assertEquals(5, tree.size());
+		assertTrue(tree.contains(new IntegerInterval(5, 15, Bounded.OPEN)));
+		assertFalse(tree.contains(new IntegerInterval(5, 15, Bounded.CLOSED)));
+
+		Set<Interval<Integer>> res = tree.query(10);
+		assertEquals(2, res.size());
+		assertTrue(res.contains(list.get(0)));
+		assertTrue(res.contains(list.get(1)));
+
+		res = tree.query(new IntegerInterval(-10, 0, Bounded.CLOSED));
+		assertEquals(2, res.size());
+		assertTrue(res.contains(list.get(0)));
+		assertTrue(res.contains(list.get(3)));
+
+		res = tree.query(new IntegerInterval(20, Unbounded.CLOSED_LEFT));
+		assertEquals(2, res.size());
+		assertTrue(res.contains(list.get(2)));
+		assertTrue(res.contains(list.get(4)));
+
+		assertEquals(5, tree.query(new IntegerInterval()).size());
+		assertEquals(0, tree.query(new IntegerInterval(21, 29, Bounded.CLOSED)).size());
+
+		assertTrue(tree.remove(new IntegerInterval(0, 10, Bounded.CLOSED)));
+		assertFalse(tree.remove(new IntegerInterval(0, 10, Bounded.CLOSED)));
+		assertEquals(4, tree.size());
+		assertEquals(1, tree.query(10).size());
+
+		tree.clear();
+		assertEquals(0, tree.size());
+		assertTrue(tree.query(10).isEmpty());
+	}
+
+	@Test
+	public void test_iteratorOrderAndRemove(){
+		AugmentedIntervalTree<Integer> tree = new AugmentedIntervalTree<>();
+		for (int i = 0; i < 100; i++)
+			tree.add(new IntegerInterval(i, i + 10, Bounded.CLOSED));
+		Iterator<Interval<Integer>> it = tree.iterator();
+		int expected = 0;
+		while (it.hasNext()){
+			Interval<Integer> next = it.next();
+			assertEquals(expected, (int) next.getStart());
+			if (expected % 3 != 0)
+				it.remove();
+			expected++;
+		}
+		assertEquals(100, expected);
+		assertEquals(34, tree.size());
+		assertEquals(4, tree.query(40).size());
+		assertBalanced(tree.root);
+	}
+
+	@Test(expected = ConcurrentModificationException.class)
+	public void test_iteratorFailFast(){
+		AugmentedIntervalTree<Integer> tree = new AugmentedIntervalTree<>();
+		tree.add(new IntegerInterval(0, 10, Bounded.CLOSED));
+		tree.add(new IntegerInterval(5, 10, Bounded.CLOSED));
+		Iterator<Interval<Integer>> it = tree.iterator();
+		it.next();
+		tree.add(new IntegerInterval(7, 10, Bounded.CLOSED));
+		it.next();
+	}
+
+	@Test
+	public void test_sameResultsAsLinearSearch(){
+		Random random = new Random(23);
+		Bounded[] types = Bounded.values();
+		AugmentedIntervalTree<Integer> tree = new AugmentedIntervalTree<>();
+		Set<Interval<Integer>> set = new HashSet<>();
+		for (int round = 0; round < 20; round++){
+			for (int i = 0; i < 500; i++){
+				IntegerInterval interval = IntervalTreeTest.randomInterval(random, 2000);
+				assertEquals(!interval.isEmpty() && !set.contains(interval), tree.add(interval));
+				if (!interval.isEmpty())
+					set.add(interval);
+			}
+			List<Interval<Integer>> stored = new ArrayList<>(set);
+			Collections.shuffle(stored, random);
+			for (int i = 0; i < 200; i++){
+				assertTrue(tree.remove(stored.get(i)));
+				set.remove(stored.get(i));
+			}
+			assertEquals(set.size(), tree.size());
+			assertEquals(set, new HashSet<>(tree));
+			assertBalanced(tree.root);
+
+			for (int i = 0; i < 50; i++){
+				int point = random.nextInt(2200) - 1100;
+				Set<Interval<Integer>> expected = new HashSet<>();
+				for (Interval<Integer> next: set){
+					if (next.contains(point))
+						expected.add(next);
+				}
+				assertEquals(expected, tree.query(point));
+
+				int start = random.nextInt(2200) - 1100;
+				IntegerInterval query = new IntegerInterval(start, start + random.nextInt(50), types[random.nextInt(types.length)]);
+				expected.clear();
+				for (Interval<Integer> next: set){
+					if (next.intersects(query))
+						expected.add(next);
+				}
+				assertEquals(expected, tree.query(query));
+			}
+		}
+	}
+
+	/**
+	 * Checks the AVL property, the order and the max-end augmentation of every node.
+	 *
+	 * @return The height of the subtree.
+	 */
+	private static int assertBalanced(AugmentedIntervalTree.Node<Integer> node){
+		if (node == null)
+			return 0;
+		int left = assertBalanced(node.left);
+		int right = assertBalanced(node.right);
+		assertTrue(Math.abs(left - right) <= 1);
+		assertEquals(Math.max(left, right) + 1, node.height);
+		Interval<Integer> maxEnd = node.interval;
+		if (node.left != null){
+			assertTrue(Interval.sweepLeftToRight.compare(node.left.interval, node.interval) < 0);
+			if (node.left.maxEnd.compareEnds(maxEnd) > 0)
+				maxEnd = node.left.maxEnd;
+		}
+		if (node.right != null){
+			assertTrue(Interval.sweepLeftToRight.compare(node.right.interval, node.interval) > 0);
+			if (node.right.maxEnd.compareEnds(maxEnd) > 0)
+				maxEnd = node.right.maxEnd;
+		}
+		assertEquals(0, maxEnd.compareEnds(node.maxEnd));
+		return node.height;
+	}
+
+	@Test
+	@Ignore
+	public void benchmark_insertions(){
+		Random random = new Random();
+		List<Interval<Integer>> list = new ArrayList<>();
+		for (int i = 0; i < 1_000_000; i++){
+			int start = random.nextInt(10_000_000);
+			list.add(new IntegerInterval(start, start + random.nextInt(100_000), Bounded.CLOSED));
+		}
+
+		long time = System.currentTimeMillis();
+		IntervalTree<Integer> intervalTree = new IntervalTree<>();
+		for (Interval<Integer> next: list)
+			intervalTree.add(next);
+		System.out.println("IntervalTree insertions: " + (System.currentTimeMillis() - time) + "ms");
+
+		time = System.currentTimeMillis();
+		AugmentedIntervalTree<Integer> augmentedTree = new AugmentedIntervalTree<>();
+		for (Interval<Integer> next: list)
+			augmentedTree.add(next);
+		System.out.println("AugmentedIntervalTree insertions: " + (System.currentTimeMillis() - time) + "ms");
+	}
+}
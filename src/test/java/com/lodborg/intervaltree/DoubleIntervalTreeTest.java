@@ -0,0 +1,192 @@
+package com.lodborg.intervaltree;
+
+import org.junit.Test;
+
+import com.lodborg.intervaltree.Interval.*;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class DoubleIntervalTreeTest {
+
+	private static Set<Interval<Double>> toSet(DoubleIntervalTree tree, int[] handles){
+		Set<Interval<Double>> set = new HashSet<>();
+		for (int id: handles)
+			set.add(tree.toInterval(id));
+		assertEquals(handles.length, set.size());
+		return set;
+	}
+
+	@Test
+	public void test_tree(){
+		DoubleIntervalTree tree = new DoubleIntervalTree();
+		DoubleInterval[] arr = new DoubleInterval[]{
+				new DoubleInterval(9.0, 22.0, Bounded.CLOSED),
+				new DoubleInterval(12.0, 25.0, Bounded.OPEN),
+				new DoubleInterval(0.0, 5.0, Bounded.CLOSED),
+				new DoubleInterval(102.0, 200.0, Bounded.CLOSED_RIGHT),
+				new DoubleInterval(-20.0, -15.0, Bounded.CLOSED_LEFT)
+		};
+
+		for (DoubleInterval next: arr)
+			tree.add(next);
+
+		Set<Interval<Double>> res = toSet(tree, tree.query(new DoubleInterval(-17.5, -0.0, Bounded.CLOSED_RIGHT)));
+		assertEquals(2, res.size());
+		assertTrue(res.contains(arr[2]));
+		assertTrue(res.contains(arr[4]));
+
+		res = toSet(tree, tree.query(new DoubleInterval(Double.NEGATIVE_INFINITY, 12.0, Bounded.CLOSED)));
+		assertEquals(3, res.size());
+		assertTrue(res.contains(arr[0]));
+		assertTrue(res.contains(arr[2]));
+		assertTrue(res.contains(arr[4]));
+
+		res = toSet(tree, tree.query(new DoubleInterval(-16.0, 0.0001, Bounded.OPEN)));
+		assertEquals(2, res.size());
+		assertTrue(res.contains(arr[2]));
+		assertTrue(res.contains(arr[4]));
+	}
+
+	@Test
+	public void test_rejectEmptyIntervals(){
+		DoubleIntervalTree tree = new DoubleIntervalTree();
+		assertEquals(-1, tree.add(Double.NaN, 5.0, Bounded.CLOSED));
+		assertEquals(-1, tree.add(1.0, Double.NaN, Bounded.CLOSED));
+		assertEquals(-1, tree.add(Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Bounded.CLOSED));
+		assertEquals(-1, tree.add(Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Bounded.CLOSED));
+		assertEquals(-1, tree.add(4.0, 4.0, Bounded.CLOSED_LEFT));
+		assertEquals(-1, tree.add(8.0, 3.0, Bounded.CLOSED));
+		assertEquals(-1, tree.add(1.0, Math.nextUp(1.0), Bounded.OPEN));
+		assertEquals(0, tree.size());
+
+		assertTrue(tree.add(4.0, 5.0, Bounded.OPEN) >= 0);
+		assertTrue(tree.add(1.0, Math.nextUp(1.0), Bounded.CLOSED_LEFT) >= 0);
+		assertTrue(tree.add(Double.MIN_VALUE, 2 * Double.MIN_VALUE, Bounded.CLOSED) >= 0);
+		assertEquals(3, tree.size());
+		assertEquals(1, tree.query(1.0).length);
+		assertEquals(0, tree.query(Math.nextUp(1.0)).length);
+		assertEquals(1, tree.query(Double.MIN_VALUE).length);
+	}
+
+	@Test
+	public void test_negativeZeroAndNaN(){
+		DoubleIntervalTree tree = new DoubleIntervalTree();
+		int id = tree.add(-0.0, 3.0, Bounded.CLOSED);
+		assertEquals(-1, tree.add(0.0, 3.0, Bounded.CLOSED));
+		assertEquals(0.0, tree.getStart(id), 0);
+		assertEquals(Double.doubleToLongBits(0.0), Double.doubleToLongBits(tree.getStart(id)));
+		assertEquals(id, tree.find(0.0, 3.0, Bounded.CLOSED));
+		assertEquals(1, tree.query(-0.0).length);
+		assertEquals(1, tree.query(-1.0, -0.0).length);
+		assertEquals(0, tree.query(-1.0, -0.0, Bounded.CLOSED_LEFT).length);
+
+		assertEquals(0, tree.query(Double.NaN).length);
+		assertEquals(0, tree.query(Double.NaN, 1.0).length);
+		assertFalse(tree.remove(Double.NaN, 3.0, Bounded.CLOSED));
+	}
+
+	@Test
+	public void test_infinity(){
+		DoubleIntervalTree tree = new DoubleIntervalTree();
+		int all = tree.add(new DoubleInterval());
+		int right = tree.add(new DoubleInterval(9.0, Unbounded.OPEN_LEFT));
+		int left = tree.add(Double.NEGATIVE_INFINITY, -3.0, Bounded.OPEN);
+		int huge = tree.add(-Double.MAX_VALUE, Double.MAX_VALUE, Bounded.CLOSED);
+
+		assertEquals(Double.NEGATIVE_INFINITY, tree.getStart(all), 0);
+		assertEquals(Double.POSITIVE_INFINITY, tree.getEnd(right), 0);
+		assertTrue(tree.isEndInclusive(right));
+		assertEquals(-1, tree.add(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, Bounded.CLOSED));
+
+		int[] res = tree.query(Double.POSITIVE_INFINITY);
+		int[] expected = new int[]{all, right};
+		Arrays.sort(res);
+		Arrays.sort(expected);
+		assertArrayEquals(expected, res);
+		assertArrayEquals(new int[]{all}, tree.query(Double.NEGATIVE_INFINITY));
+		assertEquals(4, tree.query(-Double.MAX_VALUE, Double.MAX_VALUE).length);
+		assertEquals(3, tree.query(-4.0).length);
+		assertEquals(2, tree.query(9.0).length);
+
+		res = tree.query(-3.0);
+		expected = new int[]{all, huge};
+		Arrays.sort(res);
+		Arrays.sort(expected);
+		assertArrayEquals(expected, res);
+		assertEquals(2, tree.query(-3.0, 9.0, Bounded.OPEN).length);
+		assertEquals(4, tree.query(-3.5, 9.5, Bounded.OPEN).length);
+		assertTrue(tree.remove(new DoubleInterval()));
+		assertEquals(3, tree.size());
+	}
+
+	@Test
+	public void test_openEndPointsAroundAdjacentDoubles(){
+		DoubleIntervalTree tree = new DoubleIntervalTree();
+		double next = Math.nextUp(1.0);
+		int right = tree.add(1.0, Double.POSITIVE_INFINITY, Bounded.CLOSED_RIGHT);
+		int left = tree.add(Double.NEGATIVE_INFINITY, next, Bounded.CLOSED_LEFT);
+		int point = tree.add(1.0, 1.0, Bounded.CLOSED);
+		int touching = tree.add(next, 2.0, Bounded.CLOSED);
+
+		assertEquals(1.0, tree.getStart(right), 0);
+		assertFalse(tree.isStartInclusive(right));
+		assertEquals(next, tree.getEnd(left), 0);
+		assertFalse(tree.isEndInclusive(left));
+		int open = tree.add(-Double.MAX_VALUE, Double.POSITIVE_INFINITY, Bounded.OPEN);
+		assertEquals(-Double.MAX_VALUE, tree.getStart(open), 0);
+		assertEquals(Double.POSITIVE_INFINITY, tree.getEnd(open), 0);
+		assertTrue(tree.remove(-Double.MAX_VALUE, Double.POSITIVE_INFINITY, Bounded.OPEN));
+
+		// As in DoubleInterval#intersects, open end points are compared as real numbers,
+		// so (1, +inf] intersects [-inf, nextUp(1)), even though they share no double.
+		assertEquals(toSet(tree, new int[]{left, point, right}), toSet(tree, tree.query(Double.NEGATIVE_INFINITY, next, Bounded.CLOSED_LEFT)));
+		assertEquals(toSet(tree, new int[]{left, right, touching}), toSet(tree, tree.query(1.0, 3.0, Bounded.CLOSED_RIGHT)));
+		assertEquals(4, tree.query(1.0, next, Bounded.CLOSED).length);
+		assertEquals(0, tree.query(1.0, next, Bounded.OPEN).length);
+		assertArrayEquals(new int[]{left}, tree.query(0.5, 1.0, Bounded.OPEN));
+	}
+
+	@Test
+	public void test_sameResultsAsLinearSearch(){
+		Random random = new Random(3);
+		Bounded[] types = Bounded.values();
+		DoubleIntervalTree tree = new DoubleIntervalTree();
+		Set<Interval<Double>> list = new HashSet<>();
+
+		for (int i = 0; i < 5000; i++){
+			double start = random.nextInt(2000) - 1000 + random.nextInt(4) / 4.0;
+			double end = start + random.nextInt(100) / 2.0;
+			Bounded type = types[random.nextInt(types.length)];
+			DoubleInterval interval = new DoubleInterval(start, end, type);
+			if (random.nextInt(4) == 0){
+				assertEquals(list.remove(interval), tree.remove(start, end, type));
+			} else if (!interval.isEmpty()){
+				assertEquals(list.add(interval), tree.add(interval) >= 0);
+			}
+		}
+		assertEquals(list.size(), tree.size());
+
+		for (int i = 0; i < 500; i++){
+			double point = random.nextInt(2200) - 1100 + random.nextInt(4) / 4.0;
+			Set<Interval<Double>> expected = new HashSet<>();
+			for (Interval<Double> next: list){
+				if (next.contains(point))
+					expected.add(next);
+			}
+			assertEquals(expected, toSet(tree, tree.query(point)));
+
+			double start = random.nextInt(2200) - 1100 + random.nextInt(4) / 4.0;
+			double end = start + random.nextInt(50) / 2.0;
+			Bounded type = types[random.nextInt(types.length)];
+			DoubleInterval query = new DoubleInterval(start, end, type);
+			expected.clear();
+			for (Interval<Double> next: list){
+				if (next.intersects(query))
+					expected.add(next);
+			}
+			assertEquals(expected, toSet(tree, tree.query(query)));
+		}
+	}
+}
@@ -0,0 +1,38 @@
+package com.lodborg.intervaltree;
+
+import org.junit.Test;
+
+import com.lodborg.intervaltree.Interval.*;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class ImplicitIntervalIndexTest {
+
+	@Test
+	public void test_allSizes(){
+		// Checks the right border of the implicit tree for sizes that aren't a power of two
+		for (int n = 0; n < 70; n++){
+			List<Interval<Integer>> list = new ArrayList<>();
+			for (int i = 0; i < n; i++)
+				list.add(new IntegerInterval(i, i + (i % 7 == 0 ? 100 - i : 3), Bounded.CLOSED));
+			ImplicitIntervalIndex<Integer> index = ImplicitIntervalIndex.build(list);
+			assertEquals(n, index.size());
+			for (int point = -1; point <= 101; point++){
+				Set<Interval<Integer>> expected = new HashSet<>();
+				for (Interval<Integer> next: list){
+					if (next.contains(point))
+						expected.add(next);
+				}
+				assertEquals(expected, index.query(point));
+			}
+		}
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void test_removeThrows(){
+		ImplicitIntervalIndex<Integer> index = ImplicitIntervalIndex.build(Arrays.asList(new IntegerInterval(0, 10, Bounded.CLOSED)));
+		index.remove(new IntegerInterval(0, 10, Bounded.CLOSED));
+	}
+}
@@ -0,0 +1,161 @@
+package com.lodborg.intervaltree;
+
+import org.junit.Test;
+
+import com.lodborg.intervaltree.Interval.*;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class IntIntervalTreeTest {
+
+	private static Set<Interval<Integer>> toSet(IntIntervalTree tree, int[] handles){
+		Set<Interval<Integer>> set = new HashSet<>();
+		for (int id: handles)
+			set.add(tree.toInterval(id));
+		assertEquals(handles.length, set.size());
+		return set;
+	}
+
+	@Test
+	public void test_rejectEmptyIntervals(){
+		IntIntervalTree tree = new IntIntervalTree();
+		assertEquals(-1, tree.add(4, 5, Bounded.OPEN));
+		assertEquals(-1, tree.add(4, 4, Bounded.CLOSED_LEFT));
+		assertEquals(-1, tree.add(4, 4, Bounded.CLOSED_RIGHT));
+		assertEquals(-1, tree.add(8, 3, Bounded.CLOSED));
+		assertEquals(-1, tree.add(Integer.MAX_VALUE, Integer.MAX_VALUE, Bounded.OPEN));
+		assertEquals(0, tree.size());
+		assertTrue(tree.add(4, 6, Bounded.OPEN) >= 0);
+		assertTrue(tree.add(4, 4, Bounded.CLOSED) >= 0);
+		assertEquals(2, tree.size());
+	}
+
+	@Test
+	public void test_rejectDuplicates(){
+		IntIntervalTree tree = new IntIntervalTree();
+		int id = tree.add(10, 20, Bounded.CLOSED);
+		assertTrue(id >= 0);
+		assertEquals(-1, tree.add(10, 20, Bounded.CLOSED));
+		assertEquals(1, tree.size());
+
+		// Contains the same integers as [10, 20], but is a different interval
+		assertTrue(tree.add(9, 21, Bounded.OPEN) >= 0);
+		assertEquals(2, tree.size());
+		assertEquals(id, tree.find(10, 20, Bounded.CLOSED));
+	}
+
+	@Test
+	public void test_handles(){
+		IntIntervalTree tree = new IntIntervalTree();
+		int id = tree.add(-3, 12, Bounded.CLOSED_RIGHT);
+		assertEquals(-3, tree.getStart(id));
+		assertEquals(12, tree.getEnd(id));
+		assertFalse(tree.isStartInclusive(id));
+		assertTrue(tree.isEndInclusive(id));
+		assertEquals(new IntegerInterval(-3, 12, Bounded.CLOSED_RIGHT), tree.toInterval(id));
+	}
+
+	@Test
+	public void test_queryPoint(){
+		IntIntervalTree tree = new IntIntervalTree();
+		tree.add(0, 10, Bounded.CLOSED);
+		tree.add(5, 15, Bounded.OPEN);
+		tree.add(10, 20, Bounded.CLOSED_RIGHT);
+		tree.add(-20, -10, Bounded.CLOSED);
+
+		Set<Interval<Integer>> res = toSet(tree, tree.query(10));
+		assertEquals(2, res.size());
+		assertTrue(res.contains(new IntegerInterval(0, 10, Bounded.CLOSED)));
+		assertTrue(res.contains(new IntegerInterval(5, 15, Bounded.OPEN)));
+
+		res = toSet(tree, tree.query(5));
+		assertEquals(1, res.size());
+		assertTrue(res.contains(new IntegerInterval(0, 10, Bounded.CLOSED)));
+
+		assertEquals(0, tree.query(-5).length);
+		assertEquals(1, tree.query(-10).length);
+	}
+
+	@Test
+	public void test_queryInterval(){
+		IntIntervalTree tree = new IntIntervalTree();
+		tree.add(0, 10, Bounded.CLOSED);
+		tree.add(5, 15, Bounded.OPEN);
+		tree.add(10, 20, Bounded.CLOSED_RIGHT);
+		tree.add(-20, -10, Bounded.CLOSED);
+
+		Set<Interval<Integer>> res = toSet(tree, tree.query(-10, 0));
+		assertEquals(2, res.size());
+		assertTrue(res.contains(new IntegerInterval(0, 10, Bounded.CLOSED)));
+		assertTrue(res.contains(new IntegerInterval(-20, -10, Bounded.CLOSED)));
+
+		res = toSet(tree, tree.query(-10, 0, Bounded.OPEN));
+		assertEquals(0, res.size());
+
+		res = toSet(tree, tree.query(15, 16, Bounded.CLOSED_LEFT));
+		assertEquals(1, res.size());
+		assertTrue(res.contains(new IntegerInterval(10, 20, Bounded.CLOSED_RIGHT)));
+
+		assertEquals(0, tree.query(3, 4, Bounded.OPEN).length);
+		assertEquals(4, tree.query(Integer.MIN_VALUE, Integer.MAX_VALUE).length);
+	}
+
+	@Test
+	public void test_remove(){
+		IntIntervalTree tree = new IntIntervalTree();
+		tree.add(20, 30, Bounded.CLOSED);
+		tree.add(0, 10, Bounded.CLOSED_LEFT);
+		tree.add(40, 50, Bounded.CLOSED_RIGHT);
+		assertFalse(tree.remove(20, 30, Bounded.OPEN));
+		assertTrue(tree.remove(20, 30, Bounded.CLOSED));
+		assertFalse(tree.contains(20, 30, Bounded.CLOSED));
+		assertEquals(2, tree.size());
+		assertEquals(0, tree.query(22).length);
+		assertEquals(1, tree.query(45).length);
+		assertEquals(1, tree.query(0).length);
+	}
+
+	@Test
+	public void test_sameResultsAsLinearSearch(){
+		Random random = new Random(42);
+		Bounded[] types = Bounded.values();
+		IntIntervalTree tree = new IntIntervalTree();
+		Set<Interval<Integer>> list = new HashSet<>();
+
+		for (int i = 0; i < 5000; i++){
+			int start = random.nextInt(2000) - 1000;
+			int end = start + random.nextInt(100);
+			Bounded type = types[random.nextInt(types.length)];
+			IntegerInterval interval = new IntegerInterval(start, end, type);
+			if (random.nextInt(4) == 0){
+				assertEquals(list.remove(interval), tree.remove(start, end, type));
+			} else if (!interval.isEmpty()){
+				assertEquals(list.add(interval), tree.add(start, end, type) >= 0);
+			}
+		}
+		assertEquals(list.size(), tree.size());
+
+		for (int i = 0; i < 500; i++){
+			int point = random.nextInt(2200) - 1100;
+			Set<Interval<Integer>> expected = new HashSet<>();
+			for (Interval<Integer> next: list){
+				if (next.contains(point))
+					expected.add(next);
+			}
+			assertEquals(expected, toSet(tree, tree.query(point)));
+
+			int start = random.nextInt(2200) - 1100;
+			int end = start + random.nextInt(50);
+			Bounded type = types[random.nextInt(types.length)];
+			IntegerInterval query = new IntegerInterval(start, end, type);
+			expected.clear();
+			for (Interval<Integer> next: list){
+				if (next.intersects(query))
+					expected.add(next);
+			}
+			assertEquals(expected, toSet(tree, tree.query(start, end, type)));
+		}
+	}
+}
@@ -23,6 +23,53 @@ public class IntegerIntervalTest {
 			assertNull(interval.getMidpoint());
 	}
 
+	@Test
+	public void test_midpointIgnoresExclusiveEndPoints(){
+		assertEquals(4, (int) new IntegerInterval(4, 5, Bounded.CLOSED).getMidpoint());
+		assertEquals(5, (int) new IntegerInterval(4, 5, Bounded.CLOSED_RIGHT).getMidpoint());
+		assertEquals(4, (int) new IntegerInterval(4, 5, Bounded.CLOSED_LEFT).getMidpoint());
+		assertEquals(5, (int) new IntegerInterval(4, 6, Bounded.OPEN).getMidpoint());
+		assertEquals(5, (int) new IntegerInterval(0, 10, Bounded.CLOSED).getMidpoint());
+		assertEquals(5, (int) new IntegerInterval(0, 10, Bounded.OPEN).getMidpoint());
+		assertEquals(5, (int) new IntegerInterval(0, 10, Bounded.CLOSED_RIGHT).getMidpoint());
+		assertEquals(4, (int) new IntegerInterval(0, 10, Bounded.CLOSED_LEFT).getMidpoint());
+		assertEquals(-4, (int) new IntegerInterval(-5, -4, Bounded.CLOSED_RIGHT).getMidpoint());
+		assertEquals(-5, (int) new IntegerInterval(-5, -4, Bounded.CLOSED_LEFT).getMidpoint());
+		assertEquals(Integer.MAX_VALUE, (int) new IntegerInterval(Integer.MAX_VALUE - 1, Integer.MAX_VALUE, Bounded.CLOSED_RIGHT).getMidpoint());
+		assertEquals(Integer.MIN_VALUE, (int) new IntegerInterval(Integer.MIN_VALUE, Integer.MIN_VALUE + 1, Bounded.CLOSED_LEFT).getMidpoint());
+	}
+
+	@Test
+	public void test_unboundedMidpoint(){
+		assertEquals(0, (int) new IntegerInterval().getMidpoint());
+		assertEquals(1073741828, (int) new IntegerInterval(10, Unbounded.CLOSED_LEFT).getMidpoint());
+		assertEquals(1073741829, (int) new IntegerInterval(10, Unbounded.OPEN_LEFT).getMidpoint());
+		assertEquals(-1073741819, (int) new IntegerInterval(10, Unbounded.CLOSED_RIGHT).getMidpoint());
+		assertEquals(-1073741819, (int) new IntegerInterval(9, Unbounded.CLOSED_RIGHT).getMidpoint());
+		assertEquals(-1073741819, (int) new IntegerInterval(10, Unbounded.OPEN_RIGHT).getMidpoint());
+		assertEquals(Integer.MAX_VALUE, (int) new IntegerInterval(Integer.MAX_VALUE - 1, Unbounded.OPEN_LEFT).getMidpoint());
+		assertEquals(Integer.MIN_VALUE, (int) new IntegerInterval(Integer.MIN_VALUE + 1, Unbounded.OPEN_RIGHT).getMidpoint());
+	}
+
+	@Test
+	public void test_midpointContainedInInterval(){
+		for (int start = -3; start <= 3; start++){
+			for (int end = start; end <= start + 3; end++){
+				for (Bounded type: Bounded.values()){
+					IntegerInterval interval = new IntegerInterval(start, end, type);
+					if (!interval.isEmpty())
+						assertTrue(interval.contains(interval.getMidpoint()));
+				}
+			}
+		}
+		for (Unbounded type: Unbounded.values()){
+			for (int point = -1; point <= 1; point++){
+				IntegerInterval interval = new IntegerInterval(point, type);
+				assertTrue(interval.contains(interval.getMidpoint()));
+			}
+		}
+	}
+
 	@Test
 	public void test_isNotPoint(){
 		IntegerInterval[] intervals = new IntegerInterval[]{
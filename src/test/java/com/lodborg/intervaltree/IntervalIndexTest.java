@@ -0,0 +1,94 @@
+package com.lodborg.intervaltree;
+
+import org.junit.Test;
+
+import com.lodborg.intervaltree.Interval.*;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class IntervalIndexTest {
+
+	private static List<IntervalIndex<Integer>> buildAll(List<Interval<Integer>> list){
+		List<IntervalIndex<Integer>> indexes = new ArrayList<>();
+		indexes.add(StaticIntervalTree.build(list));
+		indexes.add(AugmentedIntervalList.build(list));
+		indexes.add(ImplicitIntervalIndex.build(list));
+		indexes.add(NestedContainmentList.build(list));
+		return indexes;
+	}
+
+	private static String nameOf(IntervalIndex<Integer> index){
+		return index.getClass().getSimpleName();
+	}
+
+	@Test
+	public void test_queries(){
+		List<Interval<Integer>> list = new ArrayList<>();
+		list.add(new IntegerInterval(0, 10, Bounded.CLOSED));
+		list.add(new IntegerInterval(5, 15, Bounded.OPEN));
+		list.add(new IntegerInterval(10, 20, Bounded.CLOSED_RIGHT));
+		list.add(new IntegerInterval(-20, -10, Bounded.CLOSED));
+		list.add(new IntegerInterval(30, Unbounded.CLOSED_LEFT));
+		list.add(new IntegerInterval(30, Unbounded.CLOSED_LEFT));
+		list.add(new IntegerInterval(4, 5, Bounded.OPEN));
+
+		for (IntervalIndex<Integer> index: buildAll(list)){
+			String name = nameOf(index);
+			assertEquals(name, 5, index.size());
+			assertTrue(name, index.contains(new IntegerInterval(5, 15, Bounded.OPEN)));
+			assertFalse(name, index.contains(new IntegerInterval(5, 15, Bounded.CLOSED)));
+			assertFalse(name, index.contains(new IntegerInterval(4, 5, Bounded.OPEN)));
+
+			assertEquals(name, new HashSet<>(Arrays.asList(list.get(0), list.get(1))), index.query(10));
+			assertEquals(name, new HashSet<>(Arrays.asList(list.get(0), list.get(3))), index.query(new IntegerInterval(-10, 0, Bounded.CLOSED)));
+			assertEquals(name, new HashSet<>(Arrays.asList(list.get(2), list.get(4))), index.query(new IntegerInterval(20, Unbounded.CLOSED_LEFT)));
+			assertEquals(name, 5, index.query(new IntegerInterval()).size());
+			assertEquals(name, 0, index.query(new IntegerInterval(21, 29, Bounded.CLOSED)).size());
+			assertEquals(name, 1, index.query(Integer.MAX_VALUE).size());
+		}
+	}
+
+	@Test
+	public void test_sameResultsAsLinearSearch(){
+		Random random = new Random(17);
+		Bounded[] types = Bounded.values();
+		List<Interval<Integer>> list = IntervalTreeTest.randomIntervals(random, 5000);
+		List<IntervalIndex<Integer>> indexes = buildAll(list);
+
+		Set<Interval<Integer>> set = new HashSet<>();
+		for (Interval<Integer> next: list){
+			if (!next.isEmpty())
+				set.add(next);
+		}
+		for (IntervalIndex<Integer> index: indexes){
+			assertEquals(nameOf(index), set.size(), index.size());
+			assertEquals(nameOf(index), set, new HashSet<>(index));
+			for (Interval<Integer> next: set)
+				assertTrue(nameOf(index), index.contains(next));
+		}
+
+		for (int i = 0; i < 500; i++){
+			int point = random.nextInt(2200) - 1100;
+			Set<Interval<Integer>> expected = new HashSet<>();
+			for (Interval<Integer> next: set){
+				if (next.contains(point))
+					expected.add(next);
+			}
+			for (IntervalIndex<Integer> index: indexes)
+				assertEquals(nameOf(index), expected, index.query(point));
+
+			int start = random.nextInt(2200) - 1100;
+			int end = start + random.nextInt(50);
+			IntegerInterval query = new IntegerInterval(start, end, types[random.nextInt(types.length)]);
+			expected.clear();
+			for (Interval<Integer> next: set){
+				if (next.intersects(query))
+					expected.add(next);
+			}
+			for (IntervalIndex<Integer> index: indexes)
+				assertEquals(nameOf(index), expected, index.query(query));
+		}
+	}
+}
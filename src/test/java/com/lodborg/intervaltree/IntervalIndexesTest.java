@@ -0,0 +1,59 @@
+package com.lodborg.intervaltree;
+
+import org.junit.Test;
+
+import com.lodborg.intervaltree.Interval.*;
+import com.lodborg.intervaltree.IntervalIndexes.*;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class IntervalIndexesTest {
+
+	@Test
+	public void test_engineSelection(){
+		List<Interval<Integer>> list = Arrays.<Interval<Integer>>asList(new IntegerInterval(0, 10, Bounded.CLOSED));
+		assertTrue(IntervalIndexes.<Integer>create(Workload.READ_MOSTLY) instanceof IntervalTree);
+		assertTrue(IntervalIndexes.<Integer>create(Workload.WRITE_HEAVY) instanceof AugmentedIntervalTree);
+		assertTrue(IntervalIndexes.build(list, Workload.READ_MOSTLY, Overlap.HIGH) instanceof IntervalTree);
+		assertTrue(IntervalIndexes.build(list, Workload.WRITE_HEAVY, Overlap.LOW) instanceof AugmentedIntervalTree);
+		assertTrue(IntervalIndexes.build(list, Workload.READ_ONLY, Overlap.UNKNOWN) instanceof StaticIntervalTree);
+		assertTrue(IntervalIndexes.build(list, Workload.READ_ONLY, Overlap.LOW) instanceof ImplicitIntervalIndex);
+		assertTrue(IntervalIndexes.build(list, Workload.READ_ONLY, Overlap.HIGH) instanceof AugmentedIntervalList);
+		assertTrue(IntervalIndexes.build(list, Workload.READ_ONLY, Overlap.NESTED) instanceof NestedContainmentList);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void test_createReadOnlyThrows(){
+		IntervalIndexes.<Integer>create(Workload.READ_ONLY);
+	}
+
+	@Test
+	public void test_allEnginesSameResults(){
+		Random random = new Random(29);
+		Bounded[] types = Bounded.values();
+		List<Interval<Integer>> list = IntervalTreeTest.randomIntervals(random, 2000);
+		list.add(null);
+
+		List<IntervalIndex<Integer>> indexes = new ArrayList<>();
+		for (Workload workload: Workload.values()){
+			for (Overlap overlap: Overlap.values())
+				indexes.add(IntervalIndexes.build(list, workload, overlap));
+		}
+		IntervalIndex<Integer> reference = indexes.get(0);
+		for (IntervalIndex<Integer> index: indexes){
+			assertEquals(reference.size(), index.size());
+			assertEquals(new HashSet<>(reference), new HashSet<>(index));
+		}
+		for (int i = 0; i < 200; i++){
+			int point = random.nextInt(2200) - 1100;
+			int start = random.nextInt(2200) - 1100;
+			IntegerInterval query = new IntegerInterval(start, start + random.nextInt(50), types[random.nextInt(types.length)]);
+			for (IntervalIndex<Integer> index: indexes){
+				assertEquals(reference.query(point), index.query(point));
+				assertEquals(reference.query(query), index.query(query));
+			}
+		}
+	}
+}
@@ -1,10 +1,12 @@
 package com.lodborg.intervaltree;
 
+import org.junit.Ignore;
 import org.junit.Test;
 
 import com.lodborg.intervaltree.Interval.*;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.hamcrest.core.Is.is;
 import static org.junit.Assert.*;
@@ -150,10 +152,13 @@ public class IntervalTreeTest {
 		tree.remove(a);
 
 		assertTrue(tree.root == nodeG);
-		assertTrue(tree.root.left == nodeF);
-		assertTrue(nodeF.left == nodeE);
+		assertTrue(tree.root.left == nodeE);
+		assertTrue(nodeE.right == nodeF);
+		assertNull(nodeE.left);
+		assertNull(nodeF.left);
 		assertNull(nodeF.right);
 		assertTrue(nodeG.right == nodeC);
+		assertTrue(nodeG.increasing.contains(b));
 	}
 
 	@Test
@@ -518,6 +523,25 @@ public class IntervalTreeTest {
 		assertThat(new HashSet<>(tree.query(query)), is(new HashSet<>(expected)));
 	}
 
+	/**
+	 * The partial scans of both branches of a range query must skip intervals, which only touch
+	 * the query across a gap between two adjacent Integers.
+	 */
+	@Test
+	public void test_rangeQuerySkipsIntervalsAcrossADiscreteGap(){
+		IntervalTree<Integer> tree = new IntervalTree<>();
+		IntegerInterval root = new IntegerInterval(400, 420, Bounded.CLOSED);
+		IntegerInterval right = new IntegerInterval(430, 440, Bounded.CLOSED_RIGHT);
+		IntegerInterval left = new IntegerInterval(360, 370, Bounded.CLOSED_LEFT);
+		tree.add(root);
+		tree.add(right);
+		tree.add(left);
+		assertEquals(Collections.<Interval<Integer>>singleton(root), tree.query(new IntegerInterval(389, 431, Bounded.CLOSED_LEFT)));
+		assertEquals(Collections.<Interval<Integer>>singleton(root), tree.query(new IntegerInterval(369, 415, Bounded.CLOSED_RIGHT)));
+		assertEquals(new HashSet<Interval<Integer>>(Arrays.asList(root, right)), tree.query(new IntegerInterval(389, 431, Bounded.CLOSED)));
+		assertEquals(new HashSet<Interval<Integer>>(Arrays.asList(root, left)), tree.query(new IntegerInterval(369, 415, Bounded.CLOSED)));
+	}
+
 	@Test
 	public void test_rangeQueryEmptyResult(){
 		IntervalTree<Integer> tree = new IntervalTree<>();
@@ -780,4 +804,1163 @@ public class IntervalTreeTest {
 		tree.add(new IntegerInterval().create(-53053, false, null, true));
 		assertEquals(0, tree.query(-74038).size());
 	}
+
+	@Test
+	public void test_visitorQueriesSameAsSetQueries(){
+		Random random = new Random(31);
+		Bounded[] types = Bounded.values();
+		IntervalTree<Integer> tree = randomTree(random, 2000);
+		for (int i = 0; i < 200; i++){
+			final List<Interval<Integer>> visited = new ArrayList<>();
+			IntervalVisitor<Integer> visitor = new IntervalVisitor<Integer>() {
+				@Override
+				public boolean visit(Interval<Integer> interval) {
+					visited.add(interval);
+					return true;
+				}
+			};
+			int point = random.nextInt(2200) - 1100;
+			assertTrue(tree.query(point, visitor));
+			assertEquals(tree.query(point).size(), visited.size());
+			assertEquals(tree.query(point), new HashSet<>(visited));
+
+			visited.clear();
+			int start = random.nextInt(2200) - 1100;
+			IntegerInterval query = new IntegerInterval(start, start + random.nextInt(200), types[random.nextInt(types.length)]);
+			assertTrue(tree.query(query, visitor));
+			assertEquals(tree.query(query).size(), visited.size());
+			assertEquals(tree.query(query), new HashSet<>(visited));
+		}
+	}
+
+	@Test
+	public void test_visitorStopsEarly(){
+		IntervalTree<Integer> tree = new IntervalTree<>();
+		for (int i = 0; i < 100; i++)
+			tree.add(new IntegerInterval(i, i + 50, Bounded.CLOSED));
+		final int[] count = new int[1];
+		IntervalVisitor<Integer> visitor = new IntervalVisitor<Integer>() {
+			@Override
+			public boolean visit(Interval<Integer> interval) {
+				return ++count[0] < 3;
+			}
+		};
+		assertFalse(tree.query(60, visitor));
+		assertEquals(3, count[0]);
+
+		count[0] = 0;
+		assertFalse(tree.query(new IntegerInterval(0, 200, Bounded.CLOSED), visitor));
+		assertEquals(3, count[0]);
+
+		count[0] = 0;
+		assertTrue(tree.query(new IntegerInterval(200, 300, Bounded.CLOSED), visitor));
+		assertEquals(0, count[0]);
+	}
+
+	@Test
+	public void test_countOverlappingSameAsQuerySize(){
+		Random random = new Random(37);
+		Bounded[] types = Bounded.values();
+		IntervalTree<Integer> tree = new IntervalTree<>();
+		for (int round = 0; round < 10; round++){
+			for (int i = 0; i < 500; i++)
+				tree.add(randomInterval(random, 2000));
+			// Remove some intervals directly and some through the iterator
+			List<Interval<Integer>> stored = new ArrayList<>(tree);
+			for (int i = 0; i < 100; i++)
+				tree.remove(stored.get(random.nextInt(stored.size())));
+			Iterator<Interval<Integer>> it = tree.iterator();
+			while (it.hasNext()){
+				it.next();
+				if (random.nextInt(20) == 0)
+					it.remove();
+			}
+			assertSubtreeSizes(tree.root);
+			assertEquals(tree.size(), TreeNode.subtreeSize(tree.root));
+
+			for (int i = 0; i < 100; i++){
+				int point = random.nextInt(2200) - 1100;
+				assertEquals(tree.query(point).size(), tree.countOverlapping(point));
+				int start = random.nextInt(2200) - 1100;
+				IntegerInterval query = new IntegerInterval(start, start + random.nextInt(300), types[random.nextInt(types.length)]);
+				assertEquals(tree.query(query).size(), tree.countOverlapping(query));
+			}
+		}
+	}
+
+	@Test
+	public void test_countOverlappingInLargeNodes(){
+		// All intervals contain 0, so they are stored in a single node large enough to use a TreeSet
+		IntervalTree<Integer> tree = new IntervalTree<>();
+		for (int i = 1; i <= 500; i++)
+			tree.add(new IntegerInterval(-i, i, Bounded.CLOSED));
+		assertEquals(500, tree.root.increasing.size());
+		for (int point = -600; point <= 600; point += 7)
+			assertEquals(tree.query(point).size(), tree.countOverlapping(point));
+		assertEquals(101, tree.countOverlapping(new IntegerInterval(400, 1000, Bounded.CLOSED)));
+		assertEquals(0, tree.countOverlapping(new IntegerInterval(500, 1000, Bounded.OPEN)));
+		assertEquals(500, tree.countOverlapping(new IntegerInterval(-5, 5, Bounded.CLOSED)));
+		assertEquals(500, tree.countOverlapping(new IntegerInterval()));
+	}
+
+	@Test
+	public void test_firstOverlap(){
+		IntervalTree<Integer> tree = new IntervalTree<>();
+		Interval<Integer> a = new IntegerInterval(10, 20, Bounded.CLOSED);
+		Interval<Integer> b = new IntegerInterval(30, 40, Bounded.CLOSED_LEFT);
+		assertNull(tree.firstOverlap(a));
+		tree.add(a);
+		tree.add(b);
+		assertEquals(a, tree.firstOverlap(new IntegerInterval(0, 10, Bounded.CLOSED)));
+		assertNull(tree.firstOverlap(new IntegerInterval(0, 10, Bounded.CLOSED_LEFT)));
+		assertEquals(b, tree.firstOverlap(new IntegerInterval(39, 45, Bounded.CLOSED)));
+		assertFalse(tree.anyOverlap(new IntegerInterval(40, 45, Bounded.CLOSED)));
+		assertFalse(tree.anyOverlap(new IntegerInterval(20, 30, Bounded.OPEN)));
+		assertTrue(tree.anyOverlap(new IntegerInterval()));
+		assertFalse(tree.anyOverlap(new IntegerInterval(20, 21, Bounded.OPEN)));
+	}
+
+	@Test
+	public void test_firstOverlapSameAsQuery(){
+		Random random = new Random(41);
+		Bounded[] types = Bounded.values();
+		IntervalTree<Integer> tree = new IntervalTree<>();
+		for (int i = 0; i < 1000; i++){
+			int start = random.nextInt(4000) - 2000;
+			tree.add(new IntegerInterval(start, start + random.nextInt(20), types[random.nextInt(types.length)]));
+		}
+		for (int i = 0; i < 2000; i++){
+			int start = random.nextInt(4400) - 2200;
+			IntegerInterval query = new IntegerInterval(start, start + random.nextInt(10), types[random.nextInt(types.length)]);
+			Set<Interval<Integer>> expected = tree.query(query);
+			Interval<Integer> first = tree.firstOverlap(query);
+			assertEquals(!expected.isEmpty(), tree.anyOverlap(query));
+			if (expected.isEmpty())
+				assertNull(first);
+			else
+				assertTrue(expected.contains(first));
+		}
+	}
+
+	@Test
+	public void test_queryIteratorSameAsQuery(){
+		Random random = new Random(43);
+		Bounded[] types = Bounded.values();
+		assertFalse(new IntervalTree<Integer>().queryIterator(5).hasNext());
+		IntervalTree<Integer> tree = randomTree(random, 2000);
+		for (int i = 0; i < 300; i++){
+			int point = random.nextInt(2200) - 1100;
+			assertIteratesOver(tree.query(point), tree.queryIterator(point));
+			int start = random.nextInt(2200) - 1100;
+			IntegerInterval query = new IntegerInterval(start, start + random.nextInt(300), types[random.nextInt(types.length)]);
+			assertIteratesOver(tree.query(query), tree.queryIterator(query));
+		}
+		assertIteratesOver(new HashSet<>(tree), tree.queryIterator(new IntegerInterval()));
+		assertFalse(tree.queryIterator(new IntegerInterval(5, 6, Bounded.OPEN)).hasNext());
+	}
+
+	private static void assertIteratesOver(Set<Interval<Integer>> expected, Iterator<Interval<Integer>> it){
+		Set<Interval<Integer>> actual = new HashSet<>();
+		int count = 0;
+		while (it.hasNext()){
+			actual.add(it.next());
+			count++;
+		}
+		assertEquals(expected.size(), count);
+		assertEquals(expected, actual);
+		try {
+			it.next();
+			fail();
+		} catch (NoSuchElementException e){
+			// expected
+		}
+	}
+
+	@Test
+	public void test_queryIntoCollection(){
+		Random random = new Random(47);
+		Bounded[] types = Bounded.values();
+		IntervalTree<Integer> tree = randomTree(random, 2000);
+		List<Interval<Integer>> buffer = new ArrayList<>();
+		for (int i = 0; i < 200; i++){
+			buffer.clear();
+			int point = random.nextInt(2200) - 1100;
+			assertSame(buffer, tree.query(point, buffer));
+			assertEquals(tree.query(point).size(), buffer.size());
+			assertEquals(tree.query(point), new HashSet<>(buffer));
+
+			buffer.clear();
+			int start = random.nextInt(2200) - 1100;
+			IntegerInterval query = new IntegerInterval(start, start + random.nextInt(300), types[random.nextInt(types.length)]);
+			tree.query(query, buffer);
+			assertEquals(tree.query(query).size(), buffer.size());
+			assertEquals(tree.query(query), new HashSet<>(buffer));
+		}
+
+		// The previous content of the collection is retained
+		Collection<Object> objects = new ArrayList<>();
+		objects.add("first");
+		tree.query(new IntegerInterval(), objects);
+		assertEquals(tree.size() + 1, objects.size());
+	}
+
+	@Test
+	public void test_paginatedQuery(){
+		Random random = new Random(53);
+		Bounded[] types = Bounded.values();
+		IntervalTree<Integer> tree = randomTree(random, 2000);
+		for (int i = 0; i < 100; i++){
+			int start = random.nextInt(2200) - 1100;
+			IntegerInterval query = new IntegerInterval(start, start + random.nextInt(500), types[random.nextInt(types.length)]);
+			int limit = 1 + random.nextInt(30);
+			List<Interval<Integer>> all = new ArrayList<>();
+			QueryPage<Integer> page = tree.query(query, limit);
+			while (true){
+				assertTrue(page.getIntervals().size() <= limit);
+				all.addAll(page.getIntervals());
+				if (!page.hasMore())
+					break;
+				assertEquals(limit, page.getIntervals().size());
+				page = tree.query(page.getCursor(), limit);
+			}
+			assertEquals(tree.query(query).size(), all.size());
+			assertEquals(tree.query(query), new HashSet<>(all));
+		}
+		assertTrue(tree.query(new IntegerInterval(5, 6, Bounded.OPEN), 10).getIntervals().isEmpty());
+	}
+
+	@Test
+	public void test_paginatedQueryInvalidCursor(){
+		IntervalTree<Integer> tree = new IntervalTree<>();
+		for (int i = 0; i < 10; i++)
+			tree.add(new IntegerInterval(i, i + 10, Bounded.CLOSED));
+		QueryPage<Integer> page = tree.query(new IntegerInterval(0, 5, Bounded.CLOSED), 2);
+		assertEquals(2, page.getIntervals().size());
+		assertTrue(page.hasMore());
+		QueryPage.Cursor<Integer> cursor = page.getCursor();
+		tree.query(cursor, 2);
+		try {
+			tree.query(cursor, 2);
+			fail();
+		} catch (IllegalStateException e){
+			// expected
+		}
+
+		cursor = tree.query(new IntegerInterval(0, 5, Bounded.CLOSED), 2).getCursor();
+		tree.add(new IntegerInterval(20, 30, Bounded.CLOSED));
+		try {
+			tree.query(cursor, 2);
+			fail();
+		} catch (ConcurrentModificationException e){
+			// expected
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void test_paginatedQueryInvalidLimit(){
+		new IntervalTree<Integer>().query(new IntegerInterval(0, 5, Bounded.CLOSED), 0);
+	}
+
+	@Test
+	public void test_containmentQueries(){
+		IntervalTree<Integer> tree = new IntervalTree<>();
+		Interval<Integer> a = new IntegerInterval(0, 100, Bounded.CLOSED);
+		Interval<Integer> b = new IntegerInterval(10, 40, Bounded.CLOSED_LEFT);
+		Interval<Integer> c = new IntegerInterval(10, 20, Bounded.CLOSED);
+		Interval<Integer> d = new IntegerInterval(50, 60, Bounded.OPEN);
+		tree.addAll(Arrays.asList(a, b, c, d));
+
+		Set<Interval<Integer>> res = tree.queryContaining(new IntegerInterval(10, 20, Bounded.CLOSED));
+		assertEquals(new HashSet<>(Arrays.asList(a, b, c)), res);
+		res = tree.queryContaining(new IntegerInterval(30, 55, Bounded.CLOSED));
+		assertEquals(new HashSet<>(Arrays.asList(a)), res);
+		assertTrue(tree.queryContaining(new IntegerInterval(-1, 5, Bounded.CLOSED)).isEmpty());
+
+		res = tree.queryContainedIn(new IntegerInterval(10, 60, Bounded.CLOSED));
+		assertEquals(new HashSet<>(Arrays.asList(b, c, d)), res);
+		res = tree.queryContainedIn(new IntegerInterval(10, 40, Bounded.OPEN));
+		assertTrue(res.isEmpty());
+		assertEquals(new HashSet<>(tree), tree.queryContainedIn(new IntegerInterval()));
+	}
+
+	@Test
+	public void test_containmentQueriesSameAsFilteredQuery(){
+		Random random = new Random(59);
+		Bounded[] types = Bounded.values();
+		IntervalTree<Integer> tree = randomTree(random, 2000);
+		for (int i = 0; i < 300; i++){
+			int start = random.nextInt(2200) - 1100;
+			IntegerInterval query = new IntegerInterval(start, start + random.nextInt(random.nextBoolean() ? 10 : 500), types[random.nextInt(types.length)]);
+			Set<Interval<Integer>> containing = new HashSet<>();
+			Set<Interval<Integer>> containedIn = new HashSet<>();
+			for (Interval<Integer> next: tree){
+				if (next.contains(query))
+					containing.add(next);
+				if (query.contains(next))
+					containedIn.add(next);
+			}
+			assertEquals(containing, tree.queryContaining(query));
+			assertEquals(containedIn, tree.queryContainedIn(query));
+		}
+	}
+
+	@Test
+	public void test_nextAfterAndPreviousBefore(){
+		IntervalTree<Integer> tree = new IntervalTree<>();
+		Interval<Integer> a = new IntegerInterval(0, 100, Bounded.CLOSED);
+		Interval<Integer> b = new IntegerInterval(10, 20, Bounded.OPEN);
+		Interval<Integer> c = new IntegerInterval(10, 30, Bounded.CLOSED);
+		Interval<Integer> d = new IntegerInterval(40, 50, Bounded.CLOSED_RIGHT);
+		tree.addAll(Arrays.asList(a, b, c, d));
+
+		assertEquals(c, tree.nextAfter(5));
+		assertEquals(b, tree.nextAfter(10));
+		assertEquals(d, tree.nextAfter(20));
+		assertEquals(d, tree.nextAfter(40));
+		assertNull(tree.nextAfter(41));
+		assertEquals(a, tree.nextAfter(-1));
+
+		assertEquals(c, tree.previousBefore(35));
+		assertEquals(b, tree.previousBefore(20));
+		assertNull(tree.previousBefore(19));
+		assertEquals(a, tree.previousBefore(101));
+		assertEquals(c, tree.previousBefore(40));
+		assertNull(new IntervalTree<Integer>().nextAfter(0));
+	}
+
+	@Test
+	public void test_nextAfterAndPreviousBeforeSameAsScan(){
+		Random random = new Random(61);
+		IntervalTree<Integer> tree = randomTree(random, 2000);
+		tree.add(new IntegerInterval(-900, Unbounded.CLOSED_RIGHT));
+		tree.add(new IntegerInterval(900, Unbounded.OPEN_LEFT));
+		for (int i = 0; i < 500; i++){
+			int point = random.nextInt(2400) - 1200;
+			Interval<Integer> next = null, previous = null;
+			for (Interval<Integer> interval: tree){
+				if (interval.isRightOf(point) && (next == null || Interval.sweepLeftToRight.compare(interval, next) < 0))
+					next = interval;
+				if (interval.isLeftOf(point) && (previous == null || Interval.sweepRightToLeft.compare(interval, previous) < 0))
+					previous = interval;
+			}
+			assertEquals(next, tree.nextAfter(point));
+			assertEquals(previous, tree.previousBefore(point));
+		}
+	}
+
+	@Test
+	public void test_nearestSameAsSortedDistances(){
+		Random random = new Random(67);
+		Metric<Integer> metric = new Metric<Integer>() {
+			@Override
+			public double distance(Integer a, Integer b) {
+				return Math.abs(a - b);
+			}
+		};
+		IntervalTree<Integer> tree = new IntervalTree<>();
+		for (int i = 0; i < 2000; i++)
+			tree.add(randomInterval(random, 20000));
+		tree.add(new IntegerInterval(-9000, Unbounded.CLOSED_RIGHT));
+		for (int i = 0; i < 200; i++){
+			int point = random.nextInt(24000) - 12000;
+			int k = random.nextInt(50);
+			List<Double> expected = new ArrayList<>();
+			for (Interval<Integer> interval: tree)
+				expected.add(distance(interval, point));
+			Collections.sort(expected);
+
+			List<Interval<Integer>> nearest = tree.nearest(point, k, metric);
+			assertEquals(k, nearest.size());
+			assertEquals(k, new HashSet<>(nearest).size());
+			for (int j = 0; j < k; j++)
+				assertEquals(expected.get(j), distance(nearest.get(j), point), 0);
+		}
+		assertEquals(tree.size(), tree.nearest(0, tree.size() + 10, metric).size());
+		assertTrue(new IntervalTree<Integer>().nearest(0, 5, metric).isEmpty());
+	}
+
+	@Test
+	public void test_orderedIteratorsSameAsSortedList(){
+		Random random = new Random(71);
+		IntervalTree<Integer> tree = randomTree(random, 3000);
+		tree.add(new IntegerInterval(-900, Unbounded.CLOSED_RIGHT));
+		tree.add(new IntegerInterval(900, Unbounded.OPEN_LEFT));
+		List<Interval<Integer>> expected = new ArrayList<>(tree);
+		Collections.sort(expected, Interval.sweepLeftToRight);
+
+		List<Interval<Integer>> ascending = new ArrayList<>();
+		for (Iterator<Interval<Integer>> it = tree.orderedIterator(); it.hasNext(); )
+			ascending.add(it.next());
+		assertEquals(expected, ascending);
+
+		List<Interval<Integer>> descending = new ArrayList<>();
+		for (Iterator<Interval<Integer>> it = tree.descendingOrderedIterator(); it.hasNext(); )
+			descending.add(it.next());
+		Collections.reverse(descending);
+		assertEquals(expected, descending);
+		assertFalse(new IntervalTree<Integer>().orderedIterator().hasNext());
+	}
+
+	@Test
+	public void test_rangeViewsSameAsFilteredList(){
+		Random random = new Random(73);
+		IntervalTree<Integer> tree = randomTree(random, 2000);
+		tree.add(new IntegerInterval(-900, Unbounded.CLOSED_RIGHT));
+		for (int i = 1; i <= 200; i++)
+			tree.add(new IntegerInterval(-i * 3, i, Bounded.CLOSED));
+		List<Interval<Integer>> sorted = new ArrayList<>(tree);
+		Collections.sort(sorted, Interval.sweepLeftToRight);
+		for (int i = 0; i < 300; i++){
+			Integer from = random.nextInt(5) == 0 ? null : random.nextInt(2400) - 1200;
+			Integer to = random.nextInt(5) == 0 ? null : (from == null ? 0 : from) + random.nextInt(random.nextBoolean() ? 20 : 1000);
+			boolean fromInclusive = random.nextBoolean(), toInclusive = random.nextBoolean();
+			List<Interval<Integer>> expected = new ArrayList<>();
+			for (Interval<Integer> next: sorted){
+				Integer start = next.getStart();
+				if (from != null && (start == null || start < from || start.equals(from) && !fromInclusive))
+					continue;
+				if (to != null && start != null && (start > to || start.equals(to) && !toInclusive))
+					continue;
+				expected.add(next);
+			}
+
+			IntervalRangeView<Integer> view = tree.subSet(from, fromInclusive, to, toInclusive);
+			assertEquals(expected, new ArrayList<>(view));
+			List<Interval<Integer>> descending = new ArrayList<>();
+			for (Iterator<Interval<Integer>> it = view.descendingIterator(); it.hasNext(); )
+				descending.add(it.next());
+			Collections.reverse(descending);
+			assertEquals(expected, descending);
+			assertEquals(expected.size(), view.size());
+			assertEquals(expected.isEmpty(), view.isEmpty());
+			if (!expected.isEmpty()){
+				assertEquals(expected.get(0), view.first());
+				assertEquals(expected.get(expected.size() - 1), view.last());
+			}
+			Interval<Integer> probe = sorted.get(random.nextInt(sorted.size()));
+			assertEquals(expected.contains(probe), view.contains(probe));
+		}
+	}
+
+	@Test
+	public void test_rangeViews(){
+		IntervalTree<Integer> tree = new IntervalTree<>();
+		Interval<Integer> a = new IntegerInterval(0, 100, Bounded.CLOSED);
+		Interval<Integer> b = new IntegerInterval(10, 20, Bounded.OPEN);
+		Interval<Integer> c = new IntegerInterval(10, 30, Bounded.CLOSED);
+		Interval<Integer> d = new IntegerInterval(40, 50, Bounded.CLOSED_RIGHT);
+		tree.addAll(Arrays.asList(a, b, c, d));
+
+		assertEquals(Arrays.asList(c, b, d), new ArrayList<>(tree.tailSet(10, true)));
+		assertEquals(Arrays.asList(d), new ArrayList<>(tree.tailSet(10, false)));
+		assertEquals(Arrays.asList(a), new ArrayList<>(tree.headSet(10, false)));
+		assertEquals(Arrays.asList(a, c, b), new ArrayList<>(tree.headSet(10, true)));
+		assertTrue(tree.subSet(11, true, 39, true).isEmpty());
+		assertEquals(d, tree.tailSet(0, false).last());
+	}
+
+	@Test(expected = ConcurrentModificationException.class)
+	public void test_orderedIteratorFailsOnModification(){
+		IntervalTree<Integer> tree = new IntervalTree<>();
+		tree.add(new IntegerInterval(0, 10, Bounded.CLOSED));
+		tree.add(new IntegerInterval(20, 30, Bounded.CLOSED));
+		Iterator<Interval<Integer>> it = tree.orderedIterator();
+		it.next();
+		tree.add(new IntegerInterval(40, 50, Bounded.CLOSED));
+		it.next();
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void test_rangeViewIsReadOnly(){
+		IntervalTree<Integer> tree = new IntervalTree<>();
+		tree.add(new IntegerInterval(0, 10, Bounded.CLOSED));
+		tree.tailSet(0, true).add(new IntegerInterval(5, 10, Bounded.CLOSED));
+	}
+
+	@Test
+	public void test_orderedQueriesSameAsSortedQuery(){
+		Random random = new Random(79);
+		Bounded[] types = Bounded.values();
+		IntervalTree<Integer> tree = randomTree(random, 2000);
+		for (int i = 1; i <= 200; i++)
+			tree.add(new IntegerInterval(-i * 3, i, Bounded.CLOSED));
+		tree.add(new IntegerInterval(-900, Unbounded.CLOSED_RIGHT));
+		tree.add(new IntegerInterval(900, Unbounded.OPEN_LEFT));
+		Comparator<Interval> byEnd = Collections.reverseOrder(Interval.sweepRightToLeft);
+		for (int i = 0; i < 300; i++){
+			int start = random.nextInt(2400) - 1200;
+			IntegerInterval query = new IntegerInterval(start, start + random.nextInt(random.nextBoolean() ? 10 : 500), types[random.nextInt(types.length)]);
+			List<Interval<Integer>> expected = new ArrayList<>(tree.query(query));
+			Collections.sort(expected, Interval.sweepLeftToRight);
+			assertEquals(expected, tree.queryOrderedByStart(query));
+			Collections.sort(expected, byEnd);
+			assertEquals(expected, tree.queryOrderedByEnd(query));
+		}
+		assertTrue(tree.queryOrderedByStart(new IntegerInterval(5, 5, Bounded.OPEN)).isEmpty());
+		assertTrue(new IntervalTree<Integer>().queryOrderedByEnd(new IntegerInterval(0, 5, Bounded.CLOSED)).isEmpty());
+	}
+
+	@Test
+	public void test_queryAllSameAsSingleQueries(){
+		Random random = new Random(83);
+		IntervalTree<Integer> tree = randomTree(random, 2000);
+		for (int i = 1; i <= 200; i++)
+			tree.add(new IntegerInterval(-i * 3, i, Bounded.CLOSED));
+		tree.add(new IntegerInterval(-900, Unbounded.CLOSED_RIGHT));
+
+		List<Integer> points = new ArrayList<>();
+		for (int i = 0; i < 3000; i++)
+			points.add(random.nextInt(2400) - 1200);
+		points.add(points.get(0));
+		final List<Set<Interval<Integer>>> results = new ArrayList<>();
+		for (int i = 0; i < points.size(); i++)
+			results.add(new HashSet<Interval<Integer>>());
+		assertTrue(tree.queryAll(points, new BatchVisitor<Integer>() {
+			@Override
+			public boolean visit(int index, Interval<Integer> interval) {
+				assertTrue(results.get(index).add(interval));
+				return true;
+			}
+		}));
+		for (int i = 0; i < points.size(); i++)
+			assertEquals(tree.query(points.get(i)), results.get(i));
+
+		Collections.sort(points);
+		final int[] count = new int[1];
+		tree.queryAll(new LinkedList<>(points), new BatchVisitor<Integer>() {
+			@Override
+			public boolean visit(int index, Interval<Integer> interval) {
+				count[0]++;
+				return true;
+			}
+		});
+		int expected = 0;
+		for (Integer point: points)
+			expected += tree.query(point).size();
+		assertEquals(expected, count[0]);
+	}
+
+	@Test
+	public void test_queryAllStopsEarly(){
+		IntervalTree<Integer> tree = new IntervalTree<>();
+		for (int i = 0; i < 100; i++)
+			tree.add(new IntegerInterval(i, i + 10, Bounded.CLOSED));
+		final int[] count = new int[1];
+		assertFalse(tree.queryAll(Arrays.asList(5, 50, 95), new BatchVisitor<Integer>() {
+			@Override
+			public boolean visit(int index, Interval<Integer> interval) {
+				return ++count[0] < 3;
+			}
+		}));
+		assertEquals(3, count[0]);
+		assertTrue(new IntervalTree<Integer>().queryAll(Arrays.asList(1, 2), null));
+	}
+
+	@Test
+	@Ignore
+	public void benchmark_queryAll(){
+		Random random = new Random();
+		IntervalTree<Integer> tree = new IntervalTree<>();
+		for (int i = 0; i < 1_000_000; i++){
+			int start = random.nextInt(10_000_000);
+			tree.add(new IntegerInterval(start, start + random.nextInt(1_000), Bounded.CLOSED));
+		}
+		List<Integer> points = new ArrayList<>();
+		for (int i = 0; i < 1_000_000; i++)
+			points.add(random.nextInt(10_000_000));
+
+		long time = System.currentTimeMillis();
+		long found = 0;
+		for (Integer point: points)
+			found += tree.query(point).size();
+		System.out.println("Single queries: " + (System.currentTimeMillis() - time) + " ms, " + found + " results");
+
+		time = System.currentTimeMillis();
+		final long[] count = new long[1];
+		tree.queryAll(points, new BatchVisitor<Integer>() {
+			@Override
+			public boolean visit(int index, Interval<Integer> interval) {
+				count[0]++;
+				return true;
+			}
+		});
+		System.out.println("Batch query: " + (System.currentTimeMillis() - time) + " ms, " + count[0] + " results");
+	}
+
+	@Test
+	@Ignore
+	public void benchmark_nodeStorage(){
+		Random random = new Random();
+		List<Interval<Integer>> list = new ArrayList<>();
+		for (int i = 0; i < 300_000; i++){
+			int start = random.nextInt(10_000_000);
+			list.add(new IntegerInterval(start, start + random.nextInt(1_000), Bounded.CLOSED));
+		}
+		Runtime runtime = Runtime.getRuntime();
+		System.gc();
+		long heap = runtime.totalMemory() - runtime.freeMemory();
+		IntervalTree<Integer> tree = new IntervalTree<>();
+		for (Interval<Integer> next: list)
+			tree.add(next);
+		System.gc();
+		heap = runtime.totalMemory() - runtime.freeMemory() - heap;
+		System.out.println("Heap: " + heap / list.size() + " bytes per interval");
+
+		final long[] count = new long[1];
+		IntervalVisitor<Integer> visitor = new IntervalVisitor<Integer>() {
+			@Override
+			public boolean visit(Interval<Integer> interval) {
+				count[0]++;
+				return true;
+			}
+		};
+		for (int round = 0; round < 5; round++){
+			long time = System.currentTimeMillis();
+			for (int i = 0; i < 1_000_000; i++)
+				tree.query(random.nextInt(10_000_000), visitor);
+			System.out.println("Point queries: " + (System.currentTimeMillis() - time) + " ms, " + count[0] + " results");
+
+			count[0] = 0;
+			time = System.currentTimeMillis();
+			for (int i = 0; i < 100_000; i++){
+				int start = random.nextInt(10_000_000);
+				tree.query(new IntegerInterval(start, start + 5_000, Bounded.CLOSED), visitor);
+			}
+			System.out.println("Range queries: " + (System.currentTimeMillis() - time) + " ms, " + count[0] + " results");
+			count[0] = 0;
+		}
+	}
+
+	@Test
+	public void test_parallelQueryAllSameAsSingleQueries(){
+		Random random = new Random(89);
+		Bounded[] types = Bounded.values();
+		IntervalTree<Integer> tree = new IntervalTree<>();
+		for (int i = 0; i < 5000; i++)
+			tree.add(randomInterval(random, 10000));
+		Integer[] points = new Integer[5000];
+		Interval<Integer>[] intervals = new Interval[5000];
+		for (int i = 0; i < points.length; i++){
+			points[i] = random.nextInt(12000) - 6000;
+			intervals[i] = new IntegerInterval(points[i], points[i] + random.nextInt(100), types[random.nextInt(types.length)]);
+		}
+
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			List<Set<Interval<Integer>>> pointResults = tree.queryAll(points, pool);
+			List<Set<Interval<Integer>>> intervalResults = tree.queryAll(intervals, pool);
+			assertEquals(points.length, pointResults.size());
+			assertEquals(intervals.length, intervalResults.size());
+			for (int i = 0; i < points.length; i++){
+				assertEquals(tree.query(points[i]), pointResults.get(i));
+				assertEquals(tree.query(intervals[i]), intervalResults.get(i));
+			}
+			assertTrue(tree.queryAll(new Integer[0], pool).isEmpty());
+			assertTrue(new IntervalTree<Integer>().queryAll(points, pool).get(0).isEmpty());
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	@Ignore
+	public void benchmark_parallelQueryAll(){
+		Random random = new Random();
+		IntervalTree<Integer> tree = new IntervalTree<>();
+		for (int i = 0; i < 1_000_000; i++){
+			int start = random.nextInt(10_000_000);
+			tree.add(new IntegerInterval(start, start + random.nextInt(1_000), Bounded.CLOSED));
+		}
+		Interval<Integer>[] intervals = new Interval[1_000_000];
+		for (int i = 0; i < intervals.length; i++){
+			int start = random.nextInt(10_000_000);
+			intervals[i] = new IntegerInterval(start, start + 100, Bounded.CLOSED);
+		}
+
+		for (int threads = 1; threads <= Runtime.getRuntime().availableProcessors(); threads *= 2){
+			ForkJoinPool pool = new ForkJoinPool(threads);
+			long time = System.currentTimeMillis();
+			List<Set<Interval<Integer>>> results = tree.queryAll(intervals, pool);
+			System.out.println(threads + " threads: " + (System.currentTimeMillis() - time) + " ms, " + results.size() + " queries");
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void test_addAndRemoveReturnValues(){
+		IntervalTree<Integer> tree = new IntervalTree<>();
+		assertTrue(tree.add(new IntegerInterval(0, 10, Bounded.CLOSED)));
+		assertFalse(tree.add(new IntegerInterval(0, 10, Bounded.CLOSED)));
+		assertFalse(tree.add(new IntegerInterval(4, 5, Bounded.OPEN)));
+		assertFalse(tree.remove(new IntegerInterval(0, 11, Bounded.CLOSED)));
+		assertTrue(tree.remove(new IntegerInterval(0, 10, Bounded.CLOSED)));
+		assertFalse(tree.remove(new IntegerInterval(0, 10, Bounded.CLOSED)));
+	}
+
+	@Test
+	public void test_bulkAddAllSameAsSingleAdds(){
+		Random random = new Random(97);
+		for (int round = 0; round < 20; round++){
+			IntervalTree<Integer> bulk = new IntervalTree<>();
+			IntervalTree<Integer> single = new IntervalTree<>();
+			for (int batch = 0; batch < 3; batch++){
+				List<Interval<Integer>> intervals = randomIntervals(random, random.nextInt(3000));
+				if (random.nextInt(5) == 0)
+					intervals.add(new IntegerInterval(random.nextInt(100), Unbounded.values()[random.nextInt(Unbounded.values().length)]));
+				if (!intervals.isEmpty())
+					intervals.add(intervals.get(0));
+
+				boolean modified = false;
+				for (Interval<Integer> next: intervals)
+					modified |= single.add(next);
+				assertEquals(modified, bulk.addAll(intervals));
+				assertEquals(single.size(), bulk.size());
+				assertEquals(new HashSet<>(single), new HashSet<>(bulk));
+				assertEquals(bulk.size(), assertSubtreeSizes(bulk.root));
+				assertBalanced(bulk.root);
+				for (int i = 0; i < 50; i++){
+					int point = random.nextInt(2400) - 1200;
+					assertEquals(single.query(point), bulk.query(point));
+					IntegerInterval query = new IntegerInterval(point, point + random.nextInt(100), Bounded.CLOSED);
+					assertEquals(single.query(query), bulk.query(query));
+				}
+			}
+
+			// The bulk loaded tree must stay consistent under further updates
+			List<Interval<Integer>> stored = new ArrayList<>(bulk);
+			Collections.shuffle(stored, random);
+			for (int i = 0; i < stored.size() / 2; i++)
+				assertTrue(bulk.remove(stored.get(i)));
+			assertEquals(stored.size() - stored.size() / 2, bulk.size());
+			assertEquals(bulk.size(), assertSubtreeSizes(bulk.root));
+			for (int i = stored.size() / 2; i < stored.size(); i++)
+				assertTrue(bulk.contains(stored.get(i)));
+		}
+		assertFalse(new IntervalTree<Integer>().addAll(new ArrayList<Interval<Integer>>()));
+	}
+
+	@Test
+	public void test_bulkAddAllWithIntervalsNotContainingTheirMidpoint(){
+		// Non-empty intervals, which don't contain their own midpoint or any other computable point
+		DateInterval oddDate = new DateInterval(new Date(0), new Date(1), Bounded.OPEN);
+		DateInterval date = new DateInterval(new Date(5), new Date(10), Bounded.CLOSED);
+		IntervalTree<Date> dates = new IntervalTree<>();
+		assertTrue(dates.addAll(Arrays.asList(oddDate, date)));
+		assertEquals(2, dates.size());
+		assertEquals(new HashSet<>(Arrays.asList(oddDate, date)), new HashSet<>(dates));
+		assertEquals(Collections.singleton(date), dates.query(new Date(7)));
+
+		List<Interval<Double>> intervals = new ArrayList<>();
+		for (int i = 0; i < 1000; i++){
+			intervals.add(new DoubleInterval((double) i, i + 0.5, Bounded.CLOSED));
+			if (i % 10 == 0)
+				intervals.add(new DoubleInterval(i + 0.7, Math.nextUp(i + 0.7), Bounded.OPEN));
+		}
+		IntervalTree<Double> single = new IntervalTree<>();
+		for (Interval<Double> next: intervals)
+			single.add(next);
+		IntervalTree<Double> bulk = new IntervalTree<>();
+		assertTrue(bulk.addAll(intervals));
+		assertEquals(single.size(), bulk.size());
+		assertEquals(new HashSet<>(single), new HashSet<>(bulk));
+		assertEquals(bulk.size(), assertSubtreeSizes(bulk.root));
+		for (int i = 0; i < 1000; i++)
+			assertEquals(single.query(i + 0.25), bulk.query(i + 0.25));
+	}
+
+	@Test
+	@Ignore
+	public void benchmark_bulkAddAll(){
+		Random random = new Random();
+		List<Interval<Integer>> list = new ArrayList<>();
+		for (int i = 0; i < 1_000_000; i++){
+			int start = random.nextInt(10_000_000);
+			list.add(new IntegerInterval(start, start + random.nextInt(100_000), Bounded.CLOSED));
+		}
+
+		long time = System.currentTimeMillis();
+		IntervalTree<Integer> tree = new IntervalTree<>();
+		for (Interval<Integer> next: list)
+			tree.add(next);
+		System.out.println("Single insertions: " + (System.currentTimeMillis() - time) + " ms");
+
+		time = System.currentTimeMillis();
+		tree = new IntervalTree<>();
+		tree.addAll(list);
+		System.out.println("Bulk insertion: " + (System.currentTimeMillis() - time) + " ms");
+	}
+
+	@Test
+	public void test_bulkRemoveSameAsSingleRemoves(){
+		Random random = new Random(113);
+		for (int round = 0; round < 30; round++){
+			IntervalTree<Integer> tree = new IntervalTree<>();
+			List<Interval<Integer>> intervals = randomIntervals(random, random.nextInt(4000));
+			if (random.nextBoolean()){
+				tree.addAll(intervals);
+			} else {
+				for (Interval<Integer> next: intervals)
+					tree.add(next);
+			}
+			Set<Interval<Integer>> expected = new HashSet<>(tree);
+
+			// Remove a random fraction, a whole range or the intervals of a collection
+			final int from = random.nextInt(2000) - 1000, to = from + random.nextInt(1500);
+			final double fraction = random.nextDouble();
+			IntervalPredicate<Integer> predicate;
+			switch (round % 3){
+				case 0:
+					predicate = new IntervalPredicate<Integer>() {
+						@Override
+						public boolean test(Interval<Integer> interval) {
+							return Math.abs(interval.hashCode() % 1000) < fraction * 1000;
+						}
+					};
+					break;
+				case 1:
+					predicate = new IntervalPredicate<Integer>() {
+						@Override
+						public boolean test(Interval<Integer> interval) {
+							return interval.getStart() >= from && interval.getStart() < to;
+						}
+					};
+					break;
+				default:
+					predicate = null;
+			}
+
+			Set<Interval<Integer>> removed = new HashSet<>();
+			if (predicate != null){
+				for (Interval<Integer> next: tree){
+					if (predicate.test(next))
+						removed.add(next);
+				}
+				assertEquals(!removed.isEmpty(), tree.removeMatching(predicate));
+			} else {
+				List<Interval<Integer>> stored = new ArrayList<>(tree);
+				Collections.shuffle(stored, random);
+				List<Interval<Integer>> batch = new ArrayList<>(stored.subList(0, (int)(stored.size() * fraction)));
+				removed.addAll(batch);
+				batch.add(new IntegerInterval(5000, 5001, Bounded.CLOSED));
+				if (random.nextBoolean()){
+					assertEquals(!removed.isEmpty(), tree.removeAll(batch));
+				} else {
+					Set<Interval<Integer>> retained = new HashSet<>(stored);
+					retained.removeAll(removed);
+					assertEquals(!removed.isEmpty(), tree.retainAll(retained));
+				}
+			}
+			expected.removeAll(removed);
+			assertEquals(expected.size(), tree.size());
+			assertEquals(expected, new HashSet<>(tree));
+			assertEquals(tree.size(), assertSubtreeSizes(tree.root));
+			// Rotations may delete nodes emptied by assimilation, just like after single removals
+			assertBalanced(tree.root, 2);
+			for (Interval<Integer> next: removed)
+				assertFalse(tree.contains(next));
+			for (int i = 0; i < 50; i++){
+				int point = random.nextInt(2400) - 1200;
+				IntegerInterval query = new IntegerInterval(point, point + random.nextInt(100), Bounded.CLOSED);
+				Set<Interval<Integer>> overlapping = new HashSet<>();
+				for (Interval<Integer> next: expected){
+					if (next.intersects(query))
+						overlapping.add(next);
+				}
+				assertEquals(overlapping, tree.query(query));
+			}
+
+			// The tree must stay consistent under further updates
+			for (Interval<Integer> next: removed)
+				assertTrue(tree.add(next));
+			assertEquals(tree.size(), assertSubtreeSizes(tree.root));
+		}
+	}
+
+	@Test
+	public void test_removeAllWithFewIntervalsAndRetainAll(){
+		IntervalTree<Integer> tree = new IntervalTree<>();
+		for (int i = 0; i < 100; i++)
+			tree.add(new IntegerInterval(i, i + 10, Bounded.CLOSED));
+		assertTrue(tree.removeAll(Arrays.asList(new IntegerInterval(3, 13, Bounded.CLOSED), "Not an interval")));
+		assertFalse(tree.removeAll(Arrays.asList(new IntegerInterval(3, 13, Bounded.CLOSED))));
+		assertFalse(tree.remove((Object) new IntegerInterval(3, 13, Bounded.CLOSED)));
+		assertTrue(tree.remove((Object) new IntegerInterval(4, 14, Bounded.CLOSED)));
+		assertEquals(98, tree.size());
+
+		assertFalse(tree.retainAll(new ArrayList<>(tree)));
+		assertTrue(tree.retainAll(Arrays.asList(new IntegerInterval(50, 60, Bounded.CLOSED), new IntegerInterval(4, 14, Bounded.CLOSED))));
+		assertEquals(1, tree.size());
+		assertTrue(tree.contains(new IntegerInterval(50, 60, Bounded.CLOSED)));
+		assertTrue(tree.removeMatching(new IntervalPredicate<Integer>() {
+			@Override
+			public boolean test(Interval<Integer> interval) {
+				return true;
+			}
+		}));
+		assertTrue(tree.isEmpty());
+		assertNull(tree.root);
+		assertFalse(tree.retainAll(new ArrayList<>()));
+	}
+
+	@Test
+	public void test_bulkRemoveRebuildsWithIntervalsNotContainingTheirMidpoint(){
+		List<Interval<Double>> intervals = new ArrayList<>();
+		for (int i = 0; i < 1000; i++){
+			intervals.add(new DoubleInterval((double) i, i + 0.5, Bounded.CLOSED));
+			if (i % 10 == 0)
+				intervals.add(new DoubleInterval(i + 0.7, Math.nextUp(i + 0.7), Bounded.OPEN));
+		}
+		IntervalTree<Double> tree = new IntervalTree<>();
+		for (Interval<Double> next: intervals)
+			tree.add(next);
+
+		// Removing the whole left half unbalances the tree enough to rebuild the remaining subtrees
+		Set<Interval<Double>> expected = new HashSet<>();
+		for (Interval<Double> next: intervals){
+			if (next.getStart() >= 500)
+				expected.add(next);
+		}
+		assertTrue(tree.removeMatching(new IntervalPredicate<Double>() {
+			@Override
+			public boolean test(Interval<Double> interval) {
+				return interval.getStart() < 500;
+			}
+		}));
+		assertEquals(expected, new HashSet<>(tree));
+		assertEquals(expected.size(), tree.size());
+		assertEquals(tree.size(), assertSubtreeSizes(tree.root));
+
+		expected.clear();
+		for (Interval<Double> next: intervals){
+			if (next.getStart() >= 900)
+				expected.add(next);
+		}
+		assertTrue(tree.retainAll(expected));
+		assertEquals(expected, new HashSet<>(tree));
+		assertEquals(tree.size(), assertSubtreeSizes(tree.root));
+	}
+
+	@Test
+	@Ignore
+	public void benchmark_bulkRemove(){
+		Random random = new Random();
+		List<Interval<Integer>> list = new ArrayList<>();
+		for (int i = 0; i < 1_000_000; i++){
+			int start = random.nextInt(10_000_000);
+			list.add(new IntegerInterval(start, start + random.nextInt(100_000), Bounded.CLOSED));
+		}
+		Set<Interval<Integer>> removed = new HashSet<>();
+		for (Interval<Integer> next: list){
+			if (random.nextInt(10) < 3)
+				removed.add(next);
+		}
+
+		IntervalTree<Integer> tree = new IntervalTree<>();
+		tree.addAll(list);
+		long time = System.currentTimeMillis();
+		for (Interval<Integer> next: removed)
+			tree.remove(next);
+		System.out.println("Single removals: " + (System.currentTimeMillis() - time) + " ms");
+
+		tree = new IntervalTree<>();
+		tree.addAll(list);
+		time = System.currentTimeMillis();
+		tree.removeAll(removed);
+		System.out.println("Bulk removal: " + (System.currentTimeMillis() - time) + " ms");
+	}
+
+	@Test
+	public void test_removeOverlappingAndContainedIn(){
+		IntervalTree<Integer> tree = new IntervalTree<>();
+		IntegerInterval a = new IntegerInterval(0, 10, Bounded.CLOSED);
+		IntegerInterval b = new IntegerInterval(5, 15, Bounded.CLOSED);
+		IntegerInterval c = new IntegerInterval(12, 20, Bounded.CLOSED);
+		IntegerInterval d = new IntegerInterval(30, 40, Bounded.CLOSED);
+		IntegerInterval e = new IntegerInterval(35, Unbounded.CLOSED_LEFT);
+		tree.addAll(Arrays.asList(a, b, c, d, e));
+
+		assertEquals(0, tree.removeOverlapping(new IntegerInterval(20, 30, Bounded.OPEN)));
+		assertEquals(0, tree.removeContainedIn(new IntegerInterval(5, 5, Bounded.OPEN)));
+		List<Interval<Integer>> removed = new ArrayList<>();
+		assertEquals(2, tree.removeContainedIn(new IntegerInterval(4, 20, Bounded.CLOSED), removed));
+		assertEquals(new HashSet<>(Arrays.asList(b, c)), new HashSet<>(removed));
+		assertEquals(3, tree.size());
+		assertEquals(2, tree.removeOverlapping(new IntegerInterval(36, 37, Bounded.CLOSED)));
+		assertEquals(Collections.singleton(a), new HashSet<>(tree));
+		assertEquals(1, tree.removeOverlapping(new IntegerInterval()));
+		assertTrue(tree.isEmpty());
+		assertNull(tree.root);
+	}
+
+	@Test
+	public void test_removeOverlappingAndContainedInRandomized(){
+		Random random = new Random(131);
+		Bounded[] types = Bounded.values();
+		for (int round = 0; round < 40; round++){
+			IntervalTree<Integer> tree = randomTree(random, random.nextInt(3000));
+			if (random.nextInt(4) == 0)
+				tree.add(new IntegerInterval(random.nextInt(100), Unbounded.values()[random.nextInt(Unbounded.values().length)]));
+
+			for (int step = 0; step < 5; step++){
+				int start = random.nextInt(2400) - 1200;
+				IntegerInterval query = random.nextInt(10) == 0
+						? new IntegerInterval(start, Unbounded.values()[random.nextInt(Unbounded.values().length)])
+						: new IntegerInterval(start, start + random.nextInt(400), types[random.nextInt(types.length)]);
+				boolean overlapping = random.nextBoolean();
+				Set<Interval<Integer>> expected = new HashSet<>();
+				for (Interval<Integer> next: tree){
+					if (overlapping ? next.intersects(query) : query.contains(next))
+						expected.add(next);
+				}
+				int sizeBefore = tree.size();
+				List<Interval<Integer>> removed = new ArrayList<>();
+				int count = overlapping ? tree.removeOverlapping(query, removed) : tree.removeContainedIn(query, removed);
+				assertEquals(expected.size(), count);
+				assertEquals(count, removed.size());
+				assertEquals(expected, new HashSet<>(removed));
+				assertEquals(sizeBefore - count, tree.size());
+				assertEquals(tree.size(), assertSubtreeSizes(tree.root));
+				assertBalanced(tree.root, 2);
+				assertTrue(overlapping ? tree.query(query).isEmpty() : tree.queryContainedIn(query).isEmpty());
+				for (Interval<Integer> next: removed)
+					assertFalse(tree.contains(next));
+				for (Interval<Integer> next: tree)
+					assertTrue(tree.contains(next));
+			}
+		}
+	}
+
+	@Test
+	public void test_removeOverlappingRebuildsWithIntervalsNotContainingTheirMidpoint(){
+		List<Interval<Double>> intervals = new ArrayList<>();
+		for (int i = 0; i < 1000; i++){
+			intervals.add(new DoubleInterval((double) i, i + 0.5, Bounded.CLOSED));
+			if (i % 10 == 0)
+				intervals.add(new DoubleInterval(i + 0.7, Math.nextUp(i + 0.7), Bounded.OPEN));
+		}
+		IntervalTree<Double> tree = new IntervalTree<>();
+		for (Interval<Double> next: intervals)
+			tree.add(next);
+
+		// Each window removes a large part of the tree, so that the remaining subtrees are rebuilt
+		DoubleInterval[] windows = {
+				new DoubleInterval(-1.0, 499.6, Bounded.CLOSED),
+				new DoubleInterval(899.9, 2000.0, Bounded.CLOSED)
+		};
+		for (DoubleInterval window: windows){
+			Set<Interval<Double>> expected = new HashSet<>(tree);
+			Set<Interval<Double>> removed = new HashSet<>();
+			for (Interval<Double> next: tree){
+				if (window.contains(next))
+					removed.add(next);
+			}
+			expected.removeAll(removed);
+			List<Interval<Double>> result = new ArrayList<>();
+			assertEquals(removed.size(), tree.removeContainedIn(window, result));
+			assertEquals(removed, new HashSet<>(result));
+			assertEquals(expected, new HashSet<>(tree));
+			assertEquals(tree.size(), assertSubtreeSizes(tree.root));
+		}
+		assertEquals(220, tree.removeOverlapping(new DoubleInterval(499.9, 699.6, Bounded.CLOSED)));
+		assertEquals(220, tree.size());
+		assertEquals(tree.size(), assertSubtreeSizes(tree.root));
+	}
+
+	@Test
+	@Ignore
+	public void benchmark_removeOverlapping(){
+		Random random = new Random();
+		List<Interval<Integer>> list = new ArrayList<>();
+		for (int i = 0; i < 1_000_000; i++){
+			int start = random.nextInt(10_000_000);
+			list.add(new IntegerInterval(start, start + random.nextInt(1_000), Bounded.CLOSED));
+		}
+		List<IntegerInterval> windows = new ArrayList<>();
+		for (int i = 0; i < 1_000; i++){
+			int start = random.nextInt(10_000_000);
+			windows.add(new IntegerInterval(start, start + random.nextInt(10_000), Bounded.CLOSED));
+		}
+
+		IntervalTree<Integer> tree = new IntervalTree<>();
+		tree.addAll(list);
+		long time = System.currentTimeMillis();
+		for (IntegerInterval window: windows){
+			for (Interval<Integer> next: tree.query(window))
+				tree.remove(next);
+		}
+		System.out.println("Query and single removals: " + (System.currentTimeMillis() - time) + " ms");
+
+		tree = new IntervalTree<>();
+		tree.addAll(list);
+		time = System.currentTimeMillis();
+		for (IntegerInterval window: windows)
+			tree.removeOverlapping(window);
+		System.out.println("Range removal: " + (System.currentTimeMillis() - time) + " ms");
+	}
+
+	/**
+	 * Creates a random interval with a start point in [-range/2, range/2). Most of the intervals
+	 * are short, but every tenth one is long and contains many of the short ones.
+	 */
+	static IntegerInterval randomInterval(Random random, int range){
+		int start = random.nextInt(range) - range / 2;
+		int end = start + (random.nextInt(10) == 0 ? random.nextInt(1000) : random.nextInt(20));
+		return new IntegerInterval(start, end, Bounded.values()[random.nextInt(Bounded.values().length)]);
+	}
+
+	/**
+	 * Creates a list of random intervals with start points in [-1000, 1000).
+	 *
+	 * @see #randomInterval(Random, int)
+	 */
+	static List<Interval<Integer>> randomIntervals(Random random, int amount){
+		List<Interval<Integer>> list = new ArrayList<>();
+		for (int i = 0; i < amount; i++)
+			list.add(randomInterval(random, 2000));
+		return list;
+	}
+
+	/**
+	 * Creates a tree filled with random intervals with start points in [-1000, 1000).
+	 *
+	 * @see #randomInterval(Random, int)
+	 */
+	static IntervalTree<Integer> randomTree(Random random, int amount){
+		IntervalTree<Integer> tree = new IntervalTree<>();
+		for (int i = 0; i < amount; i++)
+			tree.add(randomInterval(random, 2000));
+		return tree;
+	}
+
+	private static int assertBalanced(TreeNode<Integer> node){
+		return assertBalanced(node, 1);
+	}
+
+	private static int assertBalanced(TreeNode<Integer> node, int maxImbalance){
+		if (node == null)
+			return 0;
+		int left = assertBalanced(node.left, maxImbalance);
+		int right = assertBalanced(node.right, maxImbalance);
+		assertTrue(Math.abs(left - right) <= maxImbalance);
+		assertFalse(node.increasing.isEmpty());
+		assertEquals(Math.max(left, right) + 1, node.height);
+		return node.height;
+	}
+
+	private static double distance(Interval<Integer> interval, int point){
+		if (interval.isRightOf(point))
+			return interval.getStart() - point;
+		if (interval.isLeftOf(point))
+			return point - interval.getEnd();
+		return 0;
+	}
+
+	private static <T extends Comparable<? super T>> int assertSubtreeSizes(TreeNode<T> node){
+		if (node == null)
+			return 0;
+		assertEquals(node.increasing.size(), node.decreasing.size());
+		int size = node.increasing.size() + assertSubtreeSizes(node.left) + assertSubtreeSizes(node.right);
+		assertEquals(size, node.subtreeSize);
+		return size;
+	}
 }
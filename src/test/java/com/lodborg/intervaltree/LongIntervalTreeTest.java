@@ -0,0 +1,128 @@
+package com.lodborg.intervaltree;
+
+import org.junit.Test;
+
+import com.lodborg.intervaltree.Interval.*;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class LongIntervalTreeTest {
+
+	private static Set<Interval<Date>> toSet(LongIntervalTree tree, int[] handles){
+		Set<Interval<Date>> set = new HashSet<>();
+		for (int id: handles)
+			set.add(tree.toDateInterval(id));
+		assertEquals(handles.length, set.size());
+		return set;
+	}
+
+	@Test
+	public void test_rejectEmptyIntervals(){
+		LongIntervalTree tree = new LongIntervalTree();
+		assertEquals(-1, tree.add(4L, 5L, Bounded.OPEN));
+		assertEquals(-1, tree.add(4L, 4L, Bounded.CLOSED_LEFT));
+		assertEquals(-1, tree.add(8L, 3L, Bounded.CLOSED));
+		assertEquals(-1, tree.add(Long.MAX_VALUE, Long.MAX_VALUE, Bounded.CLOSED_RIGHT));
+		assertEquals(-1, tree.add(Long.MIN_VALUE, Long.MIN_VALUE, Bounded.CLOSED_LEFT));
+		assertEquals(0, tree.size());
+		assertTrue(tree.add(Long.MIN_VALUE, Long.MAX_VALUE, Bounded.CLOSED) >= 0);
+		assertTrue(tree.add(Long.MIN_VALUE, Long.MAX_VALUE, Bounded.OPEN) >= 0);
+		assertEquals(2, tree.size());
+		assertEquals(2, tree.query(0L).length);
+		assertEquals(1, tree.query(Long.MAX_VALUE).length);
+		assertEquals(1, tree.query(Long.MIN_VALUE).length);
+	}
+
+	@Test
+	public void test_epochMillis(){
+		LongIntervalTree tree = new LongIntervalTree();
+		long day = 24 * 60 * 60 * 1000L;
+		long now = 1_500_000_000_000L;
+		int yesterday = tree.add(now - day, now, Bounded.CLOSED_LEFT);
+		int today = tree.add(now, now + day, Bounded.CLOSED_LEFT);
+		int week = tree.add(now - 3 * day, now + 4 * day, Bounded.CLOSED);
+
+		int[] res = tree.query(now);
+		int[] expected = new int[]{week, today};
+		Arrays.sort(res);
+		Arrays.sort(expected);
+		assertArrayEquals(expected, res);
+		assertEquals(1, tree.query(now + day).length);
+		assertEquals(3, tree.query(now - 1, now).length);
+		assertEquals(2, tree.query(now, now + day, Bounded.CLOSED_RIGHT).length);
+		assertEquals(now - day, tree.getStart(yesterday));
+		assertEquals(now, tree.getEnd(yesterday));
+		assertFalse(tree.isEndInclusive(yesterday));
+	}
+
+	@Test
+	public void test_dateIntervals(){
+		LongIntervalTree tree = new LongIntervalTree();
+		DateInterval a = new DateInterval(new Date(1000), new Date(5000), Bounded.CLOSED);
+		DateInterval b = new DateInterval(new Date(4000), new Date(9000), Bounded.OPEN);
+		DateInterval c = new DateInterval(new Date(20000), Unbounded.CLOSED_LEFT);
+		int id = tree.add(a);
+		tree.add(b);
+		tree.add(c);
+
+		assertEquals(a, tree.toDateInterval(id));
+		assertEquals(-1, tree.add(new DateInterval(new Date(1000), new Date(5000), Bounded.CLOSED)));
+
+		Set<Interval<Date>> res = toSet(tree, tree.query(new DateInterval(new Date(4500), new Date(4600), Bounded.CLOSED)));
+		assertEquals(2, res.size());
+		assertTrue(res.contains(a));
+		assertTrue(res.contains(b));
+
+		assertEquals(1, tree.query(Long.MAX_VALUE).length);
+		assertEquals(1, tree.query(new DateInterval(new Date(9000), Unbounded.CLOSED_LEFT)).length);
+
+		assertTrue(tree.remove(a));
+		assertFalse(tree.remove(a));
+		assertEquals(2, tree.size());
+		assertEquals(0, tree.query(2000L).length);
+	}
+
+	@Test
+	public void test_sameResultsAsLinearSearch(){
+		Random random = new Random(7);
+		Bounded[] types = Bounded.values();
+		LongIntervalTree tree = new LongIntervalTree();
+		Set<Interval<Date>> list = new HashSet<>();
+
+		for (int i = 0; i < 5000; i++){
+			long start = random.nextInt(2000) - 1000;
+			long end = start + random.nextInt(100);
+			Bounded type = types[random.nextInt(types.length)];
+			DateInterval interval = new DateInterval(new Date(start), new Date(end), type);
+			if (random.nextInt(4) == 0){
+				assertEquals(list.remove(interval), tree.remove(start, end, type));
+			} else if (!interval.isEmpty() && !(type == Bounded.OPEN && start + 1 == end)){
+				// The open interval (x, x+1) contains no long values, but it is not empty as a DateInterval
+				assertEquals(list.add(interval), tree.add(interval) >= 0);
+			}
+		}
+		assertEquals(list.size(), tree.size());
+
+		for (int i = 0; i < 500; i++){
+			long point = random.nextInt(2200) - 1100;
+			Set<Interval<Date>> expected = new HashSet<>();
+			for (Interval<Date> next: list){
+				if (next.contains(new Date(point)))
+					expected.add(next);
+			}
+			assertEquals(expected, toSet(tree, tree.query(point)));
+
+			long start = random.nextInt(2200) - 1100;
+			long end = start + random.nextInt(50);
+			DateInterval query = new DateInterval(new Date(start), new Date(end), Bounded.CLOSED);
+			expected.clear();
+			for (Interval<Date> next: list){
+				if (next.intersects(query))
+					expected.add(next);
+			}
+			assertEquals(expected, toSet(tree, tree.query(query)));
+		}
+	}
+}
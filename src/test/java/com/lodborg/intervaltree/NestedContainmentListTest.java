@@ -0,0 +1,80 @@
+package com.lodborg.intervaltree;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+import com.lodborg.intervaltree.Interval.*;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class NestedContainmentListTest {
+
+	@Test
+	public void test_nestedIntervals(){
+		List<Interval<Integer>> list = new ArrayList<>();
+		for (int i = 0; i < 50; i++){
+			list.add(new IntegerInterval(i, 100 - i, Bounded.CLOSED));
+			list.add(new IntegerInterval(i, 100 - i, Bounded.OPEN));
+		}
+		list.add(new IntegerInterval(-10, 0, Bounded.CLOSED));
+		list.add(new IntegerInterval(100, Unbounded.CLOSED_LEFT));
+		NestedContainmentList<Integer> ncList = NestedContainmentList.build(list);
+		assertEquals(new HashSet<>(list), new HashSet<>(ncList));
+		for (Interval<Integer> next: list)
+			assertTrue(ncList.contains(next));
+		assertFalse(ncList.contains(new IntegerInterval(3, 96, Bounded.CLOSED_LEFT)));
+
+		assertEquals(2, ncList.query(0).size());
+		assertEquals(100, ncList.query(50).size());
+		assertEquals(4, ncList.query(new IntegerInterval(98, 101, Bounded.OPEN)).size());
+		assertEquals(101, ncList.query(new IntegerInterval(50, 150, Bounded.CLOSED)).size());
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void test_removeThrows(){
+		NestedContainmentList<Integer> ncList = NestedContainmentList.build(Arrays.asList(new IntegerInterval(0, 10, Bounded.CLOSED)));
+		ncList.remove(new IntegerInterval(0, 10, Bounded.CLOSED));
+	}
+
+	@Test
+	@Ignore
+	public void benchmark_nested(){
+		Random random = new Random();
+		int range = 10_000_000;
+		List<Interval<Integer>> list = new ArrayList<>();
+		while (list.size() < 1_000_000){
+			// Chains of intervals nested inside each other, like exons inside genes
+			int start = random.nextInt(range);
+			int end = start + random.nextInt(1_000_000);
+			for (int depth = 0; depth < 20 && start < end; depth++){
+				list.add(new IntegerInterval(start, end, Bounded.CLOSED));
+				start += random.nextInt(Math.max(1, (end - start) / 4));
+				end -= random.nextInt(Math.max(1, (end - start) / 4));
+			}
+		}
+		int[] queries = new int[100_000];
+		for (int i = 0; i < queries.length; i++)
+			queries[i] = random.nextInt(range);
+
+		long time = System.currentTimeMillis();
+		IntervalTree<Integer> tree = new IntervalTree<>();
+		tree.addAll(list);
+		System.out.println("IntervalTree build: " + (System.currentTimeMillis() - time) + " ms");
+		time = System.currentTimeMillis();
+		long found = 0;
+		for (int query: queries)
+			found += tree.query(new IntegerInterval(query, query + 100, Bounded.CLOSED)).size();
+		System.out.println("IntervalTree queries: " + (System.currentTimeMillis() - time) + " ms, " + found + " results");
+
+		time = System.currentTimeMillis();
+		NestedContainmentList<Integer> ncList = NestedContainmentList.build(list);
+		System.out.println("NestedContainmentList build: " + (System.currentTimeMillis() - time) + " ms");
+		time = System.currentTimeMillis();
+		found = 0;
+		for (int query: queries)
+			found += ncList.query(new IntegerInterval(query, query + 100, Bounded.CLOSED)).size();
+		System.out.println("NestedContainmentList queries: " + (System.currentTimeMillis() - time) + " ms, " + found + " results");
+	}
+}
@@ -0,0 +1,176 @@
+package com.lodborg.intervaltree;
+
+import org.junit.Test;
+
+import com.lodborg.intervaltree.Interval.*;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class SortedIntervalSetTest {
+
+	private static List<Interval<Integer>> toList(Iterable<Interval<Integer>> set){
+		return toList(set.iterator());
+	}
+
+	private static List<Interval<Integer>> toList(Iterator<Interval<Integer>> it){
+		List<Interval<Integer>> list = new ArrayList<>();
+		while (it.hasNext())
+			list.add(it.next());
+		return list;
+	}
+
+	@Test
+	public void test_keepsOrder(){
+		SortedIntervalSet<Integer> set = new SortedIntervalSet<>(Interval.sweepLeftToRight);
+		IntegerInterval a = new IntegerInterval(5, 10, Bounded.CLOSED);
+		IntegerInterval b = new IntegerInterval(5, 10, Bounded.OPEN);
+		IntegerInterval c = new IntegerInterval(-3, 10, Bounded.CLOSED);
+		IntegerInterval d = new IntegerInterval(5, 8, Bounded.CLOSED);
+		assertTrue(set.add(a));
+		assertTrue(set.add(b));
+		assertTrue(set.add(c));
+		assertTrue(set.add(d));
+		assertFalse(set.add(new IntegerInterval(5, 10, Bounded.CLOSED)));
+		assertEquals(4, set.size());
+		assertEquals(Arrays.asList(c, d, a, b), toList(set));
+
+		assertTrue(set.remove(a));
+		assertFalse(set.remove(a));
+		assertFalse(set.remove("not an interval"));
+		assertEquals(Arrays.asList(c, d, b), toList(set));
+		assertTrue(set.contains(d));
+		assertFalse(set.contains(a));
+	}
+
+	@Test
+	public void test_switchToTreeAndBack(){
+		SortedIntervalSet<Integer> set = new SortedIntervalSet<>(Interval.sweepRightToLeft);
+		TreeSet<Interval<Integer>> expected = new TreeSet<>(Interval.sweepRightToLeft);
+		Random random = new Random(5);
+		for (int i = 0; i < 1000; i++){
+			IntegerInterval next = new IntegerInterval(-random.nextInt(100), random.nextInt(100), Bounded.CLOSED);
+			assertEquals(expected.add(next), set.add(next));
+		}
+		assertEquals(expected.size(), set.size());
+		assertEquals(new ArrayList<>(expected), toList(set));
+
+		List<Interval<Integer>> removed = new ArrayList<>();
+		int count = 0;
+		for (Interval<Integer> next: expected){
+			if (count++ % 50 != 0)
+				removed.add(next);
+		}
+		assertTrue(set.removeAll(removed));
+		expected.removeAll(removed);
+		assertTrue(set.size() < SortedIntervalSet.MIN_TREE_SIZE);
+		assertEquals(new ArrayList<>(expected), toList(set));
+
+		for (Interval<Integer> next: new ArrayList<>(expected)){
+			assertTrue(set.remove(next));
+			expected.remove(next);
+			assertEquals(new ArrayList<>(expected), toList(set));
+		}
+		assertTrue(set.isEmpty());
+	}
+
+	@Test
+	public void test_addAll(){
+		SortedIntervalSet<Integer> set = new SortedIntervalSet<>(Interval.sweepLeftToRight);
+		List<Interval<Integer>> list = new ArrayList<>();
+		for (int i = 0; i < SortedIntervalSet.MAX_ARRAY_SIZE * 2; i++)
+			list.add(new IntegerInterval(i, i + 10, Bounded.CLOSED));
+		assertTrue(set.addAll(list.subList(10, 20)));
+		assertFalse(set.addAll(list.subList(10, 15)));
+		assertEquals(10, set.size());
+		assertTrue(set.addAll(list));
+		assertFalse(set.addAll(list));
+		assertEquals(list, toList(set));
+	}
+
+	@Test
+	public void test_iteratorRemove(){
+		SortedIntervalSet<Integer> set = new SortedIntervalSet<>(Interval.sweepLeftToRight);
+		for (int i = 0; i < 10; i++)
+			set.add(new IntegerInterval(i, 20, Bounded.CLOSED));
+		Iterator<Interval<Integer>> it = set.iterator();
+		while (it.hasNext()){
+			if (it.next().getStart() % 2 == 0)
+				it.remove();
+		}
+		assertEquals(5, set.size());
+		for (Interval<Integer> next: set)
+			assertEquals(1, next.getStart() % 2);
+	}
+
+	@Test(expected = ConcurrentModificationException.class)
+	public void test_iteratorFailFast(){
+		SortedIntervalSet<Integer> set = new SortedIntervalSet<>(Interval.sweepLeftToRight);
+		set.add(new IntegerInterval(0, 20, Bounded.CLOSED));
+		set.add(new IntegerInterval(1, 20, Bounded.CLOSED));
+		Iterator<Interval<Integer>> it = set.iterator();
+		it.next();
+		set.add(new IntegerInterval(2, 20, Bounded.CLOSED));
+		it.next();
+	}
+
+	@Test
+	public void test_navigationInTreeMode(){
+		Random random = new Random(11);
+		Bounded[] types = Bounded.values();
+		SortedIntervalSet<Integer> increasing = new SortedIntervalSet<>(Interval.sweepLeftToRight);
+		SortedIntervalSet<Integer> decreasing = new SortedIntervalSet<>(Interval.sweepRightToLeft);
+		// Like in a tree node, all intervals contain the same point, 0
+		while (increasing.size() <= SortedIntervalSet.MAX_ARRAY_SIZE * 4){
+			Integer start = random.nextInt(20) == 0 ? null : -random.nextInt(30);
+			Integer end = random.nextInt(20) == 0 ? null : random.nextInt(30);
+			Interval<Integer> interval = new IntegerInterval().create(start, random.nextBoolean(), end, random.nextBoolean());
+			if (interval.contains(0)){
+				increasing.add(interval);
+				decreasing.add(interval);
+			}
+		}
+		List<Interval<Integer>> sorted = toList(increasing);
+		List<Interval<Integer>> reversed = toList(decreasing);
+
+		for (int i = 0; i < 1000; i++){
+			int point = -random.nextInt(35);
+			assertPrefix(increasing, sorted, OverlapQuery.of(point));
+			assertPrefix(decreasing, reversed, OverlapQuery.of(-point));
+
+			int start = point - 1 - random.nextInt(10);
+			int end = start + random.nextInt(50);
+			Bounded type = types[random.nextInt(types.length)];
+			assertPrefix(increasing, sorted, OverlapQuery.<Integer>of(new IntegerInterval(start, end, type)));
+			assertPrefix(decreasing, reversed, OverlapQuery.<Integer>of(new IntegerInterval(-start, end - 2 * start, type)));
+			assertPrefix(increasing, sorted, OverlapQuery.<Integer>of(new IntegerInterval(start, Unbounded.OPEN_LEFT)));
+			assertPrefix(decreasing, reversed, OverlapQuery.<Integer>of(new IntegerInterval(-start, Unbounded.OPEN_RIGHT)));
+
+			point = random.nextInt(70) - 35;
+			boolean inclusive = random.nextBoolean();
+			List<Interval<Integer>> expected = new ArrayList<>();
+			for (Interval<Integer> next: sorted){
+				if (!SortedIntervalSet.startsBefore(next, point, inclusive))
+					expected.add(next);
+			}
+			assertEquals(expected, toList(increasing.tailIterator(point, inclusive)));
+			expected.clear();
+			for (Interval<Integer> next: sorted){
+				if (!SortedIntervalSet.startsAfter(next, point, inclusive))
+					expected.add(0, next);
+			}
+			assertEquals(expected, toList(increasing.headDescendingIterator(point, inclusive)));
+		}
+	}
+
+	private static void assertPrefix(SortedIntervalSet<Integer> set, List<Interval<Integer>> list, OverlapQuery<Integer> query){
+		int count = 0;
+		while (count < list.size() && query.intersects(list.get(count)))
+			count++;
+		for (int i = count; i < list.size(); i++)
+			assertFalse(query.intersects(list.get(i)));
+		assertEquals(count, set.countPrefix(query));
+		assertEquals(count < list.size() ? list.get(count) : null, set.firstNotIntersecting(query));
+	}
+}
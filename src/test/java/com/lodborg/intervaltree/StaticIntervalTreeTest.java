@@ -0,0 +1,119 @@
+package com.lodborg.intervaltree;
+
+import org.junit.Test;
+
+import com.lodborg.intervaltree.Interval.*;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class StaticIntervalTreeTest {
+
+	@Test
+	public void test_emptyTree(){
+		StaticIntervalTree<Integer> tree = StaticIntervalTree.build(new ArrayList<IntegerInterval>());
+		assertEquals(0, tree.size());
+		assertTrue(tree.isEmpty());
+		assertFalse(tree.iterator().hasNext());
+		assertEquals(0, tree.query(3).size());
+		assertEquals(0, tree.query(new IntegerInterval(0, 10, Bounded.CLOSED)).size());
+		assertFalse(tree.contains(new IntegerInterval(0, 10, Bounded.CLOSED)));
+	}
+
+	@Test
+	public void test_discardDuplicatesAndEmptyIntervals(){
+		List<IntegerInterval> list = new ArrayList<>();
+		list.add(new IntegerInterval(10, 20, Bounded.CLOSED));
+		list.add(new IntegerInterval(10, 20, Bounded.CLOSED));
+		list.add(new IntegerInterval(4, 5, Bounded.OPEN));
+		list.add(new IntegerInterval(8, 3, Bounded.CLOSED));
+		list.add(null);
+		list.add(new IntegerInterval(9, 21, Bounded.OPEN));
+		StaticIntervalTree<Integer> tree = StaticIntervalTree.build(list);
+
+		assertEquals(2, tree.size());
+		assertTrue(tree.contains(new IntegerInterval(10, 20, Bounded.CLOSED)));
+		assertTrue(tree.contains(new IntegerInterval(9, 21, Bounded.OPEN)));
+		assertFalse(tree.contains(new IntegerInterval(4, 5, Bounded.OPEN)));
+		assertFalse(tree.contains(null));
+		assertEquals(new HashSet<>(Arrays.asList(new IntegerInterval(10, 20, Bounded.CLOSED), new IntegerInterval(9, 21, Bounded.OPEN))), tree);
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void test_addThrows(){
+		StaticIntervalTree<Integer> tree = StaticIntervalTree.build(Arrays.asList(new IntegerInterval(0, 10, Bounded.CLOSED)));
+		tree.add(new IntegerInterval(3, 4, Bounded.CLOSED));
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void test_iteratorRemoveThrows(){
+		StaticIntervalTree<Integer> tree = StaticIntervalTree.build(Arrays.asList(new IntegerInterval(0, 10, Bounded.CLOSED)));
+		Iterator<Interval<Integer>> it = tree.iterator();
+		it.next();
+		it.remove();
+	}
+
+	@Test
+	public void test_intervalsNotContainingTheirMidpoint(){
+		List<Interval<Date>> list = new ArrayList<>();
+		list.add(new DateInterval(new Date(0), new Date(1), Bounded.OPEN));
+		list.add(new DateInterval(new Date(-5), new Date(5), Bounded.CLOSED));
+		list.add(new DateInterval(new Date(1), new Date(3), Bounded.CLOSED_LEFT));
+		list.add(new DateInterval(new Date(7), new Date(8), Bounded.OPEN));
+		list.add(new DateInterval(new Date(8), Unbounded.CLOSED_LEFT));
+
+		for (IntervalIndex<Date> index: Arrays.asList(StaticIntervalTree.build(list), IntervalIndexes.build(list, IntervalIndexes.Workload.READ_ONLY, IntervalIndexes.Overlap.UNKNOWN))){
+			assertEquals(5, index.size());
+			assertEquals(new HashSet<>(list), new HashSet<>(index));
+			for (Interval<Date> next: list)
+				assertTrue(index.contains(next));
+			assertFalse(index.contains(new DateInterval(new Date(0), new Date(1), Bounded.CLOSED)));
+			assertEquals(new HashSet<>(Arrays.asList(list.get(1))), index.query(new Date(0)));
+			assertEquals(new HashSet<>(Arrays.asList(list.get(1), list.get(2))), index.query(new Date(1)));
+			assertEquals(new HashSet<>(Arrays.asList(list.get(0), list.get(1))), index.query(new DateInterval(new Date(0), new Date(1), Bounded.CLOSED_LEFT)));
+			assertEquals(new HashSet<>(Arrays.asList(list.get(3), list.get(4))), index.query(new DateInterval(new Date(7), new Date(8), Bounded.CLOSED)));
+		}
+	}
+
+	@Test
+	public void test_adjacentDoublesSameAsLinearSearch(){
+		Random random = new Random(5);
+		Bounded[] types = Bounded.values();
+		List<Interval<Double>> list = new ArrayList<>();
+		for (int i = 0; i < 2000; i++){
+			double start = random.nextInt(200) / 4.0;
+			double end = random.nextInt(3) == 0 ? Math.nextUp(start) : start + random.nextInt(40) / 4.0;
+			list.add(new DoubleInterval(start, end, types[random.nextInt(types.length)]));
+		}
+		StaticIntervalTree<Double> tree = StaticIntervalTree.build(list);
+
+		Set<Interval<Double>> set = new HashSet<>();
+		for (Interval<Double> next: list){
+			if (!next.isEmpty())
+				set.add(next);
+		}
+		assertEquals(set, tree);
+		for (Interval<Double> next: set)
+			assertTrue(tree.contains(next));
+
+		for (int i = 0; i < 500; i++){
+			double point = random.nextInt(240) / 4.0 - 5;
+			Set<Interval<Double>> expected = new HashSet<>();
+			for (Interval<Double> next: set){
+				if (next.contains(point))
+					expected.add(next);
+			}
+			assertEquals(expected, tree.query(point));
+
+			double end = random.nextInt(3) == 0 ? Math.nextUp(point) : point + random.nextInt(20) / 4.0;
+			DoubleInterval query = new DoubleInterval(point, end, types[random.nextInt(types.length)]);
+			expected.clear();
+			for (Interval<Double> next: set){
+				if (next.intersects(query))
+					expected.add(next);
+			}
+			assertEquals(expected, tree.query(query));
+		}
+	}
+}